@@ -0,0 +1,52 @@
+package com.kbw.caplog.ai.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.ai.dto.AiClassifyResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenAI Responses API 응답 해석
+ * - parse: 이미 트리로 읽힌 응답에서 텍스트·토큰 수 꺼내기
+ * - readAndParse: WebClient가 하는 JSON 트리 읽기까지 포함
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseResponseBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+    private JsonNode tree;
+
+    @Setup
+    public void setUp() throws IOException {
+        String card = "{\\\"title\\\":\\\"이마트24 모바일금액권\\\",\\\"summary\\\":\\\"1만원권, 2026.12.31까지\\\","
+                + "\\\"category_main\\\":\\\"Info\\\",\\\"category_sub\\\":\\\"쿠폰\\\","
+                + "\\\"tags\\\":[\\\"쿠폰\\\",\\\"편의점\\\",\\\"금액권\\\"],"
+                + "\\\"fields\\\":{\\\"브랜드\\\":\\\"이마트24\\\",\\\"유효기간\\\":\\\"2026.12.31\\\"}}";
+        body = ("{\"id\":\"resp_1\",\"object\":\"response\",\"status\":\"completed\","
+                + "\"output\":[{\"type\":\"reasoning\",\"summary\":[]},"
+                + "{\"type\":\"message\",\"role\":\"assistant\",\"content\":[{\"type\":\"output_text\",\"text\":\""
+                + card + "\",\"annotations\":[]}]}],"
+                + "\"usage\":{\"input_tokens\":812,\"output_tokens\":96,\"total_tokens\":908}}")
+                .getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        tree = objectMapper.readTree(body);
+    }
+
+    @Benchmark
+    public AiClassifyResponse parse() {
+        return OpenAiClassificationService.parseResponse(tree);
+    }
+
+    @Benchmark
+    public AiClassifyResponse readAndParse() throws IOException {
+        return OpenAiClassificationService.parseResponse(objectMapper.readTree(body));
+    }
+}
@@ -0,0 +1,29 @@
+package com.kbw.caplog.auth.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** 액세스 토큰 검증. 인증이 필요한 모든 요청에서 JwtAuthFilter가 한 번씩 부릅니다. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil("benchmark-secret-0123456789abcdef-0123456789", 1, 14);
+        token = jwtUtil.generateAccessToken("bench@caplog.test");
+    }
+
+    @Benchmark
+    public String validateAndGetSubject() {
+        return jwtUtil.validateAndGetSubject(token);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kbw.caplog.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 요청 제한 필터 경합
+ * - shared: 모든 스레드가 같은 IP로 로그인 → 카운터 하나에 몰림 (대부분 429 경로)
+ * - distinct: 스레드마다 다른 IP → 카운터가 갈림
+ * - unlimited: 제한 대상이 아닌 경로 → 정책 조회 비용만
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    @Param({"shared", "distinct", "unlimited"})
+    public String clients;
+
+    private RequestRateLimitFilter filter;
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        filter = new RequestRateLimitFilter(false, Clock.systemUTC(), new SimpleMeterRegistry());
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        MockHttpServletRequest request;
+
+        @Setup
+        public void setUp(RateLimitFilterBenchmark benchmark) {
+            boolean unlimited = "unlimited".equals(benchmark.clients);
+            request = new MockHttpServletRequest(unlimited ? "GET" : "POST",
+                    unlimited ? "/api/cards" : "/api/auth/login");
+            request.setRemoteAddr("distinct".equals(benchmark.clients)
+                    ? "10.0.0." + benchmark.nextThread.incrementAndGet()
+                    : "10.0.0.1");
+        }
+    }
+
+    @Benchmark
+    public int doFilter(Client client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilterInternal(client.request, response, NO_OP);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,37 @@
+package com.kbw.caplog.bench;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 벤치마크용 리포지토리 대역
+ *
+ * <p>Spring Data 인터페이스는 메서드가 많아 직접 구현하기 번거로우므로 동적 프록시로 필요한
+ * 메서드만 답합니다. 답이 없는 메서드를 부르면 바로 실패해서 측정 경로가 바뀐 것을 알 수 있습니다.
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    public static <T> T of(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "Stub(" + type.getSimpleName() + ")";
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "equals":
+                    return self == args[0];
+                default:
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer == null) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    }
+                    return answer.apply(args);
+            }
+        });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,34 @@
+package com.kbw.caplog.card.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** 카드 id 변환 (Long ↔ UUID 형식 문자열). 목록 응답의 카드마다 한 번씩 불립니다. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardIdsBenchmark {
+
+    private long id = 1;
+    private String externalId;
+
+    @Setup
+    public void setUp() {
+        externalId = CardIds.encode(123_456_789L);
+    }
+
+    @Benchmark
+    public String encode() {
+        // 상수 접기를 막기 위해 매번 다른 id
+        return CardIds.encode(id++ & 0xFFFF_FFFFL | 1);
+    }
+
+    @Benchmark
+    public Long decode() {
+        return CardIds.decode(externalId);
+    }
+}
@@ -0,0 +1,74 @@
+package com.kbw.caplog.card.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.bench.Stubs;
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
+import com.kbw.caplog.recommendation.repository.CardListRow;
+import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 카드 목록 변환 (CardService.findCardsByUserNo → toCardDto)
+ * - DB는 대역으로 바꾸고 행 → CardDto 변환 비용만 잽니다. 대역은 Limit과 관계없이 cards개를 돌려줍니다
+ * - 카드당 할당량은 ./gradlew jmh -PjmhIncludes=CardMapping -PjmhProfilers=gc 의 gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardMappingBenchmark {
+
+    @Param({"1000", "10000"})
+    public int cards;
+
+    private CardService service;
+
+    @Setup
+    public void setUp() {
+        List<CardListRow> rows = new ArrayList<>(cards);
+        Instant createdAt = Instant.parse("2026-07-01T00:00:00Z");
+        for (int i = 1; i <= cards; i++) {
+            boolean place = i % 3 == 0;
+            rows.add(new CardListRow(
+                    (long) i,
+                    (long) (i % 6),
+                    "카드 제목 " + i,
+                    "스크린샷에서 추출한 요약 문장 " + i,
+                    place ? "카페" : null,
+                    "[\"태그" + (i % 7) + "\",\"스크린샷\",\"저장\"]",
+                    "{\"메뉴\":\"라떼\",\"가격\":\"5,000원\",\"기간\":\"2026.12.31\"}",
+                    place ? "테스트 카페 " + i : null,
+                    place ? "서울 마포구 " + i : null,
+                    createdAt.plusSeconds(i),
+                    createdAt.plusSeconds(i * 2L)
+            ));
+        }
+        ScreenshotRepository repository = Stubs.of(ScreenshotRepository.class, Map.of(
+                "findCardPage", args -> rows
+        ));
+        service = new CardService(
+                repository,
+                Stubs.of(CardTombstoneRepository.class, Map.of()),
+                null,
+                null,
+                null,
+                null,
+                null,
+                new ObjectMapper().findAndRegisterModules()
+        );
+    }
+
+    @Benchmark
+    public List<CardDto> mapCardList() {
+        return service.findCardsByUserNo(7L, null, CardService.MAX_PAGE_SIZE);
+    }
+}
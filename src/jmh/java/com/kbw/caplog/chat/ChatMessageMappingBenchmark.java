@@ -0,0 +1,107 @@
+package com.kbw.caplog.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.bench.Stubs;
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.chat.dto.ChatMessageDto;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 메시지 목록 변환 (ChatService.getMessages → toMessageDto)
+ * - DB는 대역. 메시지마다 보낸 사람 조회와 카드 스냅샷(hash로 한 번 읽어 캐시) 비용을 잽니다
+ * - 메시지 네 개 중 하나는 카드 공유
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMessageMappingBenchmark {
+
+    private static final long ROOM_ID = 1L;
+    private static final long ME = 7L;
+    private static final long FRIEND = 8L;
+
+    @Param({"100", "1000"})
+    public int messages;
+
+    private ChatService service;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        Map<String, CardSnapshot> stored = new HashMap<>();
+        CardSnapshotStore cardSnapshots = new CardSnapshotStore(
+                Stubs.of(CardSnapshotRepository.class, Map.of(
+                        "insertIgnoringExisting", args -> stored.put((String) args[0],
+                                new CardSnapshot((String) args[0], (byte[]) args[1], (Instant) args[2])),
+                        "findAllById", args -> stored.values().stream().toList()
+                )),
+                objectMapper,
+                new SimpleMeterRegistry());
+        String snapshotHash = cardSnapshots.save(CardDto.builder()
+                .id("00000000-0000-0000-0000-00000000002a")
+                .title("테스트 카페")
+                .summary("라떼가 맛있는 곳")
+                .category("Info")
+                .subcategory("카페")
+                .tags(List.of("카페", "라떼"))
+                .fields(Map.of("장소명", "테스트 카페", "주소", "서울 마포구"))
+                .createdAt(Instant.parse("2026-07-01T00:00:00Z"))
+                .updatedAt(Instant.parse("2026-07-02T00:00:00Z"))
+                .screenshotURLs(List.of())
+                .build());
+
+        ChatRoom room = ChatRoom.builder().id(ROOM_ID).createdAt(Instant.now()).build();
+        room.getParticipants().add(ChatRoomParticipant.builder().chatRoom(room).userNo(ME).build());
+        room.getParticipants().add(ChatRoomParticipant.builder().chatRoom(room).userNo(FRIEND).build());
+
+        List<ChatMessage> history = new ArrayList<>(messages);
+        Instant start = Instant.parse("2026-07-01T00:00:00Z");
+        for (int i = 0; i < messages; i++) {
+            boolean card = i % 4 == 0;
+            history.add(ChatMessage.builder()
+                    .id((long) i + 1)
+                    .chatRoom(room)
+                    .senderUserNo(i % 2 == 0 ? ME : FRIEND)
+                    .text("메시지 " + i)
+                    .cardId(card ? "00000000-0000-0000-0000-00000000002a" : null)
+                    .cardSnapshotHash(card ? snapshotHash : null)
+                    .createdAt(start.plusSeconds(i))
+                    .build());
+        }
+
+        Map<Long, User> users = Map.of(
+                ME, User.builder().userNo(ME).userId("me").name("나").email("me@caplog.test").password("x").build(),
+                FRIEND, User.builder().userNo(FRIEND).userId("friend").name("친구").email("f@caplog.test").password("x").build()
+        );
+        service = new ChatService(
+                Stubs.of(ChatRoomRepository.class, Map.of("findById", args -> Optional.of(room))),
+                Stubs.of(ChatMessageRepository.class, Map.of("findByChatRoomIdOrderByCreatedAtAsc", args -> history)),
+                Stubs.of(UserRepository.class, Map.of("findById", args -> Optional.ofNullable(users.get(args[0])))),
+                null,
+                null,
+                cardSnapshots,
+                null,
+                null,
+                objectMapper
+        );
+    }
+
+    @Benchmark
+    public List<ChatMessageDto> mapMessages() {
+        return service.getMessages(ROOM_ID, ME);
+    }
+}
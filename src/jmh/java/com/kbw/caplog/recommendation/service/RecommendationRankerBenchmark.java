@@ -0,0 +1,93 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 근처 추천 순위 선택 (RecommendationRanker.topK)
+ * - 후보 n개에서 상위 3개: 크기 3 힙(topK) vs 점수 계산 후 전체 정렬(sortAll)
+ * - 후보의 5%는 같은 장소 중복
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecommendationRankerBenchmark {
+
+    private static final int K = 3;
+
+    @Param({"100", "1000", "10000"})
+    public int candidates;
+
+    private RecommendationRanker ranker;
+    private ScoringContext context;
+    private List<NearbyProjection> rows;
+
+    @Setup
+    public void setUp() {
+        ranker = new RecommendationRanker(List.of(
+                new DistanceDecayScorer(0.6, 500),
+                new RecencyScorer(0.25, 30),
+                new CategoryAffinityScorer(0.15)
+        ));
+        context = new ScoringContext(7L, Map.of("Info", 0.5, "Contents", 0.2, "Log", 0.3));
+        Random random = new Random(42);
+        rows = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            int place = random.nextInt(20) == 0 ? random.nextInt(Math.max(1, i + 1)) : i;
+            rows.add(new Row(
+                    (long) i,
+                    "장소 " + place,
+                    random.nextDouble() * 5_000,
+                    (long) random.nextInt(365 * 86_400),
+                    (long) random.nextInt(6)
+            ));
+        }
+    }
+
+    @Benchmark
+    public List<NearbyProjection> topK() {
+        return ranker.topK(rows, K, context, NearbyProjection::getPlaceName);
+    }
+
+    @Benchmark
+    public List<NearbyProjection> sortAll() {
+        List<RecommendationRanker.Scored> scored = new ArrayList<>(rows.size());
+        for (NearbyProjection row : rows) {
+            scored.add(new RecommendationRanker.Scored(row, ranker.score(row, context)));
+        }
+        scored.sort(Comparator.comparingDouble(RecommendationRanker.Scored::score).reversed());
+        List<NearbyProjection> result = new ArrayList<>(K);
+        List<String> seen = new ArrayList<>(K);
+        for (RecommendationRanker.Scored s : scored) {
+            if (seen.contains(s.candidate().getPlaceName())) continue;
+            seen.add(s.candidate().getPlaceName());
+            result.add(s.candidate());
+            if (result.size() == K) break;
+        }
+        return result;
+    }
+
+    private record Row(Long id, String placeName, Double distanceMeters, Long ageSeconds, Long categoryId)
+            implements NearbyProjection {
+        @Override public Long getId() { return id; }
+        @Override public String getTitle() { return placeName; }
+        @Override public String getSummary() { return null; }
+        @Override public String getPlaceName() { return placeName; }
+        @Override public String getAddress() { return null; }
+        @Override public Double getLat() { return null; }
+        @Override public Double getLng() { return null; }
+        @Override public Double getDistanceMeters() { return distanceMeters; }
+        @Override public Long getCategoryId() { return categoryId; }
+        @Override public Long getAgeSeconds() { return ageSeconds; }
+    }
+}
@@ -0,0 +1,93 @@
+package com.kbw.caplog.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.kbw.caplog.card.dto.CardDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 카드 목록 응답 형식 비교 (JSON / CBOR / Smile, 각각 gzip 전후)
+ * - 직렬화 비용은 serialize, 직렬화 + gzip(Tomcat 압축과 같은 기본 레벨)은 serializeAndGzip
+ * - 본문 크기는 Setup에서 한 번 출력합니다 (format, cards, raw bytes, gzip bytes)
+ * - 카드는 실제 목록처럼 장소명·주소 필드와 태그를 가진 것 위주
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"20", "200"})
+    public int cards;
+
+    private ObjectWriter writer;
+    private List<CardDto> body;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        ObjectMapper mapper = switch (format) {
+            case "cbor" -> BinaryFormatConfig.cborConverter(builder).getObjectMapper();
+            case "smile" -> BinaryFormatConfig.smileConverter(builder).getObjectMapper();
+            default -> builder.build();
+        };
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, CardDto.class));
+
+        body = new ArrayList<>(cards);
+        Instant createdAt = Instant.parse("2026-07-01T00:00:00Z");
+        for (int i = 0; i < cards; i++) {
+            boolean place = i % 3 != 2;
+            body.add(CardDto.builder()
+                    .id(String.format("00000000-0000-0000-0000-%012x", i + 1))
+                    .title(place ? "망원 카페 " + i : "전시 메모 " + i)
+                    .summary("라떼가 맛있고 창가 자리가 넓은 곳. 주말엔 웨이팅 " + (i % 5) + "팀")
+                    .category(place ? "Info" : "Contents")
+                    .subcategory(place ? "카페" : "전시")
+                    .tags(List.of("카페", "데이트", "망원"))
+                    .fields(place
+                            ? Map.of("장소명", "망원 카페 " + i, "주소", "서울 마포구 망원로 " + i, "영업시간", "10:00-22:00")
+                            : Map.of("전시명", "여름 전시 " + i, "기간", "2026.07.01-2026.08.31"))
+                    .createdAt(createdAt.plusSeconds(i * 3_600L))
+                    .updatedAt(createdAt.plusSeconds(i * 3_600L + 60))
+                    .thumbnailURL("/uploads/thumb/" + (i + 1) + ".jpg")
+                    .screenshotURLs(List.of("/uploads/" + (i + 1) + ".png"))
+                    .build());
+        }
+
+        byte[] raw = serialize();
+        System.out.printf("%n%-6s cards=%-4d raw=%7d bytes gzip=%7d bytes%n", format, cards, raw.length, gzip(raw).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        return gzip(writer.writeValueAsBytes(body));
+    }
+
+    private static byte[] gzip(byte[] raw) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(raw);
+        }
+        return compressed.toByteArray();
+    }
+}
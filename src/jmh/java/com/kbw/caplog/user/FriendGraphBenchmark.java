@@ -0,0 +1,58 @@
+package com.kbw.caplog.user;
+
+import org.openjdk.jmh.annotations.*;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 친구 추천 (FriendGraph.suggest)
+ * - friendships 100만 행(50만 쌍)을 사용자 수만 바꿔 가며 만든다. 사용자가 적을수록 친구가 많다
+ * - 친구의 80%는 가까운 번호(같은 동네·학교처럼 겹치는 무리), 20%는 아무나
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FriendGraphBenchmark {
+
+    private static final int PAIRS = 500_000;
+    private static final int LIMIT = 20;
+
+    @Param({"20000", "100000", "500000"})
+    public int users;
+
+    private FriendGraph graph;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        Random seed = new Random(42);
+        Map<Integer, RoaringBitmap> friends = new HashMap<>();
+        for (int i = 0; i < PAIRS; i++) {
+            int a = 1 + seed.nextInt(users);
+            int b = seed.nextInt(5) == 0
+                    ? 1 + seed.nextInt(users)
+                    : Math.floorMod(a + seed.nextInt(200) - 100, users) + 1;
+            if (a == b) continue;
+            friends.computeIfAbsent(a, ignored -> new RoaringBitmap()).add(b);
+            friends.computeIfAbsent(b, ignored -> new RoaringBitmap()).add(a);
+        }
+        friends.values().forEach(RoaringBitmap::runOptimize);
+        graph = new FriendGraph(new JdbcTemplate());
+        graph.replace(friends);
+        random = new Random(7);
+    }
+
+    @Benchmark
+    public List<FriendGraph.Suggestion> suggest() {
+        return graph.suggest((long) 1 + random.nextInt(users), LIMIT);
+    }
+}
@@ -5,10 +5,13 @@ import com.kbw.caplog.ai.dto.AiClassifyResponse;
 import com.kbw.caplog.ai.service.OpenAiClassificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -22,4 +25,15 @@ public class AiController {
     public Mono<AiClassifyResponse> classify(@Valid @RequestBody AiClassifyRequest request) {
         return openAiClassificationService.classify(request.prompt());
     }
+
+    /**
+     * 스트리밍 분류 (text/event-stream)
+     * - event: delta → {"text": "..."} 생성 중인 텍스트 조각
+     * - event: done  → {"content": "...", "totalTokens": n} 최종 결과
+     * - event: error → {"message": "..."} 도중 실패
+     */
+    @PostMapping(value = "/classify/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> classifyStream(@Valid @RequestBody AiClassifyRequest request) {
+        return openAiClassificationService.classifyStream(request.prompt());
+    }
 }
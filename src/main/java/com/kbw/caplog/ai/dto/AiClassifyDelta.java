@@ -0,0 +1,6 @@
+package com.kbw.caplog.ai.dto;
+
+public record AiClassifyDelta(
+        String text
+) {
+}
@@ -1,14 +1,20 @@
 package com.kbw.caplog.ai.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.kbw.caplog.ai.dto.AiClassifyDelta;
 import com.kbw.caplog.ai.dto.AiClassifyResponse;
+import com.kbw.caplog.support.UpstreamMetrics;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
@@ -29,18 +35,29 @@ public class OpenAiClassificationService {
             "스크린샷 OCR 텍스트를 사용자가 지정한 기준으로 분류하세요. "
                     + "응답은 설명이나 마크다운 없이 JSON 객체만 출력하세요.";
 
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(90);
+
+    private static final ParameterizedTypeReference<ServerSentEvent<JsonNode>> UPSTREAM_EVENT =
+            new ParameterizedTypeReference<>() {};
+
     private final WebClient webClient;
+    private final PromptCompactor promptCompactor;
+    private final UpstreamMetrics metrics;
     private final String apiKey;
     private final String model;
 
     public OpenAiClassificationService(
             WebClient.Builder webClientBuilder,
+            PromptCompactor promptCompactor,
+            UpstreamMetrics metrics,
             @Value("${openai.api-key:}") String apiKey,
             @Value("${openai.model:gpt-4o-mini}") String model
     ) {
         this.webClient = webClientBuilder
                 .baseUrl("https://api.openai.com")
                 .build();
+        this.promptCompactor = promptCompactor;
+        this.metrics = metrics;
         this.apiKey = apiKey;
         this.model = model;
     }
@@ -54,10 +71,10 @@ public class OpenAiClassificationService {
         Map<String, Object> requestBody = Map.of(
                 "model", model,
                 "instructions", SYSTEM_INSTRUCTIONS,
-                "input", prompt
+                "input", compact("classify", prompt)
         );
 
-        return webClient.post()
+        return metrics.time("openai", "classify", webClient.post()
                 .uri("/v1/responses")
                 .headers(headers -> headers.setBearerAuth(apiKey))
                 .bodyValue(requestBody)
@@ -72,11 +89,77 @@ public class OpenAiClassificationService {
                 })
                 .bodyToMono(JsonNode.class)
                 .map(OpenAiClassificationService::parseResponse)
-                .timeout(Duration.ofSeconds(90))
+                .timeout(UPSTREAM_TIMEOUT))
                 .onErrorMap(TimeoutException.class, ignored ->
                         new ResponseStatusException(GATEWAY_TIMEOUT, "OpenAI 응답 시간이 초과됐습니다."));
     }
 
+    /**
+     * 스트리밍 분류. OpenAI Responses API의 {@code stream: true} SSE를 받아
+     * 생성되는 텍스트 조각을 {@code delta} 이벤트로 바로 넘기고, 끝나면 전체 내용과
+     * totalTokens를 {@code done} 이벤트로 한 번 보낸다.
+     *
+     * <p>응답 헤더가 나간 뒤에는 상태 코드를 바꿀 수 없으므로, 도중에 생긴 오류는
+     * {@code error} 이벤트로 알리고 스트림을 닫는다. 타임아웃은 전체 시간이 아니라
+     * 업스트림 이벤트 사이 간격에 건다.
+     */
+    public Flux<ServerSentEvent<Object>> classifyStream(String prompt) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return Flux.error(new ResponseStatusException(
+                    SERVICE_UNAVAILABLE, "OPENAI_API_KEY가 설정되지 않았습니다."));
+        }
+
+        Map<String, Object> requestBody = Map.of(
+                "model", model,
+                "instructions", SYSTEM_INSTRUCTIONS,
+                "input", compact("classify_stream", prompt),
+                "stream", true
+        );
+
+        return metrics.time("openai", "classify_stream", Flux.defer(() -> {
+                    StreamParser parser = new StreamParser();
+                    return webClient.post()
+                            .uri("/v1/responses")
+                            .headers(headers -> headers.setBearerAuth(apiKey))
+                            .accept(MediaType.TEXT_EVENT_STREAM)
+                            .bodyValue(requestBody)
+                            .retrieve()
+                            .onStatus(HttpStatusCode::isError, response -> {
+                                log.warn("OpenAI upstream stream failed with status {}",
+                                        response.statusCode().value());
+                                return response.releaseBody().then(Mono.error(
+                                        new ResponseStatusException(
+                                                BAD_GATEWAY, "OpenAI 요청에 실패했습니다.")
+                                ));
+                            })
+                            .bodyToFlux(UPSTREAM_EVENT)
+                            .timeout(UPSTREAM_TIMEOUT)
+                            .<ServerSentEvent<Object>>handle((event, sink) -> {
+                                ServerSentEvent<Object> relayed = parser.accept(event.data());
+                                if (relayed != null) sink.next(relayed);
+                            })
+                            .concatWith(Mono.fromCallable(parser::finish));
+                }))
+                .onErrorMap(TimeoutException.class, ignored ->
+                        new ResponseStatusException(GATEWAY_TIMEOUT, "OpenAI 응답 시간이 초과됐습니다."))
+                .onErrorResume(ResponseStatusException.class, error ->
+                        Flux.just(ServerSentEvent.builder()
+                                .event("error")
+                                .data(Map.of("message", String.valueOf(error.getReason())))
+                                .build()));
+    }
+
+    private String compact(String operation, String prompt) {
+        PromptCompactor.Result compacted = promptCompactor.compact(prompt);
+        metrics.recordPromptTokensSaved("openai", operation, compacted.savedTokens(), compacted.truncated());
+        log.debug("OpenAI prompt compacted: {} -> {} estimated tokens (saved {}, truncated={})",
+                compacted.originalTokens(),
+                compacted.compactedTokens(),
+                compacted.savedTokens(),
+                compacted.truncated());
+        return compacted.prompt();
+    }
+
     static AiClassifyResponse parseResponse(JsonNode root) {
         String content = "";
         for (JsonNode output : root.path("output")) {
@@ -96,4 +179,62 @@ public class OpenAiClassificationService {
         int totalTokens = root.path("usage").path("total_tokens").asInt(0);
         return new AiClassifyResponse(content, totalTokens);
     }
+
+    /**
+     * parseResponse의 스트리밍 버전. 업스트림 이벤트를 하나씩 받아 상태를 쌓는다.
+     * - response.output_text.delta: 텍스트 조각을 모으고 그대로 클라이언트에 넘김
+     * - response.completed: 사용량(total_tokens)을 기록. 조각이 하나도 없었다면
+     *   완료 응답 본문을 parseResponse로 해석
+     * - response.failed / response.incomplete / error: 502로 끝냄
+     * 요청마다 새로 만들어 쓰며 스레드 안전하지 않다.
+     */
+    static final class StreamParser {
+
+        private final StringBuilder content = new StringBuilder();
+        private boolean completed;
+        private int totalTokens;
+
+        ServerSentEvent<Object> accept(JsonNode event) {
+            if (event == null) return null;
+            switch (event.path("type").asText()) {
+                case "response.output_text.delta" -> {
+                    String delta = event.path("delta").asText("");
+                    if (delta.isEmpty()) return null;
+                    content.append(delta);
+                    return ServerSentEvent.builder()
+                            .event("delta")
+                            .data(new AiClassifyDelta(delta))
+                            .build();
+                }
+                case "response.completed" -> {
+                    JsonNode response = event.path("response");
+                    completed = true;
+                    totalTokens = response.path("usage").path("total_tokens").asInt(0);
+                    if (content.toString().isBlank()) {
+                        content.setLength(0);
+                        content.append(parseResponse(response).content());
+                    }
+                    return null;
+                }
+                case "response.failed", "response.incomplete", "error" -> {
+                    log.warn("OpenAI stream ended with event {}", event.path("type").asText());
+                    throw new ResponseStatusException(BAD_GATEWAY, "OpenAI 요청에 실패했습니다.");
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        ServerSentEvent<Object> finish() {
+            String text = content.toString().trim();
+            if (!completed || text.isEmpty()) {
+                throw new ResponseStatusException(BAD_GATEWAY, "OpenAI 응답에 텍스트가 없습니다.");
+            }
+            return ServerSentEvent.builder()
+                    .event("done")
+                    .data(new AiClassifyResponse(text, totalTokens))
+                    .build();
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package com.kbw.caplog.ai.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI로 보내기 전에 프롬프트를 줄입니다.
+ *
+ * <p>iOS 앱의 프롬프트는 긴 지침 안에 OCR 텍스트를 {@code """ ... """}로 감싸 넣습니다.
+ * 지침에는 JSON 스키마처럼 같은 줄이 반복되는 부분이 있어 전체를 건드리면 안 되므로,
+ * 줄 중복 제거와 화면 UI 문구 제거는 이 OCR 블록 안에서만 합니다.
+ * 공백 정리는 의미가 바뀌지 않아 전체에 적용합니다.
+ *
+ * <p>그래도 예산을 넘으면 OCR 블록의 뒷부분을 줄 단위로 잘라냅니다. 넘치는 줄은 남은 예산만큼 앞부분을 남깁니다.
+ * OCR 블록이 없는 프롬프트는 전체를 같은 방식으로 자릅니다.
+ */
+@Component
+public class PromptCompactor {
+
+    static final String TRUNCATED_MARKER = "…(이하 생략)";
+
+    private static final String FENCE = "\"\"\"";
+
+    /** 예산을 아무리 줄여도 OCR 블록에 이만큼은 남깁니다. */
+    private static final int MIN_BLOCK_TOKENS = 200;
+
+    private static final Pattern INLINE_WHITESPACE = Pattern.compile("[\\t\\x0B\\f\\u00A0\\u3000 ]+");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+
+    /** OCR 블록 맨 위 이 줄 수 안에서만 시각 한 줄을 상태 표시줄로 봅니다. */
+    private static final int STATUS_BAR_LINES = 3;
+
+    private static final String CLOCK =
+            "(?:(?:오전|오후)\\s*)?(?:[01]?\\d|2[0-3]):[0-5]\\d(?:\\s*(?:AM|PM|오전|오후))?";
+    private static final String STATUS_TOKEN = "(?:LTE|5G|4G|3G|Wi-?Fi|SKT|KT|LG\\s*U\\+|\\d{1,3}\\s*%)";
+
+    /**
+     * 시각만 있는 줄. 예약·티켓·대화 화면에서는 내용이므로 블록 맨 위(STATUS_BAR_LINES)에서만 지웁니다.
+     */
+    private static final Pattern STATUS_BAR_CLOCK = Pattern.compile("^" + CLOCK + "$", Pattern.CASE_INSENSITIVE);
+
+    /** 상태 표시줄(시각과 통신사·배터리가 같은 줄)과 앱 공통 버튼처럼 카드 내용과 무관한 한 줄짜리 문구 */
+    private static final List<Pattern> BOILERPLATE = List.of(
+            Pattern.compile("^" + CLOCK + "(?:\\s*" + STATUS_TOKEN + ")+$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^(?:" + STATUS_TOKEN + "|\\s)+$", Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^(?:공유(?:하기)?|좋아요|댓글(?:\\s*달기)?|더\\s*보기|저장|보내기|메뉴|홈|검색|뒤로|닫기|취소"
+                    + "|팔로우|팔로잉|메시지(?:\\s*보내기)?|답장|번역\\s*보기|광고|알림|설정|프로필"
+                    + "|Sponsored|Like|Share|Comment|Reply|Follow|More|Send|Search|Home|Back|Cancel)$",
+                    Pattern.CASE_INSENSITIVE),
+            Pattern.compile("^[<>‹›«»←→↑↓·•…|/\\\\\\-_=+*#~^]+$")
+    );
+
+    private final int tokenBudget;
+
+    public PromptCompactor(@Value("${openai.prompt.token-budget:6000}") int tokenBudget) {
+        if (tokenBudget <= 0) {
+            throw new IllegalStateException("openai.prompt.token-budget must be positive");
+        }
+        this.tokenBudget = tokenBudget;
+    }
+
+    public Result compact(String prompt) {
+        String original = prompt != null ? prompt : "";
+        int originalTokens = estimateTokens(original);
+
+        String normalized = normalizeWhitespace(original);
+        int open = normalized.indexOf(FENCE);
+        int close = open >= 0 ? normalized.indexOf(FENCE, open + FENCE.length()) : -1;
+
+        String compacted;
+        boolean truncated;
+        if (open >= 0 && close > open) {
+            String head = normalized.substring(0, open + FENCE.length());
+            String block = cleanBlock(normalized.substring(open + FENCE.length(), close));
+            String tail = normalized.substring(close);
+            int blockBudget = Math.max(MIN_BLOCK_TOKENS,
+                    tokenBudget - estimateTokens(head) - estimateTokens(tail));
+            String fitted = truncateLines(block, blockBudget);
+            truncated = fitted.length() != block.length();
+            compacted = head + "\n" + fitted + "\n" + tail;
+        } else {
+            compacted = truncateLines(normalized, tokenBudget);
+            truncated = compacted.length() != normalized.length();
+        }
+
+        return new Result(compacted, originalTokens, estimateTokens(compacted), truncated);
+    }
+
+    /**
+     * 토큰 수 추정. 정확한 토크나이저 대신 보수적으로 셉니다.
+     * ASCII는 4글자에 1토큰, 한글을 포함한 그 밖의 글자는 1글자에 1토큰으로 봅니다.
+     */
+    static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) return 0;
+        int ascii = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 128) {
+                ascii++;
+            } else if (!Character.isWhitespace(codePoint)) {
+                other++;
+            }
+        }
+        return (ascii + 3) / 4 + other;
+    }
+
+    private static String normalizeWhitespace(String text) {
+        String unified = text.replace("\r\n", "\n").replace('\r', '\n');
+        StringBuilder out = new StringBuilder(unified.length());
+        for (String line : unified.split("\n", -1)) {
+            if (out.length() > 0) out.append('\n');
+            out.append(INLINE_WHITESPACE.matcher(line).replaceAll(" ").strip());
+        }
+        return BLANK_LINES.matcher(out).replaceAll("\n\n").strip();
+    }
+
+    private static String cleanBlock(String block) {
+        Set<String> seen = new HashSet<>();
+        List<String> kept = new ArrayList<>();
+        String[] lines = block.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            if (line.isEmpty() || isBoilerplate(line)) continue;
+            if (i < STATUS_BAR_LINES && STATUS_BAR_CLOCK.matcher(line).matches()) continue;
+            if (!seen.add(line)) continue;
+            kept.add(line);
+        }
+        return String.join("\n", kept);
+    }
+
+    private static boolean isBoilerplate(String line) {
+        for (Pattern pattern : BOILERPLATE) {
+            if (pattern.matcher(line).matches()) return true;
+        }
+        return false;
+    }
+
+    private static String truncateLines(String text, int budget) {
+        if (estimateTokens(text) <= budget) return text;
+        int markerTokens = estimateTokens(TRUNCATED_MARKER);
+        StringBuilder out = new StringBuilder();
+        int used = 0;
+        for (String line : text.split("\n")) {
+            int lineTokens = estimateTokens(line) + 1;
+            if (used + lineTokens + markerTokens > budget) {
+                // 줄바꿈 없는 긴 OCR 한 줄도 남은 예산만큼은 보낸다
+                String head = cutToTokens(line, budget - used - markerTokens - 1);
+                if (!head.isEmpty()) out.append(head).append('\n');
+                break;
+            }
+            out.append(line).append('\n');
+            used += lineTokens;
+        }
+        return out.append(TRUNCATED_MARKER).toString();
+    }
+
+    /** 앞에서부터 estimateTokens가 budget을 넘지 않는 만큼 (글자 중간에서 자르지 않음) */
+    static String cutToTokens(String text, int budget) {
+        if (budget <= 0) return "";
+        int ascii = 0;
+        int other = 0;
+        int end = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            if (codePoint < 128) {
+                ascii++;
+            } else if (!Character.isWhitespace(codePoint)) {
+                other++;
+            }
+            if ((ascii + 3) / 4 + other > budget) break;
+            end = next;
+            i = next;
+        }
+        return text.substring(0, end).strip();
+    }
+
+    /**
+     * @param prompt          OpenAI로 보낼 프롬프트
+     * @param originalTokens  줄이기 전 추정 토큰 수
+     * @param compactedTokens 줄인 뒤 추정 토큰 수
+     * @param truncated       예산 때문에 내용을 잘라냈는지
+     */
+    public record Result(String prompt, int originalTokens, int compactedTokens, boolean truncated) {
+
+        public int savedTokens() {
+            return Math.max(0, originalTokens - compactedTokens);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.kbw.caplog.auth.security;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,9 +19,12 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Clock;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class RequestRateLimitFilter extends OncePerRequestFilter {
@@ -30,24 +36,40 @@ public class RequestRateLimitFilter extends OncePerRequestFilter {
             new Policy("login", "POST", "/api/auth/login", 5, 60, Subject.IP, false),
             new Policy("signup", "POST", "/api/auth/signup", 3, 600, Subject.IP, false),
             new Policy("refresh", "POST", "/api/auth/refresh", 10, 60, Subject.IP, false),
-            new Policy("ai-classify", "POST", "/api/ai/classify", 20, 60, Subject.USER, false)
+            new Policy("ai-classify", "POST", "/api/ai/classify", 20, 60, Subject.USER, false),
+            // 스트리밍 분류도 같은 OpenAI 호출이므로 일반 분류와 한도를 함께 씁니다.
+            new Policy("ai-classify", "POST", "/api/ai/classify/stream", 20, 60, Subject.USER, false),
+            new Policy("card-bulk", "POST", "/api/cards/bulk", 5, 600, Subject.USER, false),
+            // 타이핑마다 호출되는 사용자 검색. 한 글자씩 넉넉히 허용하되 계정 목록을 긁어 가지 못하게 막습니다.
+            new Policy("user-search", "GET", "/api/users/search", 60, 60, Subject.USER, false)
     );
 
     private final ConcurrentMap<LimitKey, WindowCounter> counters = new ConcurrentHashMap<>();
     private final AtomicLong requestCount = new AtomicLong();
     private final boolean trustForwardedHeaders;
     private final Clock clock;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
     public RequestRateLimitFilter(
-            @Value("${caplog.security.trust-forwarded-headers:false}") boolean trustForwardedHeaders
+            @Value("${caplog.security.trust-forwarded-headers:false}") boolean trustForwardedHeaders,
+            MeterRegistry meterRegistry
     ) {
-        this(trustForwardedHeaders, Clock.systemUTC());
+        this(trustForwardedHeaders, Clock.systemUTC(), meterRegistry);
     }
 
-    RequestRateLimitFilter(boolean trustForwardedHeaders, Clock clock) {
+    /**
+     * 메트릭
+     * - caplog.ratelimit.decisions: 제한 대상 요청의 판정 시간 (tags: policy, outcome=allowed|rejected)
+     * - caplog.ratelimit.counters: 메모리에 들고 있는 (정책, 사용자/IP) 카운터 수
+     */
+    RequestRateLimitFilter(boolean trustForwardedHeaders, Clock clock, MeterRegistry meterRegistry) {
         this.trustForwardedHeaders = trustForwardedHeaders;
         this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("caplog.ratelimit.counters", counters, Map::size)
+                .description("Rate limit windows held in memory")
+                .register(meterRegistry);
     }
 
     @Override
@@ -62,6 +84,7 @@ public class RequestRateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
+        long started = System.nanoTime();
         long now = clock.millis();
         if ((requestCount.incrementAndGet() & 255) == 0) {
             counters.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
@@ -74,6 +97,12 @@ public class RequestRateLimitFilter extends OncePerRequestFilter {
         Decision decision = counters
                 .computeIfAbsent(key, ignored -> new WindowCounter(now))
                 .tryAcquire(now, policy.limit(), policy.windowSeconds());
+        Timer.builder("caplog.ratelimit.decisions")
+                .description("Rate limit decision time")
+                .tag("policy", policy.name())
+                .tag("outcome", decision.allowed() ? "allowed" : "rejected")
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
 
         if (!decision.allowed()) {
             response.setStatus(429);
@@ -156,7 +185,13 @@ public class RequestRateLimitFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * 창 하나의 요청 수. synchronized 대신 ReentrantLock을 쓴다.
+     * JDK 21 가상 스레드는 synchronized 블록 안에서 캐리어 스레드에 고정(pinning)되므로,
+     * 요청 경로의 잠금은 모두 j.u.c 잠금으로 둔다.
+     */
     private static final class WindowCounter {
+        private final ReentrantLock lock = new ReentrantLock();
         private long windowStartedAt;
         private long windowMilliseconds;
         private int count;
@@ -165,31 +200,41 @@ public class RequestRateLimitFilter extends OncePerRequestFilter {
             this.windowStartedAt = now;
         }
 
-        private synchronized Decision tryAcquire(long now, int limit, long windowSeconds) {
-            long requestedWindowMilliseconds = windowSeconds * 1_000;
-            long elapsed = now - windowStartedAt;
-            if (elapsed < 0
-                    || windowMilliseconds != requestedWindowMilliseconds
-                    || elapsed >= requestedWindowMilliseconds) {
-                windowStartedAt = now;
-                windowMilliseconds = requestedWindowMilliseconds;
-                count = 0;
-                elapsed = 0;
-            }
+        private Decision tryAcquire(long now, int limit, long windowSeconds) {
+            lock.lock();
+            try {
+                long requestedWindowMilliseconds = windowSeconds * 1_000;
+                long elapsed = now - windowStartedAt;
+                if (elapsed < 0
+                        || windowMilliseconds != requestedWindowMilliseconds
+                        || elapsed >= requestedWindowMilliseconds) {
+                    windowStartedAt = now;
+                    windowMilliseconds = requestedWindowMilliseconds;
+                    count = 0;
+                    elapsed = 0;
+                }
 
-            if (count >= limit) {
-                long remainingMilliseconds = Math.max(1, requestedWindowMilliseconds - elapsed);
-                long retryAfterSeconds = Math.max(1, (remainingMilliseconds + 999) / 1_000);
-                return Decision.reject(retryAfterSeconds);
-            }
+                if (count >= limit) {
+                    long remainingMilliseconds = Math.max(1, requestedWindowMilliseconds - elapsed);
+                    long retryAfterSeconds = Math.max(1, (remainingMilliseconds + 999) / 1_000);
+                    return Decision.reject(retryAfterSeconds);
+                }
 
-            count++;
-            return Decision.permit();
+                count++;
+                return Decision.permit();
+            } finally {
+                lock.unlock();
+            }
         }
 
-        private synchronized boolean isExpired(long now) {
-            return windowMilliseconds > 0
-                    && now - windowStartedAt >= windowMilliseconds;
+        private boolean isExpired(long now) {
+            lock.lock();
+            try {
+                return windowMilliseconds > 0
+                        && now - windowStartedAt >= windowMilliseconds;
+            } finally {
+                lock.unlock();
+            }
         }
     }
 }
@@ -49,6 +49,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.PUT, "/api/auth/password").authenticated() // 비밀번호 변경은 JWT 필요
                         .requestMatchers("/api/auth/**").permitAll() // 로그인/회원가입/refresh/logout은 인증 없이 허용
+                        // 메트릭은 별도 관리 포트(management.server.port)에서만 열리고, 그 포트는 외부에 노출하지 않음
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
 
                         .anyRequest().authenticated()   // 그 외는 인증 필요
                 )
@@ -1,10 +1,19 @@
 package com.kbw.caplog.card.controller;
 
+import com.kbw.caplog.card.dto.CardChangesDto;
 import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.dto.CardFacetsDto;
+import com.kbw.caplog.card.dto.CardImportResult;
+import com.kbw.caplog.card.dto.CardSearchResult;
 import com.kbw.caplog.card.dto.CreateCardRequest;
+import com.kbw.caplog.card.service.CardFacetService;
+import com.kbw.caplog.card.service.CardImportService;
 import com.kbw.caplog.card.service.CardService;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.support.ConditionalGet;
 import com.kbw.caplog.user.User;
 import com.kbw.caplog.user.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,12 +21,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
  * 카드 API (프론트엔드 Home/Folder/Search 연동)
- * - GET /api/cards: 내 카드 목록 (Screenshot 기반)
+ * - GET /api/cards: 내 카드 목록 (Screenshot 기반, ?before=&limit= keyset 페이지네이션)
+ * - GET /api/cards/changes?since=: since(변경 번호 워터마크) 이후 바뀐 카드와 삭제된 카드 id
+ * - GET /api/cards/search?q=: 내 카드 검색 (관련도 순, ?page=&size=)
+ * - GET /api/cards/facets: 카테고리·태그별 카드 수
  * - POST /api/cards: 카드 생성 (스크린샷 AI 분류 결과 저장)
+ * - POST /api/cards/bulk: NDJSON으로 카드 여러 장 가져오기
  * - PUT /api/cards/{id}: 내 카드 수정
  * - DELETE /api/cards/{id}: 내 카드 삭제
  */
@@ -28,15 +43,22 @@ public class CardController {
 
     private static final Logger log = LoggerFactory.getLogger(CardController.class);
     private final CardService cardService;
+    private final CardImportService cardImportService;
+    private final CardFacetService cardFacetService;
     private final UserRepository userRepository;
+    private final ConditionalGet conditionalGet;
 
     /**
      * 내 카드 목록 조회 (JWT 필요)
      * - Screenshot(추천 도메인) 데이터를 Card 형식으로 변환해 반환
+     * - 최신순. 다음 페이지는 이전 응답 마지막 카드 id를 before로 넘겨 조회
+     * - ETag를 보내고, If-None-Match가 같으면 카드를 읽지 않고 304
      */
     @GetMapping
     public ResponseEntity<List<CardDto>> getMyCards(
             Authentication auth,
+            HttpServletRequest request,
+            @RequestParam(required = false) String before,
             @RequestParam(defaultValue = "20") int limit
     ) {
         String email = auth != null ? auth.getName() : null;
@@ -47,7 +69,58 @@ public class CardController {
         if (user == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.ok(cardService.findCardsByUserNo(user.getUserNo(), limit));
+        try {
+            return conditionalGet.respond(request, user.getUserNo(), CollectionVersionRepository.CARDS,
+                    () -> cardService.findCardsByUserNo(user.getUserNo(), before, limit));
+        } catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 카드 델타 동기화 (JWT 필요)
+     * - since: 직전 응답의 watermark (정수 변경 번호). 처음이면 생략하고 fullResync 응답을 받는다
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<CardChangesDto> getCardChanges(
+            Authentication auth,
+            @RequestParam(required = false) Long since
+    ) {
+        User user = authenticatedUser(auth);
+        if (user == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(cardService.findChanges(user.getUserNo(), since));
+    }
+
+    /**
+     * 카드 검색 (JWT 필요)
+     * - q: 검색어. 공백으로 나눈 단어를 모두 포함하는 카드를 관련도 순으로 반환
+     * - 검색어가 비었거나 100자를 넘거나 page가 범위를 벗어나면 400
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CardSearchResult> searchCards(
+            Authentication auth,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        User user = authenticatedUser(auth);
+        if (user == null) return ResponseEntity.status(401).build();
+        try {
+            return ResponseEntity.ok(cardService.searchCards(user.getUserNo(), q, page, size));
+        } catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 카테고리·태그별 카드 수 (JWT 필요) - 홈/폴더 화면 개수 표시용
+     * - 카드 목록을 받지 않고 미리 세어 둔 집계만 읽는다
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<CardFacetsDto> getCardFacets(Authentication auth) {
+        User user = authenticatedUser(auth);
+        if (user == null) return ResponseEntity.status(401).build();
+        return ResponseEntity.ok(cardFacetService.findFacets(user.getUserNo()));
     }
 
     /**
@@ -66,10 +139,26 @@ public class CardController {
             return ResponseEntity.status(401).build();
         }
         CardDto created = cardService.createCard(user.getUserNo(), body);
-        log.info("카드 저장 완료 (userNo={}, title={})", user.getUserNo(), created.getTitle());
+        log.debug("카드 저장 완료 (userNo={}, title={})", user.getUserNo(), created.getTitle());
         return ResponseEntity.ok(created);
     }
 
+    /**
+     * 카드 일괄 가져오기 (JWT 필요)
+     * - body: NDJSON. 한 줄에 CreateCardRequest 하나, 최대 5000장 (넘으면 거기서 멈추고 limitReached=true)
+     * - 깨진 줄은 건너뛰고 결과의 errors에 줄 번호와 함께 담는다
+     */
+    @PostMapping(value = "/bulk", consumes = {"application/x-ndjson", "application/jsonl", "text/plain"})
+    public ResponseEntity<CardImportResult> importCards(Authentication auth, InputStream body) throws IOException {
+        User user = authenticatedUser(auth);
+        if (user == null) return ResponseEntity.status(401).build();
+        try {
+            return ResponseEntity.ok(cardImportService.importNdjson(user.getUserNo(), body));
+        } catch (IllegalArgumentException error) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<CardDto> updateCard(
             Authentication auth,
@@ -80,7 +169,7 @@ public class CardController {
         if (user == null) return ResponseEntity.status(401).build();
         try {
             CardDto updated = cardService.updateCard(user.getUserNo(), id, body);
-            log.info("카드 수정 완료 (userNo={}, cardId={})", user.getUserNo(), id);
+            log.debug("카드 수정 완료 (userNo={}, cardId={})", user.getUserNo(), id);
             return ResponseEntity.ok(updated);
         } catch (IllegalArgumentException error) {
             return ResponseEntity.notFound().build();
@@ -93,7 +182,7 @@ public class CardController {
         if (user == null) return ResponseEntity.status(401).build();
         try {
             cardService.deleteCard(user.getUserNo(), id);
-            log.info("카드 삭제 완료 (userNo={}, cardId={})", user.getUserNo(), id);
+            log.debug("카드 삭제 완료 (userNo={}, cardId={})", user.getUserNo(), id);
             return ResponseEntity.noContent().build();
         } catch (IllegalArgumentException error) {
             return ResponseEntity.notFound().build();
@@ -0,0 +1,38 @@
+package com.kbw.caplog.card.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 사용자별 카드 집계 (카테고리·태그별 카드 수)
+ * - 카드 생성·수정·삭제·일괄 가져오기 때 증감만 반영하고, 조회는 이 행들만 읽는다
+ * - facet_type: CATEGORY(값은 FolderCategory 이름), TAG(태그), TOTAL(전체 카드 수, 값은 빈 문자열)
+ * - TOTAL 행은 "집계가 채워졌다"는 표시를 겸한다. 없으면 조회 때 카드 테이블에서 다시 계산한다
+ * - 쓰기는 CardFacetCountRepository(JdbcTemplate 업서트)로만 한다
+ */
+@Entity
+@Table(name = "card_facet_count", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_card_facet_count_user_facet", columnNames = {"user_no", "facet_type", "facet_value"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardFacetCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_no", nullable = false)
+    private Long userNo;
+
+    @Column(name = "facet_type", nullable = false, length = 16)
+    private String facetType;
+
+    @Column(name = "facet_value", nullable = false, length = 100)
+    private String facetValue;
+
+    @Column(name = "card_count", nullable = false)
+    private int cardCount;
+}
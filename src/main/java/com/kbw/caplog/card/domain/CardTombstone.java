@@ -0,0 +1,41 @@
+package com.kbw.caplog.card.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * 삭제된 카드 기록 (델타 동기화용)
+ * - 카드 행은 실제로 지우고, 클라이언트가 "무엇이 지워졌는지" 알 수 있도록 id만 남긴다
+ * - 보관 기간(CardService.TOMBSTONE_RETENTION)이 지나면 지운다
+ */
+@Entity
+@Table(name = "card_tombstone", indexes = {
+    @Index(name = "idx_card_tombstone_user_deleted", columnList = "user_no, deleted_at"),
+    @Index(name = "idx_card_tombstone_user_change", columnList = "user_no, change_seq")
+})
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_no", nullable = false)
+    private Long userNo;
+
+    @Column(name = "screenshot_id", nullable = false)
+    private Long screenshotId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    /** 삭제한 쓰기의 변경 번호 (Screenshot.changeSeq와 같은 수열) */
+    @Column(name = "change_seq")
+    private Long changeSeq;
+}
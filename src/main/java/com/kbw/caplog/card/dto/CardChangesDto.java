@@ -0,0 +1,26 @@
+package com.kbw.caplog.card.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 카드 델타 동기화 응답 (GET /api/cards/changes)
+ * - cards: since 이후 생성·수정된 카드 (변경 순). 같은 카드가 다시 올 수 있으니 id 기준으로 덮어쓴다
+ * - deletedIds: since 이후 삭제된 카드 id
+ * - watermark: 사용자 카드의 변경 번호(정수). 다음 요청의 since로 그대로 보낸다
+ * - fullResync: true면 변경분이 너무 많거나 since가 알 수 없는 값이거나 보관 기간이 지난 삭제 기록보다 앞서 델타를 줄 수 없다.
+ *   cards/deletedIds는 비어 있고, GET /api/cards로 전체를 다시 받은 뒤 watermark부터 이어간다
+ */
+@Getter
+@Builder
+public class CardChangesDto {
+
+    private List<CardDto> cards;
+    private List<String> deletedIds;
+
+    private long watermark;
+
+    private boolean fullResync;
+}
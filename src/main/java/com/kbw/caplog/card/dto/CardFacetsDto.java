@@ -0,0 +1,24 @@
+package com.kbw.caplog.card.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 카드 집계 응답 (GET /api/cards/facets)
+ * - total: 전체 카드 수
+ * - categories: FolderCategory 6종 전부 (Info, Contents, Social, Log, Music/Art, Etc.), 카드가 없으면 0
+ * - tags: 카드 수가 많은 순 상위 태그
+ */
+@Getter
+@Builder
+public class CardFacetsDto {
+
+    private int total;
+    private List<Facet> categories;
+    private List<Facet> tags;
+
+    public record Facet(String name, int count) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.kbw.caplog.card.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 카드 일괄 가져오기 결과 (POST /api/cards/bulk)
+ * - imported: 저장한 카드 수
+ * - failed: 파싱하지 못해 건너뛴 줄 수. errors에는 앞쪽 일부만 "줄 번호: 이유" 형식으로 담는다
+ * - limitReached: 최대 장수에서 멈췄는지. true면 errors 마지막에 멈춘 줄 번호가 있고 그 뒤 줄은 넣지 않았다
+ * - batches: 배치별 처리량
+ */
+@Getter
+@Builder
+public class CardImportResult {
+
+    private int imported;
+    private int failed;
+    private boolean limitReached;
+    private List<String> errors;
+    private List<Batch> batches;
+    private long elapsedMillis;
+
+    /**
+     * @param rows          배치에 담긴 카드 수
+     * @param elapsedMillis INSERT에 걸린 시간
+     * @param rowsPerSecond 배치 처리량
+     */
+    public record Batch(int rows, long elapsedMillis, long rowsPerSecond) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.kbw.caplog.card.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 카드 검색 응답 (GET /api/cards/search)
+ * - cards: 관련도 높은 순 (같으면 최신순)
+ * - page/size: 요청한 페이지와 실제 적용된 페이지 크기
+ * - hasNext: 다음 페이지(page + 1)가 있는지
+ */
+@Getter
+@Builder
+public class CardSearchResult {
+
+    private List<CardDto> cards;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
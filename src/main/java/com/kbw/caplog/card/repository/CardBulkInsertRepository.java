@@ -0,0 +1,86 @@
+package com.kbw.caplog.card.repository;
+
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 카드 일괄 INSERT
+ *
+ * <p>screenshot_id가 IDENTITY라 Hibernate는 INSERT마다 생성된 키를 받아야 해서 JDBC 배치를 끕니다.
+ * 기존 id(외부 UUID)와 AUTO_INCREMENT를 그대로 두기 위해 id 전략은 바꾸지 않고,
+ * 가져오기 경로만 JDBC 배치로 보냅니다. 데이터소스 URL의 rewriteBatchedStatements=true가
+ * 배치를 여러 행짜리 INSERT 하나로 다시 써 줍니다.
+ *
+ * <p>엔티티 콜백(@PrePersist)을 거치지 않으므로 created_at/updated_at은 여기서 채웁니다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBulkInsertRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO screenshot (
+                user_no, category_id, title, summary, subcategory, tags_json, fields_json,
+                place_name, address, image_url, geocode_status, geocode_attempts, geocode_confidence,
+                created_at, updated_at, change_seq
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /** Hibernate가 Instant를 MySQL에 쓸 때와 같이 UTC로 저장 */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 한 배치를 한 트랜잭션으로 넣고 넣은 행 수를 반환합니다. */
+    @Transactional
+    public int insertAll(List<Screenshot> cards) {
+        if (cards.isEmpty()) return 0;
+        Timestamp now = Timestamp.from(Instant.now());
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, cards, cards.size(),
+                (ps, card) -> bind(ps, card, now));
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // rewriteBatchedStatements는 행별 결과 대신 SUCCESS_NO_INFO(-2)를 줄 수 있다
+                inserted += count == PreparedStatement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    private static void bind(PreparedStatement ps, Screenshot card, Timestamp now) throws SQLException {
+        Calendar utc = Calendar.getInstance(UTC);
+        ps.setLong(1, card.getUserNo());
+        setLong(ps, 2, card.getCategoryId());
+        ps.setString(3, card.getTitle());
+        ps.setString(4, card.getSummary());
+        ps.setString(5, card.getSubcategory());
+        ps.setString(6, card.getTagsJson());
+        ps.setString(7, card.getFieldsJson());
+        ps.setString(8, card.getPlaceName());
+        ps.setString(9, card.getAddress());
+        ps.setString(10, card.getImageUrl());
+        ps.setShort(11, card.getGeocodeStatus() != null ? card.getGeocodeStatus() : 0);
+        ps.setInt(12, card.getGeocodeAttempts() != null ? card.getGeocodeAttempts() : 0);
+        ps.setShort(13, card.getGeocodeConfidence() != null ? card.getGeocodeConfidence() : 0);
+        ps.setTimestamp(14, card.getCreatedAt() != null ? Timestamp.from(card.getCreatedAt()) : now, utc);
+        ps.setTimestamp(15, now, utc);
+        setLong(ps, 16, card.getChangeSeq());
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value == null) ps.setNull(index, Types.BIGINT);
+        else ps.setLong(index, value);
+    }
+}
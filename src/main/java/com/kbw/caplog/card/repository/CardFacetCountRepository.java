@@ -0,0 +1,130 @@
+package com.kbw.caplog.card.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 카드 집계(card_facet_count) 읽기·쓰기
+ *
+ * <p>증감은 INSERT ... ON DUPLICATE KEY UPDATE 업서트라 행이 있는지 먼저 읽지 않고,
+ * 같은 행을 동시에 고쳐도 잃어버리는 갱신이 없습니다. 여러 행을 고칠 때는 (종류, 값) 순으로 정렬해
+ * 보내서 동시 요청끼리 잠금 순서가 엇갈려 교착되지 않게 합니다.
+ *
+ * <p>TOTAL 행은 증감 때 만들지 않고(UPDATE만), 다시 계산할 때만 만듭니다.
+ * 그래서 집계가 채워지기 전에 들어온 증감은 다시 계산할 때 덮어써집니다.
+ *
+ * <p>다시 계산(replaceAll)의 잠금은 CardFacetService가 잡습니다 (사용자의 CARDS 버전 행).
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardFacetCountRepository {
+
+    public static final String CATEGORY = "CATEGORY";
+    public static final String TAG = "TAG";
+    public static final String TOTAL = "TOTAL";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO card_facet_count (user_no, facet_type, facet_value, card_count)
+            VALUES (?, ?, ?, GREATEST(?, 0))
+            ON DUPLICATE KEY UPDATE card_count = GREATEST(card_count + ?, 0)
+            """;
+
+    /** 컬럼 콜레이션이 같다고 보는 값이 자바 쪽에서 둘로 남아도 중복 키로 실패하지 않고 합친다 */
+    private static final String INSERT_SQL = """
+            INSERT INTO card_facet_count (user_no, facet_type, facet_value, card_count)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE card_count = card_count + ?
+            """;
+
+    /** 집계 한 칸 */
+    public record Facet(String type, String value) {
+        public static Facet total() {
+            return new Facet(TOTAL, "");
+        }
+    }
+
+    public record FacetCount(String type, String value, int count) {
+    }
+
+    private static final Comparator<Facet> LOCK_ORDER =
+            Comparator.comparing(Facet::type).thenComparing(Facet::value);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 사용자의 집계 행 전부 (0인 행 포함). 카드 수와 상관없이 카테고리·태그 종류 수만큼만 읽는다 */
+    public List<FacetCount> findByUserNo(Long userNo) {
+        return jdbcTemplate.query("""
+                SELECT facet_type, facet_value, card_count FROM card_facet_count
+                WHERE user_no = ?
+                """, (rs, rowNum) -> new FacetCount(
+                rs.getString("facet_type"), rs.getString("facet_value"), rs.getInt("card_count")
+        ), userNo);
+    }
+
+    /**
+     * 증감 반영. 0이 아닌 값만 보낸다. 결과가 0 아래로 내려가지는 않는다.
+     * 트랜잭션 안에서 부르면 그 트랜잭션에 함께 묶인다 (카드 삭제)
+     */
+    public void applyDeltas(Long userNo, Map<Facet, Integer> deltas) {
+        List<Map.Entry<Facet, Integer>> changes = new ArrayList<>();
+        Integer totalDelta = null;
+        for (Map.Entry<Facet, Integer> entry : deltas.entrySet()) {
+            if (entry.getValue() == 0) continue;
+            if (TOTAL.equals(entry.getKey().type())) totalDelta = entry.getValue();
+            else changes.add(entry);
+        }
+        changes.sort(Map.Entry.comparingByKey(LOCK_ORDER));
+
+        if (!changes.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, changes, changes.size(), (ps, change) -> {
+                ps.setLong(1, userNo);
+                ps.setString(2, change.getKey().type());
+                ps.setString(3, change.getKey().value());
+                ps.setInt(4, change.getValue());
+                ps.setInt(5, change.getValue());
+            });
+        }
+        if (totalDelta != null) {
+            jdbcTemplate.update("""
+                    UPDATE card_facet_count SET card_count = GREATEST(card_count + ?, 0)
+                    WHERE user_no = ? AND facet_type = ? AND facet_value = ''
+                    """, totalDelta, userNo, TOTAL);
+        }
+    }
+
+    /** 다시 계산용: 사용자의 카드마다 (category_id, tags_json)을 넘긴다 */
+    public void scanCards(Long userNo, BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query("SELECT category_id, tags_json FROM screenshot WHERE user_no = ?", rs -> {
+            long categoryId = rs.getLong("category_id");
+            consumer.accept(rs.wasNull() ? null : categoryId, rs.getString("tags_json"));
+        }, userNo);
+    }
+
+    /** 사용자의 집계를 통째로 바꾼다 (TOTAL 행 포함) */
+    @Transactional
+    public void replaceAll(Long userNo, Map<Facet, Integer> counts) {
+        deleteByUserNo(userNo);
+        List<Map.Entry<Facet, Integer>> rows = new ArrayList<>(counts.entrySet());
+        rows.sort(Map.Entry.comparingByKey(LOCK_ORDER));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, Math.max(1, rows.size()), (ps, row) -> {
+            ps.setLong(1, userNo);
+            ps.setString(2, row.getKey().type());
+            ps.setString(3, row.getKey().value());
+            ps.setInt(4, row.getValue());
+            ps.setInt(5, row.getValue());
+        });
+    }
+
+    /** 회원 탈퇴용 */
+    public void deleteByUserNo(Long userNo) {
+        jdbcTemplate.update("DELETE FROM card_facet_count WHERE user_no = ?", userNo);
+    }
+}
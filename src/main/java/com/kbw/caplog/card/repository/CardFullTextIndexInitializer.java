@@ -0,0 +1,53 @@
+package com.kbw.caplog.card.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 카드 검색용 FULLTEXT 인덱스 생성
+ *
+ * <p>JPA @Index로는 FULLTEXT·파서를 지정할 수 없어 ddl-auto(update)가 만들지 못합니다.
+ * 스키마 갱신이 끝난 뒤(entityManagerFactory 이후) 인덱스가 없으면 한 번 만듭니다.
+ * 한글은 띄어쓰기와 조사 때문에 기본 파서로는 부분 일치가 안 되므로 ngram 파서를 씁니다
+ * (토큰 크기는 서버 설정 ngram_token_size, 기본 2).
+ *
+ * <p>MySQL이 아니면(H2 테스트 등) 건너뜁니다. 카드가 많은 테이블에서는 처음 한 번 인덱스 생성에 시간이 걸립니다.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class CardFullTextIndexInitializer {
+
+    static final String INDEX_NAME = "ft_screenshot_text";
+
+    private static final Logger log = LoggerFactory.getLogger(CardFullTextIndexInitializer.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void createIndexIfMissing() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase().contains("mysql")) {
+            log.info("카드 검색 FULLTEXT 인덱스 생략 (database={})", product);
+            return;
+        }
+
+        Integer existing = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = 'screenshot' AND index_name = ?
+                """, Integer.class, INDEX_NAME);
+        if (existing != null && existing > 0) return;
+
+        log.info("카드 검색 FULLTEXT 인덱스 생성 시작 ({})", INDEX_NAME);
+        jdbcTemplate.execute("ALTER TABLE screenshot ADD FULLTEXT INDEX " + INDEX_NAME
+                + " (title, summary, subcategory, place_name, tags_json) WITH PARSER ngram");
+        log.info("카드 검색 FULLTEXT 인덱스 생성 완료 ({})", INDEX_NAME);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kbw.caplog.card.repository;
+
+import com.kbw.caplog.card.domain.CardTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CardTombstoneRepository extends JpaRepository<CardTombstone, Long> {
+
+    /** 변경 번호 after 뒤에 삭제된 카드 id (변경 순) */
+    @Query("""
+            SELECT t.screenshotId FROM CardTombstone t
+            WHERE t.userNo = :userNo AND t.changeSeq > :after
+            ORDER BY t.changeSeq, t.id
+            """)
+    List<Long> findDeletedIdsAfter(
+            @Param("userNo") Long userNo,
+            @Param("after") long after,
+            Limit limit
+    );
+
+    /** 보관 기간이 지나 지울 기록 중 가장 큰 변경 번호 (없으면 null) */
+    @Query("SELECT MAX(t.changeSeq) FROM CardTombstone t WHERE t.userNo = :userNo AND t.deletedAt < :cutoff")
+    Long findMaxChangeSeqDeletedBefore(@Param("userNo") Long userNo, @Param("cutoff") Instant cutoff);
+
+    /** 보관 기간이 지난 기록 정리 */
+    @Modifying
+    @Query("DELETE FROM CardTombstone t WHERE t.userNo = :userNo AND t.deletedAt < :cutoff")
+    int deleteExpired(@Param("userNo") Long userNo, @Param("cutoff") Instant cutoff);
+
+    /** 회원 탈퇴용 */
+    void deleteByUserNo(Long userNo);
+}
@@ -0,0 +1,198 @@
+package com.kbw.caplog.card.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kbw.caplog.card.dto.CardFacetsDto;
+import com.kbw.caplog.card.repository.CardFacetCountRepository;
+import com.kbw.caplog.card.repository.CardFacetCountRepository.Facet;
+import com.kbw.caplog.card.repository.CardFacetCountRepository.FacetCount;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.kbw.caplog.card.repository.CardFacetCountRepository.CATEGORY;
+import static com.kbw.caplog.card.repository.CardFacetCountRepository.TAG;
+import static com.kbw.caplog.card.repository.CardFacetCountRepository.TOTAL;
+
+/**
+ * 카드 집계 (카테고리·태그별 카드 수)
+ * - 카드가 바뀔 때마다 바뀐 칸만 증감한다. 조회는 집계 행만 읽으므로 카드 수와 상관없다
+ * - 집계가 아직 없는 사용자(기능 도입 전 카드)는 첫 조회 때 카드 테이블에서 한 번 계산한다
+ * - 증감은 카드 쓰기 트랜잭션 안에서 반영한다. 실패하면 예외를 그대로 올려 카드 저장과 함께 롤백한다
+ * - facet_value는 utf8mb4_0900_ai_ci라 대소문자·악센트만 다른 태그("Cafe"/"cafe", "café")를 같은 값으로 본다.
+ *   여기서도 같은 기준(foldTag)으로 합쳐 세고, 처음 본 표기로 보낸다
+ */
+@Service
+public class CardFacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardFacetService.class);
+
+    /** 응답에 담을 태그 수 */
+    static final int MAX_TAGS = 100;
+    /** facet_value 컬럼 길이. 더 긴 태그는 잘라서 센다 */
+    static final int MAX_VALUE_LENGTH = 100;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private static final List<String> CATEGORY_NAMES = List.of("Info", "Contents", "Social", "Log", "Music/Art", "Etc.");
+
+    private final CardFacetCountRepository repository;
+    private final CollectionVersionRepository collectionVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader tagsReader;
+
+    public CardFacetService(
+            CardFacetCountRepository repository,
+            CollectionVersionRepository collectionVersions,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper
+    ) {
+        this.repository = repository;
+        this.collectionVersions = collectionVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.tagsReader = objectMapper.readerFor(new TypeReference<List<String>>() {});
+    }
+
+    public void cardAdded(Screenshot card) {
+        cardsAdded(card.getUserNo(), List.of(card));
+    }
+
+    /** 일괄 가져오기: 배치 하나의 증감을 합쳐서 한 번에 보낸다 */
+    public void cardsAdded(Long userNo, List<Screenshot> cards) {
+        Tally deltas = new Tally();
+        for (Screenshot card : cards) {
+            deltas.add(card.getCategoryId(), tags(card.getTagsJson()), 1);
+        }
+        apply(userNo, deltas.counts);
+    }
+
+    public void cardRemoved(Screenshot card) {
+        Tally deltas = new Tally();
+        deltas.add(card.getCategoryId(), tags(card.getTagsJson()), -1);
+        apply(card.getUserNo(), deltas.counts);
+    }
+
+    /** 수정 전 카테고리·태그와 비교해 달라진 칸만 증감한다 */
+    public void cardChanged(Long previousCategoryId, String previousTagsJson, Screenshot card) {
+        Tally deltas = new Tally();
+        deltas.add(previousCategoryId, tags(previousTagsJson), -1);
+        deltas.add(card.getCategoryId(), tags(card.getTagsJson()), 1);
+        apply(card.getUserNo(), deltas.counts);
+    }
+
+    public CardFacetsDto findFacets(Long userNo) {
+        List<FacetCount> rows = repository.findByUserNo(userNo);
+        Map<Facet, Integer> counts = rows.stream()
+                .collect(Collectors.toMap(row -> new Facet(row.type(), row.value()), FacetCount::count, Integer::sum));
+        if (!counts.containsKey(Facet.total())) {
+            counts = rebuild(userNo);
+        }
+
+        Map<Facet, Integer> snapshot = counts;
+        List<CardFacetsDto.Facet> categories = CATEGORY_NAMES.stream()
+                .map(name -> new CardFacetsDto.Facet(name, snapshot.getOrDefault(new Facet(CATEGORY, name), 0)))
+                .collect(Collectors.toList());
+        List<CardFacetsDto.Facet> tags = counts.entrySet().stream()
+                .filter(entry -> TAG.equals(entry.getKey().type()) && entry.getValue() > 0)
+                .sorted(Map.Entry.<Facet, Integer>comparingByValue().reversed()
+                        .thenComparing(entry -> entry.getKey().value()))
+                .limit(MAX_TAGS)
+                .map(entry -> new CardFacetsDto.Facet(entry.getKey().value(), entry.getValue()))
+                .collect(Collectors.toList());
+        return CardFacetsDto.builder()
+                .total(counts.get(Facet.total()))
+                .categories(categories)
+                .tags(tags)
+                .build();
+    }
+
+    /** 카테고리별 카드 비율 (추천 점수용). 카드가 없으면 빈 맵 */
+    public Map<String, Double> categoryShares(Long userNo) {
+        CardFacetsDto facets = findFacets(userNo);
+        if (facets.getTotal() == 0) return Map.of();
+        Map<String, Double> shares = new HashMap<>();
+        for (CardFacetsDto.Facet category : facets.getCategories()) {
+            shares.put(category.name(), (double) category.count() / facets.getTotal());
+        }
+        return shares;
+    }
+
+    /**
+     * 카드 테이블에서 사용자의 집계를 다시 계산해 저장한다 (카드 수에 비례, 사용자당 처음 한 번).
+     * - 집계 행은 아직 없을 수 있어 잠글 수 없으므로, 사용자의 CARDS 버전 행을 잠근다 (없으면 만들어 잠근다).
+     *   카드 쓰기는 모두 이 행을 먼저 올리고 같은 트랜잭션에서 증감하므로, 쓰기는 다시 계산 전에 커밋돼
+     *   카드 읽기에 보이거나(행은 덮어써짐) 잠금이 풀린 뒤에 돈다(카드가 읽히지 않음). 어느 쪽이든 한 번만 센다
+     * - 잠금 순서는 카드 쓰기와 같은 버전 행 → 집계 행이라 서로 교착되지 않는다
+     */
+    private Map<Facet, Integer> rebuild(Long userNo) {
+        Map<Facet, Integer> counts = transactionTemplate.execute(status -> {
+            collectionVersions.lock(userNo, CollectionVersionRepository.CARDS);
+            Tally tally = new Tally();
+            repository.scanCards(userNo, (categoryId, tagsJson) -> tally.add(categoryId, tags(tagsJson), 1));
+            tally.counts.putIfAbsent(Facet.total(), 0);
+            repository.replaceAll(userNo, tally.counts);
+            return tally.counts;
+        });
+        log.info("카드 집계 다시 계산 (userNo={}, cards={}, facets={})", userNo, counts.get(Facet.total()), counts.size());
+        return counts;
+    }
+
+    private void apply(Long userNo, Map<Facet, Integer> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) return;
+        repository.applyDeltas(userNo, deltas);
+    }
+
+    /** DB 비교(utf8mb4_0900_ai_ci)처럼 대소문자·악센트를 뺀 비교용 키 */
+    static String foldTag(String tag) {
+        String decomposed = Normalizer.normalize(tag, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return Normalizer.normalize(stripped, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /** 카드 한 장의 태그 (앞뒤 공백 제거, 빈 값 제외, foldTag가 같은 것은 처음 표기로 한 번만) */
+    private Collection<String> tags(String tagsJson) {
+        if (tagsJson == null || tagsJson.isBlank()) return Set.of();
+        List<String> raw;
+        try {
+            raw = tagsReader.readValue(tagsJson);
+        } catch (IOException error) {
+            return Set.of();
+        }
+        if (raw == null) return Set.of();
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (String tag : raw) {
+            if (tag == null || tag.isBlank()) continue;
+            String trimmed = tag.trim();
+            String value = trimmed.length() <= MAX_VALUE_LENGTH ? trimmed : trimmed.substring(0, MAX_VALUE_LENGTH);
+            tags.putIfAbsent(foldTag(value), value);
+        }
+        return tags.values();
+    }
+
+    /** 한 번의 증감·다시 계산에서 센 값. foldTag가 같은 태그는 이 안에서 처음 본 표기 한 칸으로 센다 */
+    private static final class Tally {
+
+        private final Map<Facet, Integer> counts = new HashMap<>();
+        private final Map<String, String> spellings = new HashMap<>();
+
+        void add(Long categoryId, Collection<String> tags, int sign) {
+            counts.merge(Facet.total(), sign, Integer::sum);
+            counts.merge(new Facet(CATEGORY, CardService.mapCategoryId(categoryId)), sign, Integer::sum);
+            for (String tag : tags) {
+                String spelling = spellings.computeIfAbsent(foldTag(tag), ignored -> tag);
+                counts.merge(new Facet(TAG, spelling), sign, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.kbw.caplog.card.service;
+
+import java.util.UUID;
+
+/**
+ * 카드 id 변환
+ * - DB: screenshot_id (Long)
+ * - 외부(앱, 채팅 스냅샷): UUID 형식 문자열 00000000-0000-0000-0000-{12자리 hex}
+ */
+final class CardIds {
+
+    private CardIds() {
+    }
+
+    /** Long id → UUID 형식 문자열 */
+    static String encode(Long id) {
+        if (id == null) return UUID.randomUUID().toString();
+        return String.format("00000000-0000-0000-0000-%012x", id);
+    }
+
+    /** UUID 형식 문자열 → Long id. 형식이 다르면 IllegalArgumentException */
+    static Long decode(String externalId) {
+        try {
+            UUID uuid = UUID.fromString(externalId);
+            long id = uuid.getLeastSignificantBits();
+            if (uuid.getMostSignificantBits() != 0 || id <= 0) {
+                throw new IllegalArgumentException("Invalid card id");
+            }
+            return id;
+        } catch (IllegalArgumentException error) {
+            throw new IllegalArgumentException("Invalid card id", error);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.kbw.caplog.card.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kbw.caplog.card.dto.CardImportResult;
+import com.kbw.caplog.card.dto.CreateCardRequest;
+import com.kbw.caplog.card.repository.CardBulkInsertRepository;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 카드 일괄 가져오기
+ * - 본문은 NDJSON(한 줄에 CreateCardRequest 하나). 전체를 메모리에 올리지 않고 줄 단위로 읽는다
+ * - BATCH_SIZE개씩 모아 JDBC 배치로 넣고, 배치마다 처리량을 기록한다
+ * - 깨진 줄, MAX_LINE_CHARS보다 긴 줄은 건너뛰고 줄 번호를 돌려준다. 이미 넣은 배치는 되돌리지 않는다
+ * - MAX_CARDS장에서 멈추고 그때까지 넣은 수와 함께 limitReached로 알린다 (그 뒤 줄은 읽지 않음)
+ * - 배치를 넣을 때마다 카테고리·태그 집계를 배치 단위로 합쳐 늘린다 (카드와 같은 트랜잭션)
+ * - 위치 변환은 카드마다 외부 API를 불러야 해서 여기서 하지 않는다 (geocode_status=0으로 남김)
+ */
+@Service
+public class CardImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CardImportService.class);
+
+    static final int BATCH_SIZE = 100;
+    /** 한 요청으로 가져올 수 있는 최대 카드 수 */
+    static final int MAX_CARDS = 5000;
+    /** 한 줄 최대 글자 수. 넘는 줄은 끝까지 메모리에 올리지 않고 건너뛴다 */
+    static final int MAX_LINE_CHARS = 64 * 1024;
+    /** 응답에 담을 오류 줄 수 */
+    static final int MAX_REPORTED_ERRORS = 20;
+
+    private final CardService cardService;
+    private final CardBulkInsertRepository bulkInsertRepository;
+    private final CardFacetService facetService;
+    private final CollectionVersionRepository collectionVersions;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader requestReader;
+
+    public CardImportService(
+            CardService cardService,
+            CardBulkInsertRepository bulkInsertRepository,
+            CardFacetService facetService,
+            CollectionVersionRepository collectionVersions,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper
+    ) {
+        this.cardService = cardService;
+        this.bulkInsertRepository = bulkInsertRepository;
+        this.facetService = facetService;
+        this.collectionVersions = collectionVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.requestReader = objectMapper.readerFor(CreateCardRequest.class);
+    }
+
+    public CardImportResult importNdjson(Long userNo, InputStream body) throws IOException {
+        long started = System.nanoTime();
+        List<Screenshot> pending = new ArrayList<>(BATCH_SIZE);
+        List<CardImportResult.Batch> batches = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        int imported = 0;
+        int failed = 0;
+        int accepted = 0;
+        int lineNumber = 0;
+        boolean limitReached = false;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            BoundedLineReader lines = new BoundedLineReader(reader, MAX_LINE_CHARS);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (lines.tooLong()) {
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(lineNumber + ": line too long (max " + MAX_LINE_CHARS + " chars)");
+                    }
+                    continue;
+                }
+                if (line.isBlank()) continue;
+
+                CreateCardRequest request;
+                try {
+                    request = requestReader.readValue(line);
+                } catch (IOException error) {
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(lineNumber + ": " + error.getOriginalMessage());
+                    }
+                    continue;
+                }
+                if (request == null) {
+                    failed++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) errors.add(lineNumber + ": empty card");
+                    continue;
+                }
+                if (++accepted > MAX_CARDS) {
+                    limitReached = true;
+                    errors.add(lineNumber + ": card limit reached (max " + MAX_CARDS + "), this and later lines not imported");
+                    break;
+                }
+
+                pending.add(cardService.newCard(userNo, request));
+                if (pending.size() == BATCH_SIZE) {
+                    imported += flush(userNo, pending, batches);
+                }
+            }
+        }
+        imported += flush(userNo, pending, batches);
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("카드 일괄 가져오기 완료 (userNo={}, imported={}, failed={}, batches={}, limitReached={}, {}ms)",
+                userNo, imported, failed, batches.size(), limitReached, elapsedMillis);
+        return CardImportResult.builder()
+                .imported(imported)
+                .failed(failed)
+                .limitReached(limitReached)
+                .errors(errors)
+                .batches(batches)
+                .elapsedMillis(elapsedMillis)
+                .build();
+    }
+
+    private int flush(Long userNo, List<Screenshot> pending, List<CardImportResult.Batch> batches) {
+        if (pending.isEmpty()) return 0;
+        long[] elapsed = new long[1];
+        // 집계 재계산이 카드 스캔과 교체 사이에 끼어든 배치를 잃지 않도록 카드와 집계를 함께 커밋
+        int inserted = transactionTemplate.execute(status -> {
+            long changeSeq = collectionVersions.bumpAndGet(userNo, CollectionVersionRepository.CARDS);
+            pending.forEach(card -> card.setChangeSeq(changeSeq));
+            long started = System.nanoTime();
+            int count = bulkInsertRepository.insertAll(pending);
+            elapsed[0] = System.nanoTime() - started;
+            facetService.cardsAdded(userNo, pending);
+            return count;
+        });
+        long elapsedNanos = Math.max(1, elapsed[0]);
+
+        CardImportResult.Batch batch = new CardImportResult.Batch(
+                inserted,
+                elapsedNanos / 1_000_000,
+                inserted * 1_000_000_000L / elapsedNanos
+        );
+        batches.add(batch);
+        log.info("카드 배치 저장 (userNo={}, batch={}, rows={}, {}ms, {} rows/s)",
+                userNo, batches.size(), batch.rows(), batch.elapsedMillis(), batch.rowsPerSecond());
+        pending.clear();
+        return inserted;
+    }
+
+    /**
+     * BufferedReader.readLine은 줄 길이 제한이 없어 줄바꿈 없는 큰 본문 하나로 힙을 다 쓸 수 있다.
+     * maxChars까지만 모으고 나머지는 줄 끝까지 읽어 버린다
+     */
+    static final class BoundedLineReader {
+
+        private final Reader reader;
+        private final int maxChars;
+        private final StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        BoundedLineReader(Reader reader, int maxChars) {
+            this.reader = reader;
+            this.maxChars = maxChars;
+        }
+
+        /** 다음 줄 (줄바꿈 제외). 끝이면 null */
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            int c = reader.read();
+            if (c == -1) return null;
+            while (c != -1 && c != '\n') {
+                if (line.length() < maxChars) line.append((char) c);
+                else tooLong = true;
+                c = reader.read();
+            }
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') line.setLength(end - 1);
+            return line.toString();
+        }
+
+        /** 직전 줄이 maxChars를 넘어 잘렸는지 */
+        boolean tooLong() {
+            return tooLong;
+        }
+    }
+}
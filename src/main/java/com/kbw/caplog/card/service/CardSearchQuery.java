@@ -0,0 +1,35 @@
+package com.kbw.caplog.card.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 검색어 → MySQL FULLTEXT BOOLEAN MODE 식
+ * - 공백으로 나눈 단어를 모두 포함해야 한다 (+"단어")
+ * - 사용자가 넣은 연산자 문자(+ - < > ( ) ~ * " @)는 지운다
+ * - ngram(기본 2글자) 파서는 한 글자 단어를 색인하지 않으므로 한 글자는 접두어 검색(+단어*)으로 보낸다
+ */
+final class CardSearchQuery {
+
+    static final int MAX_QUERY_LENGTH = 100;
+    static final int MAX_TERMS = 8;
+
+    private CardSearchQuery() {
+    }
+
+    /** 쓸 수 있는 단어가 없거나 너무 길면 IllegalArgumentException */
+    static String toBooleanMode(String q) {
+        if (q == null || q.isBlank()) throw new IllegalArgumentException("Empty search query");
+        if (q.length() > MAX_QUERY_LENGTH) throw new IllegalArgumentException("Search query too long");
+
+        List<String> terms = new ArrayList<>();
+        for (String raw : q.trim().split("\\s+")) {
+            String term = raw.replaceAll("[+\\-<>()~*\"@\\\\]", "");
+            if (term.isEmpty()) continue;
+            terms.add(term.codePointCount(0, term.length()) < 2 ? "+" + term + "*" : "+\"" + term + "\"");
+            if (terms.size() == MAX_TERMS) break;
+        }
+        if (terms.isEmpty()) throw new IllegalArgumentException("Empty search query");
+        return String.join(" ", terms);
+    }
+}
@@ -3,16 +3,34 @@ package com.kbw.caplog.card.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kbw.caplog.card.domain.CardTombstone;
+import com.kbw.caplog.card.dto.CardChangesDto;
 import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.dto.CardSearchResult;
 import com.kbw.caplog.card.dto.CreateCardRequest;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
 import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.recommendation.repository.CardListRow;
+import com.kbw.caplog.recommendation.repository.CardSearchHit;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
 import com.kbw.caplog.recommendation.service.GeocodeService;
-import lombok.RequiredArgsConstructor;
+import com.kbw.caplog.recommendation.service.NearbyCache;
+import com.kbw.caplog.support.AfterCommit;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -20,71 +38,159 @@ import java.util.stream.Collectors;
  * - Screenshot 엔티티를 프론트 Card 형식으로 변환
  */
 @Service
-@RequiredArgsConstructor
 public class CardService {
 
+    private static final Logger log = LoggerFactory.getLogger(CardService.class);
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 200;
+
+    /** 검색 한 페이지 최대 크기와 마지막 페이지. FULLTEXT 결과는 OFFSET으로 넘기므로 깊은 페이지를 막는다 */
+    static final int MAX_SEARCH_PAGE_SIZE = 50;
+    static final int MAX_SEARCH_PAGE = 49;
+
+    /** 델타 응답 한 번에 담을 최대 변경 수. 넘으면 전체 재동기화를 안내 */
+    static final int MAX_CHANGES = 500;
+    /** 삭제 기록 보관 기간. 지운 기록보다 앞선 커서는 전체 재동기화 */
+    static final Duration TOMBSTONE_RETENTION = Duration.ofDays(30);
+
     private final ScreenshotRepository screenshotRepository;
+    private final CardTombstoneRepository tombstoneRepository;
     private final GeocodeService geocodeService;
+    private final CardFacetService facetService;
+    private final NearbyCache nearbyCache;
+    private final CollectionVersionRepository collectionVersions;
+    /** 카드 저장과 집계 증감을 한 트랜잭션으로 묶되, 외부 API인 위치 변환은 커밋 뒤에 하려고 쓴다 */
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper objectMapper;
 
+    /**
+     * tagsJson/fieldsJson 전용 reader. 목록 조회마다 카드 수만큼 디코딩하므로
+     * 타입 해석과 deserializer 조회를 한 번만 하도록 미리 만들어 둔다 (ObjectReader는 불변이라 공유 가능)
+     */
+    private final ObjectReader tagsReader;
+    private final ObjectReader fieldsReader;
+
+    public CardService(
+            ScreenshotRepository screenshotRepository,
+            CardTombstoneRepository tombstoneRepository,
+            GeocodeService geocodeService,
+            CardFacetService facetService,
+            NearbyCache nearbyCache,
+            CollectionVersionRepository collectionVersions,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper
+    ) {
+        this.screenshotRepository = screenshotRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.geocodeService = geocodeService;
+        this.facetService = facetService;
+        this.nearbyCache = nearbyCache;
+        this.collectionVersions = collectionVersions;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.tagsReader = objectMapper.readerFor(new TypeReference<ArrayList<String>>() {});
+        this.fieldsReader = objectMapper.readerFor(new TypeReference<LinkedHashMap<String, String>>() {});
+    }
+
     /**
      * 스크린샷 AI 분류 결과를 DB에 저장 (iOS에서 카드 생성 시 호출)
      */
     public CardDto createCard(Long userNo, CreateCardRequest req) {
-        Screenshot s = new Screenshot();
-        s.setUserNo(userNo);
-        applyRequest(s, req);
-        s.setGeocodeStatus((short) 0);
-        s.setGeocodeAttempts(0);
-        s.setGeocodeConfidence((short) 0);
-        Screenshot saved = screenshotRepository.save(s);
+        Screenshot saved = transactionTemplate.execute(status -> {
+            Screenshot card = newCard(userNo, req);
+            card.setChangeSeq(collectionVersions.bumpAndGet(userNo, CollectionVersionRepository.CARDS));
+            Screenshot created = screenshotRepository.save(card);
+            facetService.cardAdded(created);
+            return created;
+        });
         if ((saved.getPlaceName() != null && !saved.getPlaceName().isBlank())
                 || (saved.getAddress() != null && !saved.getAddress().isBlank())) {
             try {
                 geocodeService.geocodeOne(saved.getId(), userNo);
             } catch (RuntimeException error) {
-                System.out.println("⚠️ 카드 위치 변환 예약 실패: " + error.getMessage());
+                log.warn("카드 위치 변환 실패 (cardId={}): {}", saved.getId(), error.getMessage());
             }
         }
         return toCardDto(saved);
     }
 
+    /** 요청 값을 정리해 저장 전 Screenshot을 만듭니다. 일괄 가져오기도 같은 규칙을 씁니다. */
+    Screenshot newCard(Long userNo, CreateCardRequest req) {
+        Screenshot s = new Screenshot();
+        s.setUserNo(userNo);
+        applyRequest(s, req);
+        s.setGeocodeStatus((short) 0);
+        s.setGeocodeAttempts(0);
+        s.setGeocodeConfidence((short) 0);
+        return s;
+    }
+
     /** 현재 사용자가 소유한 카드만 수정합니다. */
     public CardDto updateCard(Long userNo, String externalId, CreateCardRequest req) {
-        Long screenshotId = externalIdToLong(externalId);
-        Screenshot screenshot = screenshotRepository.findByIdAndUserNo(screenshotId, userNo)
-                .orElseThrow(() -> new IllegalArgumentException("Card not found"));
+        Long screenshotId = CardIds.decode(externalId);
+        boolean[] locationChanged = new boolean[1];
+        Screenshot saved = transactionTemplate.execute(status -> {
+            long changeSeq = collectionVersions.bumpAndGet(userNo, CollectionVersionRepository.CARDS);
+            Screenshot screenshot = screenshotRepository.findByIdAndUserNo(screenshotId, userNo)
+                    .orElseThrow(() -> new IllegalArgumentException("Card not found"));
 
-        String previousPlaceName = screenshot.getPlaceName();
-        String previousAddress = screenshot.getAddress();
-        applyRequest(screenshot, req);
-        boolean locationChanged = !Objects.equals(previousPlaceName, screenshot.getPlaceName())
-                || !Objects.equals(previousAddress, screenshot.getAddress());
-        if (locationChanged) {
-            screenshot.setLat(null);
-            screenshot.setLng(null);
-            screenshot.setGeocodeStatus((short) 0);
-            screenshot.setGeocodeAttempts(0);
-            screenshot.setGeocodeConfidence((short) 0);
-        }
+            String previousPlaceName = screenshot.getPlaceName();
+            String previousAddress = screenshot.getAddress();
+            Long previousCategoryId = screenshot.getCategoryId();
+            String previousTagsJson = screenshot.getTagsJson();
+            applyRequest(screenshot, req);
+            locationChanged[0] = !Objects.equals(previousPlaceName, screenshot.getPlaceName())
+                    || !Objects.equals(previousAddress, screenshot.getAddress());
+            if (locationChanged[0]) {
+                screenshot.setLat(null);
+                screenshot.setLng(null);
+                screenshot.setGeocodeStatus((short) 0);
+                screenshot.setGeocodeAttempts(0);
+                screenshot.setGeocodeConfidence((short) 0);
+            }
 
-        Screenshot saved = screenshotRepository.save(screenshot);
-        if (locationChanged && hasLocationText(saved)) {
+            screenshot.setChangeSeq(changeSeq);
+            Screenshot updated = screenshotRepository.save(screenshot);
+            facetService.cardChanged(previousCategoryId, previousTagsJson, updated);
+            AfterCommit.run(() -> nearbyCache.invalidate(userNo));
+            return updated;
+        });
+        if (locationChanged[0] && hasLocationText(saved)) {
             try {
                 geocodeService.geocodeOne(saved.getId(), userNo);
             } catch (RuntimeException error) {
-                System.out.println("⚠️ 카드 위치 재변환 예약 실패: " + error.getMessage());
+                log.warn("카드 위치 재변환 실패 (cardId={}): {}", saved.getId(), error.getMessage());
             }
         }
         return toCardDto(saved);
     }
 
-    /** 현재 사용자가 소유한 카드만 삭제합니다. */
+    /** 현재 사용자가 소유한 카드만 삭제합니다. 델타 동기화를 위해 삭제 기록을 남기고 집계를 줄입니다. */
+    @Transactional
     public void deleteCard(Long userNo, String externalId) {
-        Long screenshotId = externalIdToLong(externalId);
+        Long screenshotId = CardIds.decode(externalId);
+        long changeSeq = collectionVersions.bumpAndGet(userNo, CollectionVersionRepository.CARDS);
         Screenshot screenshot = screenshotRepository.findByIdAndUserNo(screenshotId, userNo)
                 .orElseThrow(() -> new IllegalArgumentException("Card not found"));
         screenshotRepository.delete(screenshot);
+        facetService.cardRemoved(screenshot);
+        AfterCommit.run(() -> nearbyCache.invalidate(userNo));
+
+        Instant now = Instant.now();
+        tombstoneRepository.save(CardTombstone.builder()
+                .userNo(userNo)
+                .screenshotId(screenshotId)
+                .deletedAt(now)
+                .changeSeq(changeSeq)
+                .build());
+        Instant cutoff = now.minus(TOMBSTONE_RETENTION);
+        Long purgedThrough = tombstoneRepository.findMaxChangeSeqDeletedBefore(userNo, cutoff);
+        if (purgedThrough != null) {
+            // 지우는 기록보다 앞선 커서로는 이 삭제를 알 수 없으니 그 커서들은 전체 재동기화로 보낸다
+            collectionVersions.raise(userNo, CollectionVersionRepository.CARDS_PURGED, purgedThrough);
+            tombstoneRepository.deleteExpired(userNo, cutoff);
+        }
     }
 
     private void applyRequest(Screenshot screenshot, CreateCardRequest req) {
@@ -121,12 +227,17 @@ public class CardService {
         }
     }
 
-    private <T> T readJson(String json, TypeReference<T> type, T fallback) {
-        if (json == null || json.isBlank()) return fallback;
+    /**
+     * 저장된 JSON을 변경 가능한 컬렉션으로 읽습니다. reader가 구체 타입(ArrayList, LinkedHashMap)을
+     * 만들기 때문에 호출하는 쪽에서 다시 복사할 필요가 없습니다. 비었거나 깨진 값이면 fallback.
+     */
+    private static <T> T readJson(String json, ObjectReader reader, Supplier<T> fallback) {
+        if (json == null || json.isBlank()) return fallback.get();
         try {
-            return objectMapper.readValue(json, type);
-        } catch (JsonProcessingException error) {
-            return fallback;
+            T value = reader.readValue(json);
+            return value != null ? value : fallback.get();
+        } catch (IOException error) {
+            return fallback.get();
         }
     }
 
@@ -157,96 +268,148 @@ public class CardService {
     }
 
     /**
-     * 유저별 카드 목록 조회 (Screenshot 기반)
+     * 유저별 카드 목록 조회 (Screenshot 기반, 최신순 keyset 페이지네이션)
+     * - before: 직전 페이지 마지막 카드 id(UUID 형식). 없으면 첫 페이지
+     * - limit: 1~200, 0 이하이면 기본 20
      * - categoryId → FolderCategory 매핑 (1=Info, 2=Contents, 3=Social 등)
      */
-    public List<CardDto> findCardsByUserNo(Long userNo, int limit) {
-        List<Screenshot> screenshots = screenshotRepository.findByUserNoOrderByIdDesc(userNo);
-        if (limit > 0 && screenshots.size() > limit) {
-            screenshots = screenshots.subList(0, limit);
-        }
-        return screenshots.stream()
+    public List<CardDto> findCardsByUserNo(Long userNo, String before, int limit) {
+        Limit pageSize = Limit.of(limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE);
+        List<CardListRow> rows = before == null || before.isBlank()
+                ? screenshotRepository.findCardPage(userNo, pageSize)
+                : screenshotRepository.findCardPageBefore(userNo, CardIds.decode(before.trim()), pageSize);
+        return rows.stream()
                 .map(this::toCardDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 델타 동기화: 변경 번호 since 뒤에 생성·수정된 카드와 삭제된 카드 id
+     * - 워터마크는 사용자의 CARDS 버전(변경 번호). 서버·DB 시계와 상관없이 커밋 순서를 따르므로,
+     *   워터마크 이하의 변경은 이 조회에 모두 보이고 그보다 늦게 커밋된 쓰기는 더 큰 번호를 받는다
+     * - since가 없거나, 워터마크보다 크거나(이 서버가 준 값이 아님), 보관 기간이 지나 지운 삭제 기록보다
+     *   앞서거나, 변경이 MAX_CHANGES를 넘으면 fullResync
+     */
+    @Transactional(readOnly = true)
+    public CardChangesDto findChanges(Long userNo, Long since) {
+        long watermark = collectionVersions.find(userNo, CollectionVersionRepository.CARDS);
+        if (since == null || since < 0 || since > watermark
+                || since < collectionVersions.find(userNo, CollectionVersionRepository.CARDS_PURGED)) {
+            return fullResync(watermark);
+        }
+
+        Limit overflow = Limit.of(MAX_CHANGES + 1);
+        List<CardListRow> changed = screenshotRepository.findCardsChangedAfter(userNo, since, overflow);
+        if (changed.size() > MAX_CHANGES) return fullResync(watermark);
+        List<Long> deleted = tombstoneRepository.findDeletedIdsAfter(userNo, since, overflow);
+        if (changed.size() + deleted.size() > MAX_CHANGES) return fullResync(watermark);
+
+        return CardChangesDto.builder()
+                .cards(changed.stream().map(this::toCardDto).collect(Collectors.toList()))
+                .deletedIds(deleted.stream().map(CardIds::encode).collect(Collectors.toList()))
+                .watermark(watermark)
+                .fullResync(false)
+                .build();
+    }
+
+    /**
+     * 카드 검색 (제목, 요약, 세부 카테고리, 장소명, 태그)
+     * - q: 공백으로 나눈 단어를 모두 포함하는 카드. 부분 일치 (ngram)
+     * - page: 0부터, size: 1~50 (0 이하이면 기본 20)
+     * - 점수 순 id 페이지를 먼저 읽고, 그 id의 카드 행만 한 번 더 읽는다
+     */
+    @Transactional(readOnly = true)
+    public CardSearchResult searchCards(Long userNo, String q, int page, int size) {
+        String query = CardSearchQuery.toBooleanMode(q);
+        if (page < 0 || page > MAX_SEARCH_PAGE) throw new IllegalArgumentException("Invalid page");
+        int pageSize = size > 0 ? Math.min(size, MAX_SEARCH_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+
+        List<CardSearchHit> hits = screenshotRepository.searchCards(userNo, query, pageSize + 1, page * pageSize);
+        boolean hasNext = hits.size() > pageSize;
+        if (hasNext) hits = hits.subList(0, pageSize);
+
+        List<CardDto> cards = List.of();
+        if (!hits.isEmpty()) {
+            List<Long> ids = hits.stream().map(CardSearchHit::getId).collect(Collectors.toList());
+            Map<Long, CardListRow> rows = screenshotRepository.findCardRowsByIds(userNo, ids).stream()
+                    .collect(Collectors.toMap(CardListRow::id, Function.identity()));
+            cards = ids.stream()
+                    .map(rows::get)
+                    .filter(Objects::nonNull)
+                    .map(this::toCardDto)
+                    .collect(Collectors.toList());
+        }
+        return CardSearchResult.builder()
+                .cards(cards)
+                .page(page)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private static CardChangesDto fullResync(long watermark) {
+        return CardChangesDto.builder()
+                .cards(List.of())
+                .deletedIds(List.of())
+                .watermark(watermark)
+                .fullResync(true)
+                .build();
+    }
+
     /** 채팅 공유용: 외부 UUID 형식 카드 ID를 현재 사용자의 카드로 검증하고 스냅샷을 반환합니다. */
     public CardDto findOwnedCardByExternalId(Long userNo, String externalId) {
-        Long screenshotId = externalIdToLong(externalId);
+        Long screenshotId = CardIds.decode(externalId);
         Screenshot screenshot = screenshotRepository.findByIdAndUserNo(screenshotId, userNo)
                 .orElseThrow(() -> new IllegalArgumentException("Card not found"));
         return toCardDto(screenshot);
     }
 
+    private CardDto toCardDto(Screenshot s) {
+        return toCardDto(CardListRow.from(s));
+    }
+
     /**
-     * Screenshot → CardDto 변환
+     * 카드 행 → CardDto 변환
      * - 프론트 Card 모델 필드에 맞춤
      */
-    private CardDto toCardDto(Screenshot s) {
+    private CardDto toCardDto(CardListRow s) {
         // id를 UUID 문자열 형식으로 변환 (프론트 호환)
-        String uuidStr = longToUuidString(s.getId());
-
-        String category = mapCategoryId(s.getCategoryId());
-        String subcategory = s.getSubcategory() != null && !s.getSubcategory().isBlank()
-                ? s.getSubcategory()
-                : mapSubcategory(category, s.getPlaceName());
-
-        Map<String, String> fields = new HashMap<>(readJson(
-                s.getFieldsJson(),
-                new TypeReference<Map<String, String>>() {},
-                Map.of()
-        ));
-        if (s.getPlaceName() != null) fields.put("장소명", s.getPlaceName());
-        if (s.getAddress() != null) fields.put("주소", s.getAddress());
-
-        List<String> tags = new ArrayList<>(readJson(
-                s.getTagsJson(),
-                new TypeReference<List<String>>() {},
-                List.of()
-        ));
-        if (s.getTagsJson() == null) {
-            if (s.getPlaceName() != null) tags.add(s.getPlaceName());
-            if (s.getSummary() != null && !s.getSummary().isBlank()) {
-                tags.addAll(Arrays.asList(s.getSummary().split("\\s+")));
+        String uuidStr = CardIds.encode(s.id());
+
+        String category = mapCategoryId(s.categoryId());
+        String subcategory = s.subcategory() != null && !s.subcategory().isBlank()
+                ? s.subcategory()
+                : mapSubcategory(category, s.placeName());
+
+        Map<String, String> fields = readJson(s.fieldsJson(), fieldsReader, LinkedHashMap::new);
+        if (s.placeName() != null) fields.put("장소명", s.placeName());
+        if (s.address() != null) fields.put("주소", s.address());
+
+        List<String> tags = readJson(s.tagsJson(), tagsReader, ArrayList::new);
+        if (s.tagsJson() == null) {
+            if (s.placeName() != null) tags.add(s.placeName());
+            if (s.summary() != null && !s.summary().isBlank()) {
+                tags.addAll(Arrays.asList(s.summary().split("\\s+")));
             }
         }
 
         return CardDto.builder()
                 .id(uuidStr)
-                .title(s.getTitle() != null ? s.getTitle() : s.getPlaceName() != null ? s.getPlaceName() : "제목 없음")
-                .summary(s.getSummary() != null ? s.getSummary() : "")
+                .title(s.title() != null ? s.title() : s.placeName() != null ? s.placeName() : "제목 없음")
+                .summary(s.summary() != null ? s.summary() : "")
                 .category(category)
                 .subcategory(subcategory)
                 .tags(tags)
                 .fields(fields)
-                .createdAt(s.getCreatedAt() != null ? s.getCreatedAt() : Instant.now())
-                .updatedAt(s.getUpdatedAt() != null ? s.getUpdatedAt() : Instant.now())
+                .createdAt(s.createdAt() != null ? s.createdAt() : Instant.now())
+                .updatedAt(s.updatedAt() != null ? s.updatedAt() : Instant.now())
                 .thumbnailURL(null)
                 .screenshotURLs(List.of())
                 .build();
     }
 
-    /** Long id → UUID 형식 문자열 (00000000-0000-0000-0000-{12자리 hex}) */
-    private static String longToUuidString(Long id) {
-        if (id == null) return UUID.randomUUID().toString();
-        return String.format("00000000-0000-0000-0000-%012x", id);
-    }
-
-    private static Long externalIdToLong(String externalId) {
-        try {
-            UUID uuid = UUID.fromString(externalId);
-            long id = uuid.getLeastSignificantBits();
-            if (uuid.getMostSignificantBits() != 0 || id <= 0) {
-                throw new IllegalArgumentException("Invalid card id");
-            }
-            return id;
-        } catch (IllegalArgumentException error) {
-            throw new IllegalArgumentException("Invalid card id", error);
-        }
-    }
-
     /** categoryId → FolderCategory rawValue */
-    private static String mapCategoryId(Long categoryId) {
+    public static String mapCategoryId(Long categoryId) {
         if (categoryId == null) return "Etc.";
         return switch ((int) (categoryId % 6)) {
             case 0 -> "Info";
@@ -0,0 +1,45 @@
+package com.kbw.caplog.chat;
+
+import com.kbw.caplog.chat.dto.ChatMessageDto;
+import com.kbw.caplog.chat.dto.ShareCardRequest;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/share/cards")
+@RequiredArgsConstructor
+public class CardShareController {
+
+    private final CardShareService cardShareService;
+    private final UserRepository userRepository;
+
+    /**
+     * 카드를 여러 친구에게 공유 (친구마다 1:1 방에 메시지 하나). 보낸 메시지를 받는 사람 순서대로 반환
+     * - 받는 사람이 없거나 친구가 아니거나 내 카드가 아니면 400 (아무것도 보내지 않음)
+     */
+    @PostMapping("/{cardId}")
+    public ResponseEntity<List<ChatMessageDto>> shareCard(
+            Authentication auth,
+            @PathVariable String cardId,
+            @RequestBody ShareCardRequest request
+    ) {
+        Long userNo = resolveUserNo(auth);
+        if (userNo == null) return ResponseEntity.status(401).build();
+        try {
+            return ResponseEntity.ok(cardShareService.shareCard(userNo, cardId, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private Long resolveUserNo(Authentication auth) {
+        if (auth == null || auth.getName() == null || auth.getName().isBlank()) return null;
+        return userRepository.findByEmail(auth.getName()).map(User::getUserNo).orElse(null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.kbw.caplog.chat;
+
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.service.CardService;
+import com.kbw.caplog.chat.dto.ChatMessageDto;
+import com.kbw.caplog.chat.dto.ShareCardRequest;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.user.FriendDirectory;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserNameRow;
+import com.kbw.caplog.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 카드 한 장을 여러 친구에게 한 번에 공유
+ * - 친구마다 1:1 방에 카드 메시지를 하나씩 보낸다. 방이 없으면 만든다
+ * - 받는 사람·기존 1:1 방은 집합 쿼리 한 번씩, 카드 스냅샷은 한 번만 저장, 메시지는 JDBC 배치 한 번
+ * - 받는 사람 중 하나라도 없거나 친구가 아니면 아무것도 보내지 않는다
+ */
+@Service
+@RequiredArgsConstructor
+public class CardShareService {
+
+    static final int MAX_RECIPIENTS = 50;
+
+    private final UserRepository userRepository;
+    private final FriendDirectory friendDirectory;
+    private final CardService cardService;
+    private final CardSnapshotStore cardSnapshots;
+    private final ChatRoomRepository chatRoomRepository;
+    private final ChatMessageBulkInsertRepository messageBulkInsertRepository;
+    private final CollectionVersionRepository collectionVersions;
+
+    /** 보낸 메시지들 (받는 사람 순서대로) */
+    @Transactional
+    public List<ChatMessageDto> shareCard(Long currentUserNo, String cardId, ShareCardRequest request) {
+        List<String> recipientIds = normalizeRecipients(request.getRecipientUserIds());
+        User currentUser = userRepository.findById(currentUserNo)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        Map<String, UserNameRow> found = userRepository.findNameRowsByUserIds(recipientIds).stream()
+                .collect(Collectors.toMap(UserNameRow::getUserId, row -> row));
+        List<Long> recipientUserNos = new ArrayList<>(recipientIds.size());
+        for (String recipientId : recipientIds) {
+            UserNameRow recipient = found.get(recipientId);
+            if (recipient == null) throw new IllegalArgumentException("Recipient not found");
+            if (recipient.getUserNo().equals(currentUserNo)) {
+                throw new IllegalArgumentException("Cannot share to yourself");
+            }
+            if (!friendDirectory.isFriend(currentUserNo, recipient.getUserNo())) {
+                throw new IllegalArgumentException("Recipient is not a friend");
+            }
+            recipientUserNos.add(recipient.getUserNo());
+        }
+
+        String trimmedCardId = cardId != null ? cardId.trim() : "";
+        if (trimmedCardId.isEmpty()) throw new IllegalArgumentException("Card required");
+        CardDto card = cardService.findOwnedCardByExternalId(currentUserNo, trimmedCardId);
+        String cardSnapshotHash = cardSnapshots.save(card);
+
+        Map<Long, Long> roomIdByRecipient = directRooms(currentUserNo, recipientUserNos);
+        String text = request.getText() != null && !request.getText().isBlank() ? request.getText().trim() : null;
+        // 한 요청에서 보낸 메시지는 모두 같은 시각
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<ChatMessage> messages = recipientUserNos.stream()
+                .map(recipientUserNo -> ChatMessage.builder()
+                        .chatRoom(ChatRoom.builder().id(roomIdByRecipient.get(recipientUserNo)).build())
+                        .senderUserNo(currentUserNo)
+                        .text(text)
+                        .cardId(trimmedCardId)
+                        .cardSnapshotHash(cardSnapshotHash)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        List<Long> messageIds = messageBulkInsertRepository.insertAll(messages);
+
+        Collection<Long> roomIds = roomIdByRecipient.values();
+        chatRoomRepository.updateLastMessages(roomIds, now);
+        chatRoomRepository.copyLastMessageAtToParticipants(roomIds);
+        Set<Long> affected = new HashSet<>(recipientUserNos);
+        affected.add(currentUserNo);
+        collectionVersions.bump(affected, CollectionVersionRepository.CHATS);
+
+        String senderId = currentUser.getUserId();
+        String senderName = currentUser.getName() != null ? currentUser.getName() : senderId;
+        List<ChatMessageDto> result = new ArrayList<>(recipientUserNos.size());
+        for (int i = 0; i < recipientUserNos.size(); i++) {
+            Long roomId = roomIdByRecipient.get(recipientUserNos.get(i));
+            result.add(ChatMessageDto.builder()
+                    .id(String.valueOf(messageIds.get(i)))
+                    .chatId(String.valueOf(roomId))
+                    .senderId(senderId)
+                    .senderName(senderName)
+                    .text(text != null ? text : "")
+                    .card(card)
+                    .createdAt(now)
+                    .build());
+        }
+        return result;
+    }
+
+    private static List<String> normalizeRecipients(List<String> recipientUserIds) {
+        if (recipientUserIds == null) throw new IllegalArgumentException("Recipients required");
+        List<String> recipientIds = recipientUserIds.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+        if (recipientIds.isEmpty()) throw new IllegalArgumentException("Recipients required");
+        if (recipientIds.size() > MAX_RECIPIENTS) throw new IllegalArgumentException("Too many recipients");
+        return recipientIds;
+    }
+
+    /** 받는 사람별 1:1 방 id. 기존 방은 한 번에 찾고 없는 것만 만든다 */
+    private Map<Long, Long> directRooms(Long currentUserNo, List<Long> recipientUserNos) {
+        Map<Long, Long> roomIdByRecipient = new HashMap<>();
+        for (DirectRoomRow row : chatRoomRepository.findDirectRooms(currentUserNo, recipientUserNos)) {
+            roomIdByRecipient.putIfAbsent(row.getOtherUserNo(), row.getRoomId());
+        }
+
+        List<Long> missing = recipientUserNos.stream()
+                .filter(recipientUserNo -> !roomIdByRecipient.containsKey(recipientUserNo))
+                .toList();
+        if (missing.isEmpty()) return roomIdByRecipient;
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<ChatRoom> created = new ArrayList<>(missing.size());
+        for (Long recipientUserNo : missing) {
+            ChatRoom room = ChatRoom.builder()
+                    .createdAt(now)
+                    .lastMessageAt(now)
+                    .build();
+            for (Long userNo : List.of(currentUserNo, recipientUserNo)) {
+                room.getParticipants().add(ChatRoomParticipant.builder()
+                        .chatRoom(room)
+                        .userNo(userNo)
+                        .lastMessageAt(now)
+                        .build());
+            }
+            created.add(room);
+        }
+        List<ChatRoom> saved = chatRoomRepository.saveAll(created);
+        for (int i = 0; i < missing.size(); i++) {
+            roomIdByRecipient.put(missing.get(i), saved.get(i).getId());
+        }
+        return roomIdByRecipient;
+    }
+}
@@ -0,0 +1,32 @@
+package com.kbw.caplog.chat;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * 채팅으로 공유한 카드 스냅샷 (내용 주소 방식)
+ * - hash: 정렬된 카드 JSON의 SHA-256 (hex 64자). 같은 카드를 여러 방에 보내도 한 행
+ * - payload: 그 JSON을 deflate로 압축한 바이트
+ * - 내용이 바뀌면 hash도 바뀌므로 행은 고치지 않는다. 쓰기는 CardSnapshotStore로만 한다
+ */
+@Entity
+@Table(name = "card_snapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardSnapshot {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,66 @@
+package com.kbw.caplog.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.card.dto.CardDto;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 예전 카드 메시지의 본문 JSON(chat_messages.card_snapshot)을 card_snapshot으로 옮기기
+ * - 기동할 때 500건씩 한 트랜잭션으로 옮기고 원래 칸은 비운다. 남은 게 없으면 쿼리 한 번으로 끝난다
+ * - 읽을 수 없는 JSON은 화면에서도 카드 없이 보이던 것이라 그냥 비운다
+ * - 다 옮긴 뒤 card_snapshot 컬럼 삭제는 ddl-auto가 하지 않으므로 손으로 한다
+ */
+@Component
+@RequiredArgsConstructor
+public class CardSnapshotBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CardSnapshotBackfill.class);
+
+    static final int BATCH = 500;
+
+    private final ChatMessageRepository messageRepository;
+    private final CardSnapshotStore cardSnapshots;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int moved = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> moveBatch());
+            moved += batch;
+        } while (batch == BATCH);
+        if (moved > 0) {
+            log.info("card snapshots moved out of chat messages: {}", moved);
+        }
+    }
+
+    private int moveBatch() {
+        List<ChatMessage> legacy = messageRepository.findTop500ByCardSnapshotIsNotNullOrderByIdAsc();
+        for (ChatMessage message : legacy) {
+            CardDto card = parse(message.getCardSnapshot());
+            message.setCardSnapshotHash(card != null ? cardSnapshots.save(card) : null);
+            message.setCardSnapshot(null);
+        }
+        return legacy.size();
+    }
+
+    private CardDto parse(String snapshot) {
+        if (snapshot.isBlank()) return null;
+        try {
+            return objectMapper.readValue(snapshot, CardDto.class);
+        } catch (JsonProcessingException error) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.kbw.caplog.chat;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface CardSnapshotRepository extends JpaRepository<CardSnapshot, String> {
+
+    /**
+     * 같은 hash가 있으면 그대로 둔다 (내용이 같으므로). 먼저 읽지 않고 한 문장으로 끝낸다.
+     * INSERT IGNORE는 다른 오류까지 경고로 삼키므로 쓰지 않습니다.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_snapshot (hash, payload, created_at)
+            VALUES (:hash, :payload, :createdAt)
+            ON DUPLICATE KEY UPDATE hash = hash
+            """, nativeQuery = true)
+    void insertIgnoringExisting(String hash, byte[] payload, Instant createdAt);
+
+    /**
+     * hashes 중 어느 메시지도 가리키지 않는 것만 지우고 지운 수를 반환합니다.
+     * 같은 hash를 동시에 저장하는 쪽은 insertIgnoringExisting으로 같은 행을 잠그므로,
+     * 저장이 먼저 커밋되면 그 메시지 때문에 남고 나중이면 행을 새로 넣습니다.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM card_snapshot
+            WHERE hash IN (:hashes)
+              AND NOT EXISTS (SELECT 1 FROM chat_messages m WHERE m.card_snapshot_hash = card_snapshot.hash)
+            """, nativeQuery = true)
+    int deleteUnreferenced(Collection<String> hashes);
+}
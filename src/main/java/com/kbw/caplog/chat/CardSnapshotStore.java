@@ -0,0 +1,149 @@
+package com.kbw.caplog.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.support.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 공유 카드 스냅샷 저장소
+ * - 저장: 카드를 키 순서가 고정된 JSON으로 만들고 그 SHA-256을 키로 압축본을 업서트. 메시지에는 hash만 남긴다
+ * - 같은 카드를 여러 방에 보내면 같은 hash라 행이 늘지 않는다
+ * - 읽기: 스냅샷은 바뀌지 않으므로 풀어 놓은 CardDto를 hash별로 캐시한다 (cache.gets{cache=cardSnapshots}).
+ *   저장할 때도 부른 쪽의 객체가 아니라 저장한 JSON을 다시 읽은 사본을 캐시한다 (부른 쪽이 나중에 고쳐도 스냅샷은 그대로)
+ * - 정리: 메시지를 지우면 그 메시지들이 가리키던 hash 중 남은 메시지가 없는 것을 같은 트랜잭션에서 지운다
+ */
+@Component
+public class CardSnapshotStore {
+
+    static final int MAX_CACHED = 10_000;
+
+    private final CardSnapshotRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CardDto> cards;
+
+    public CardSnapshotStore(CardSnapshotRepository repository, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.repository = repository;
+        // Map 필드(fields)의 순서가 달라도 같은 hash가 나오도록
+        this.objectMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.cards = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cards, "cardSnapshots");
+    }
+
+    /** 스냅샷을 저장하고 hash를 반환 (이미 있으면 쓰지 않은 것과 같다) */
+    public String save(CardDto card) {
+        byte[] json = toJson(card);
+        String hash = sha256(json);
+        repository.insertIgnoringExisting(hash, deflate(json), Instant.now());
+        cards.put(hash, fromJson(json));
+        return hash;
+    }
+
+    /**
+     * 메시지를 지운 뒤 부른다. hashes 중 더는 어느 메시지도 가리키지 않는 스냅샷을 지우고,
+     * 커밋된 뒤 캐시에서 뺀다 (커밋 전에 빼면 다른 요청이 아직 남은 행을 다시 캐시할 수 있다).
+     * 아직 쓰이는 hash도 캐시에서 빠지지만 다음 읽기 때 다시 채워진다
+     */
+    public void deleteUnreferenced(Collection<String> hashes) {
+        if (hashes.isEmpty()) return;
+        List<String> candidates = List.copyOf(hashes);
+        repository.deleteUnreferenced(candidates);
+        AfterCommit.run(() -> cards.invalidateAll(candidates));
+    }
+
+    /** hash별 카드. 없는 hash는 결과에서 빠진다 */
+    public Map<String, CardDto> findAll(Collection<String> hashes) {
+        if (hashes.isEmpty()) return Map.of();
+        return cards.getAll(hashes, missing -> {
+            Map<String, CardDto> loaded = new HashMap<>();
+            for (CardSnapshot snapshot : repository.findAllById(List.copyOf(missing))) {
+                loaded.put(snapshot.getHash(), fromJson(inflate(snapshot.getPayload())));
+            }
+            return loaded;
+        });
+    }
+
+    private byte[] toJson(CardDto card) {
+        try {
+            return objectMapper.writeValueAsBytes(card);
+        } catch (JsonProcessingException error) {
+            throw new IllegalStateException("Failed to serialize card", error);
+        }
+    }
+
+    private CardDto fromJson(byte[] json) {
+        try {
+            return objectMapper.readValue(json, CardDto.class);
+        } catch (IOException error) {
+            throw new IllegalStateException("Corrupt card snapshot", error);
+        }
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException error) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && inflater.needsInput()) {
+                    throw new IllegalStateException("Truncated card snapshot");
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException error) {
+            throw new IllegalStateException("Corrupt card snapshot", error);
+        } finally {
+            inflater.end();
+        }
+    }
+}
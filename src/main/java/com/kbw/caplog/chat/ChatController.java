@@ -1,13 +1,17 @@
 package com.kbw.caplog.chat;
 
 import com.kbw.caplog.chat.dto.*;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.support.ConditionalGet;
 import com.kbw.caplog.user.User;
 import com.kbw.caplog.user.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -17,12 +21,28 @@ public class ChatController {
 
     private final ChatService chatService;
     private final UserRepository userRepository;
+    private final ConditionalGet conditionalGet;
 
+    /**
+     * 내 채팅방 목록 (마지막 활동 최신순). If-None-Match가 현재 ETag와 같으면 방 요약을 만들지 않고 304
+     * - 다음 페이지: 직전 응답 마지막 방의 updatedAt(ISO-8601)과 id를 before·beforeId로. 한쪽만 보내면 400
+     */
     @GetMapping
-    public ResponseEntity<List<ChatSummaryDto>> listChats(Authentication auth) {
+    public ResponseEntity<List<ChatSummaryDto>> listChats(
+            Authentication auth,
+            HttpServletRequest request,
+            @RequestParam(required = false) Instant before,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "0") int limit
+    ) {
         Long userNo = resolveUserNo(auth);
         if (userNo == null) return ResponseEntity.status(401).build();
-        return ResponseEntity.ok(chatService.listRooms(userNo));
+        try {
+            return conditionalGet.respond(request, userNo, CollectionVersionRepository.CHATS,
+                    () -> chatService.listRooms(userNo, before, beforeId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping
@@ -6,7 +6,10 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    // 메시지를 지운 뒤 아무도 가리키지 않는 card_snapshot을 찾을 때 (NOT EXISTS)
+    @Index(name = "idx_chat_messages_card_snapshot", columnList = "card_snapshot_hash")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -31,6 +34,14 @@ public class ChatMessage {
     @Column(name = "card_id", length = 36)
     private String cardId;
 
+    /** 공유한 카드의 스냅샷 (card_snapshot.hash). 같은 카드를 여러 방에 보내도 스냅샷은 한 벌 */
+    @Column(name = "card_snapshot_hash", length = 64)
+    private String cardSnapshotHash;
+
+    /**
+     * 예전 방식의 카드 스냅샷(전체 JSON). 새 메시지는 비워 두고, 남은 것은 기동할 때
+     * CardSnapshotBackfill이 card_snapshot으로 옮긴 뒤 비운다
+     */
     @Column(name = "card_snapshot", columnDefinition = "TEXT")
     private String cardSnapshot;
 
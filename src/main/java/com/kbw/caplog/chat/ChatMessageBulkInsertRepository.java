@@ -0,0 +1,75 @@
+package com.kbw.caplog.chat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 채팅 메시지 일괄 INSERT (여러 방에 카드 공유)
+ *
+ * <p>chat_messages.id가 IDENTITY라 Hibernate로는 메시지마다 INSERT가 한 번씩 나갑니다.
+ * CardBulkInsertRepository처럼 JDBC 배치로 보내고, rewriteBatchedStatements=true가
+ * 여러 행짜리 INSERT 하나로 다시 써 줍니다. 생성된 id는 같은 배치의 generated keys로 받습니다.
+ *
+ * <p>호출한 쪽 트랜잭션에 참여합니다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChatMessageBulkInsertRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO chat_messages (
+                chat_room_id, sender_user_no, text, card_id, card_snapshot_hash, created_at
+            ) VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    /** Hibernate가 Instant를 MySQL에 쓸 때와 같이 UTC로 저장 */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 메시지들을 한 배치로 넣고 생성된 id를 메시지 순서대로 반환합니다. */
+    public List<Long> insertAll(List<ChatMessage> messages) {
+        if (messages.isEmpty()) return List.of();
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (ChatMessage message : messages) {
+                    bind(ps, message);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                // 여러 행짜리 INSERT로 다시 써도 키는 넣은 순서대로 돌아온다
+                List<Long> ids = new ArrayList<>(messages.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != messages.size()) {
+                    throw new IllegalStateException("Expected " + messages.size() + " generated ids, got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, ChatMessage message) throws SQLException {
+        ps.setLong(1, message.getChatRoom().getId());
+        ps.setLong(2, message.getSenderUserNo());
+        ps.setString(3, message.getText());
+        ps.setString(4, message.getCardId());
+        ps.setString(5, message.getCardSnapshotHash());
+        ps.setTimestamp(6, Timestamp.from(message.getCreatedAt()), Calendar.getInstance(UTC));
+    }
+}
@@ -1,8 +1,11 @@
 package com.kbw.caplog.chat;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +25,26 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
 
     void deleteByChatRoomId(Long chatRoomId);
 
+    /** 방의 메시지가 가리키는 카드 스냅샷 hash. 메시지를 지우기 전에 읽어 두고 지운 뒤 남은 스냅샷을 정리한다 */
+    @Query("""
+            SELECT DISTINCT m.cardSnapshotHash FROM ChatMessage m
+            WHERE m.chatRoom.id = :chatRoomId AND m.cardSnapshotHash IS NOT NULL
+            """)
+    List<String> findCardSnapshotHashes(@Param("chatRoomId") Long chatRoomId);
+
+    /** 방에서 한 사람이 보낸 메시지가 가리키는 카드 스냅샷 hash (회원 탈퇴) */
+    @Query("""
+            SELECT DISTINCT m.cardSnapshotHash FROM ChatMessage m
+            WHERE m.chatRoom.id = :chatRoomId AND m.senderUserNo = :senderUserNo AND m.cardSnapshotHash IS NOT NULL
+            """)
+    List<String> findCardSnapshotHashesBySender(
+            @Param("chatRoomId") Long chatRoomId,
+            @Param("senderUserNo") Long senderUserNo
+    );
+
+    /** 아직 card_snapshot으로 옮기지 않은 예전 카드 메시지 (CardSnapshotBackfill) */
+    List<ChatMessage> findTop500ByCardSnapshotIsNotNullOrderByIdAsc();
+
     /** 회원 탈퇴용. 방은 남기고 탈퇴한 사람이 보낸 메시지만 지웁니다. */
     void deleteByChatRoomIdAndSenderUserNo(Long chatRoomId, Long senderUserNo);
 }
@@ -0,0 +1,158 @@
+package com.kbw.caplog.chat;
+
+import com.kbw.caplog.support.CollectionVersionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 읽음 표시 모아 쓰기 (write-behind)
+ * - 클라이언트는 스크롤·포커스마다 읽음을 보낸다. 요청마다 방을 읽고 저장하는 대신 (방, 사용자)별 가장 늦은
+ *   시각만 메모리에 남기고 FLUSH_INTERVAL마다 한 번에 UPDATE한다
+ * - UPDATE는 GREATEST로 더 늦은 시각만 남기므로 순서가 뒤바뀌거나 다른 인스턴스와 겹쳐도 되돌아가지 않는다
+ * - 안 읽은 수가 반영되는 지연은 최대 FLUSH_INTERVAL(+ 쓰는 시간). 쌓인 수가 MAX_PENDING을 넘으면 바로 쓴다.
+ *   이때 앞당긴 쓰기는 한 번에 하나만 걸어 두므로, 넘친 뒤 들어오는 읽음마다 작업이 쌓이지 않는다
+ * - 읽은 사람의 채팅 목록 버전은 UPDATE가 끝난 뒤 올린다 (새 ETag에 옛 안 읽은 수가 붙지 않도록)
+ * - 쓰기가 실패하면 다음 주기에 다시 시도하고, 종료할 때 남은 것을 모두 쓴다
+ */
+@Component
+public class ChatReadMarkers {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatReadMarkers.class);
+
+    static final Duration FLUSH_INTERVAL = Duration.ofMillis(300);
+    static final int MAX_PENDING = 10_000;
+
+    /** Hibernate가 Instant를 MySQL에 쓸 때와 같이 UTC로 저장 */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    static final String UPDATE_SQL = """
+            UPDATE chat_room_participants
+            SET last_read_at = GREATEST(COALESCE(last_read_at, ?), ?)
+            WHERE chat_room_id = ? AND user_no = ?
+            """;
+
+    record Marker(long roomId, long userNo) {
+    }
+
+    private static final Comparator<Marker> LOCK_ORDER =
+            Comparator.comparingLong(Marker::roomId).thenComparingLong(Marker::userNo);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CollectionVersionRepository collectionVersions;
+    private final Map<Marker, Instant> pending = new ConcurrentHashMap<>();
+    /** MAX_PENDING을 넘어 앞당긴 쓰기가 이미 걸려 있는지 */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-read-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ChatReadMarkers(JdbcTemplate jdbcTemplate, CollectionVersionRepository collectionVersions) {
+        this(jdbcTemplate, collectionVersions, FLUSH_INTERVAL);
+    }
+
+    /** 주기를 바꿔 만든다 (테스트에서 직접 flush할 때 길게) */
+    ChatReadMarkers(JdbcTemplate jdbcTemplate, CollectionVersionRepository collectionVersions, Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.collectionVersions = collectionVersions;
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** 참여 여부를 이미 확인해 쓰기를 기다리는 중인지 (같은 방을 연달아 읽을 때 확인을 건너뛴다) */
+    public boolean isPending(Long roomId, Long userNo) {
+        return pending.containsKey(new Marker(roomId, userNo));
+    }
+
+    /** readAt까지 읽음. 같은 (방, 사용자)에 쌓인 것보다 이르면 무시 */
+    public void markRead(Long roomId, Long userNo, Instant readAt) {
+        pending.merge(new Marker(roomId, userNo), readAt, (queued, next) -> next.isAfter(queued) ? next : queued);
+        if (pending.size() >= MAX_PENDING && !flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushEarly);
+            } catch (RejectedExecutionException closing) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushEarly() {
+        try {
+            flushQuietly();
+        } finally {
+            flushScheduled.set(false);
+        }
+    }
+
+    /** 쌓인 읽음 표시를 (방, 사용자) 순으로 한 배치로 쓰고 쓴 수를 반환 */
+    int flush() {
+        if (pending.isEmpty()) return 0;
+        List<Marker> markers = new ArrayList<>(pending.keySet());
+        markers.sort(LOCK_ORDER);
+        List<Map.Entry<Marker, Instant>> batch = new ArrayList<>(markers.size());
+        for (Marker marker : markers) {
+            Instant readAt = pending.remove(marker);
+            if (readAt != null) batch.add(Map.entry(marker, readAt));
+        }
+        if (batch.isEmpty()) return 0;
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                Timestamp readAt = Timestamp.from(entry.getValue());
+                ps.setTimestamp(1, readAt, Calendar.getInstance(UTC));
+                ps.setTimestamp(2, readAt, Calendar.getInstance(UTC));
+                ps.setLong(3, entry.getKey().roomId());
+                ps.setLong(4, entry.getKey().userNo());
+            });
+            Set<Long> readers = new TreeSet<>();
+            batch.forEach(entry -> readers.add(entry.getKey().userNo()));
+            collectionVersions.bump(readers, CollectionVersionRepository.CHATS);
+        } catch (RuntimeException error) {
+            // 그사이 들어온 것과 합쳐 다음 주기에 다시 쓴다 (GREATEST라 UPDATE가 이미 됐어도 다시 써도 된다)
+            for (Map.Entry<Marker, Instant> entry : batch) {
+                pending.merge(entry.getKey(), entry.getValue(), (queued, failed) -> queued.isAfter(failed) ? queued : failed);
+            }
+            throw error;
+        }
+        return batch.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException error) {
+            log.warn("chat read markers flush failed, {} pending", pending.size(), error);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+}
@@ -23,6 +23,18 @@ public class ChatRoom {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    /**
+     * 마지막 메시지 시각 (메시지가 없으면 방을 만든 시각). 방 목록 정렬·커서 기준이며
+     * 참여자 행(ChatRoomParticipant.lastMessageAt)에 복사해 사용자별 인덱스로 정렬한다.
+     * 응답 형식마다 시각 정밀도가 달라도 커서가 어긋나지 않게 밀리초로 자른 값을 쓴다
+     */
+    @Column(name = "last_message_at")
+    private Instant lastMessageAt;
+
+    /** 마지막 메시지 id (메시지가 없으면 null). 목록에서 마지막 메시지를 id로 한 번에 읽는다 */
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
     @OneToMany(mappedBy = "chatRoom", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<ChatRoomParticipant> participants = new ArrayList<>();
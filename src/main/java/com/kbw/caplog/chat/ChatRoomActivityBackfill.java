@@ -0,0 +1,36 @@
+package com.kbw.caplog.chat;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * chat_rooms.last_message_at과 그 사본(chat_room_participants.last_message_at) 채우기
+ * - ddl-auto로 컬럼만 생기고 기존 행은 NULL이라 목록 정렬·커서에서 어긋난다. 기동할 때 NULL인 행만 채운다
+ * - 이미 채워졌으면 인덱스로 NULL 행이 없는 것만 확인하고 끝난다
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatRoomActivityBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatRoomActivityBackfill.class);
+
+    private final ChatRoomRepository chatRoomRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int updated = chatRoomRepository.backfillLastMessage();
+        if (updated > 0) {
+            log.info("chat rooms backfilled with last message: {}", updated);
+        }
+        int participants = chatRoomRepository.backfillParticipantLastMessage();
+        if (participants > 0) {
+            log.info("chat room participants backfilled with last message time: {}", participants);
+        }
+    }
+}
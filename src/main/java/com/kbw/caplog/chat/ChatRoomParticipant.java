@@ -7,6 +7,9 @@ import lombok.*;
 @Entity
 @Table(name = "chat_room_participants", uniqueConstraints = {
     @UniqueConstraint(columnNames = { "chat_room_id", "user_no" })
+}, indexes = {
+    // 내 방 목록 정렬·커서 (마지막 활동 최신순). 내 행만 인덱스 순서대로 읽고 LIMIT에서 멈춘다
+    @Index(name = "idx_chat_room_participants_user_activity", columnList = "user_no, last_message_at, chat_room_id")
 })
 @Getter
 @Setter
@@ -32,4 +35,8 @@ public class ChatRoomParticipant {
 
     @Column(name = "last_read_at")
     private java.time.Instant lastReadAt;
+
+    /** chat_rooms.last_message_at 사본. 방 목록을 사용자별 인덱스로 정렬·자르려고 참여자 행에 둔다 */
+    @Column(name = "last_message_at")
+    private java.time.Instant lastMessageAt;
 }
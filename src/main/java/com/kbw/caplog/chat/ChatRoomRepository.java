@@ -1,9 +1,13 @@
 package com.kbw.caplog.chat;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
@@ -24,4 +28,99 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
             ORDER BY r.id DESC
             """)
     List<ChatRoom> findRoomsByParticipantUserNo(Long userNo);
+
+    /**
+     * 방 목록 첫 페이지의 방 id (마지막 활동 최신순, 같으면 id 역순).
+     * 참여자 fetch와 LIMIT을 한 쿼리에 넣으면 Hibernate가 메모리에서 자르므로 id만 먼저 고른다.
+     * 내 참여자 행만 (user_no, last_message_at, chat_room_id) 인덱스 순서로 읽는다
+     */
+    @Query("""
+            SELECT p.chatRoom.id FROM ChatRoomParticipant p
+            WHERE p.userNo = :userNo
+            ORDER BY p.lastMessageAt DESC, p.chatRoom.id DESC
+            """)
+    List<Long> findRoomIdPage(Long userNo, Limit limit);
+
+    /** 다음 페이지: 직전 페이지 마지막 방(beforeAt, beforeId)보다 뒤 */
+    @Query("""
+            SELECT p.chatRoom.id FROM ChatRoomParticipant p
+            WHERE p.userNo = :userNo
+              AND (p.lastMessageAt < :beforeAt OR (p.lastMessageAt = :beforeAt AND p.chatRoom.id < :beforeId))
+            ORDER BY p.lastMessageAt DESC, p.chatRoom.id DESC
+            """)
+    List<Long> findRoomIdPageBefore(Long userNo, Instant beforeAt, Long beforeId, Limit limit);
+
+    /** 고른 페이지의 방만 참여자와 함께 (순서는 호출한 쪽에서 맞춘다) */
+    @EntityGraph(attributePaths = "participants")
+    @Query("SELECT r FROM ChatRoom r WHERE r.id IN :ids")
+    List<ChatRoom> findWithParticipantsByIdIn(Collection<Long> ids);
+
+    /**
+     * 나와 상대 한 명만 있는 1:1 방을 상대 여러 명에 대해 한 번에 (카드 공유).
+     * 같은 상대와 1:1 방이 여럿이면 id가 작은 것부터 온다
+     */
+    @Query("""
+            SELECT p.chatRoom.id AS roomId, p.userNo AS otherUserNo
+            FROM ChatRoomParticipant p
+            WHERE p.userNo IN :otherUserNos
+              AND p.chatRoom.id IN (SELECT m.chatRoom.id FROM ChatRoomParticipant m WHERE m.userNo = :userNo)
+              AND (SELECT COUNT(c) FROM ChatRoomParticipant c WHERE c.chatRoom.id = p.chatRoom.id) = 2
+            ORDER BY p.chatRoom.id
+            """)
+    List<DirectRoomRow> findDirectRooms(Long userNo, Collection<Long> otherUserNos);
+
+    /** 새 메시지를 마지막 활동으로. 동시에 보낸 메시지끼리는 id가 큰 쪽이 남는다 */
+    @Modifying
+    @Query("""
+            UPDATE ChatRoom r SET r.lastMessageAt = :at, r.lastMessageId = :messageId
+            WHERE r.id = :roomId AND (r.lastMessageId IS NULL OR r.lastMessageId < :messageId)
+            """)
+    int updateLastMessage(Long roomId, Long messageId, Instant at);
+
+    /** 여러 방에 한꺼번에 넣은 메시지를 마지막 활동으로 (카드 공유). 마지막 메시지는 방마다 가장 큰 id */
+    @Modifying
+    @Query(value = """
+            UPDATE chat_rooms
+            SET last_message_id = (SELECT MAX(m.id) FROM chat_messages m WHERE m.chat_room_id = chat_rooms.id),
+                last_message_at = GREATEST(COALESCE(last_message_at, :at), :at)
+            WHERE id IN (:roomIds)
+            """, nativeQuery = true)
+    int updateLastMessages(Collection<Long> roomIds, Instant at);
+
+    /** 방의 last_message_at을 참여자 행에 복사한다 (방 목록 정렬용 사본). 방 쪽을 바꾼 뒤 같은 트랜잭션에서 */
+    @Modifying
+    @Query(value = """
+            UPDATE chat_room_participants
+            SET last_message_at = (SELECT r.last_message_at FROM chat_rooms r WHERE r.id = chat_room_participants.chat_room_id)
+            WHERE chat_room_id IN (:roomIds)
+            """, nativeQuery = true)
+    int copyLastMessageAtToParticipants(Collection<Long> roomIds);
+
+    /** last_message_at 컬럼이 생기기 전에 만든 방을 채운다 (기동할 때 한 번) */
+    @Modifying
+    @Query(value = """
+            UPDATE chat_rooms
+            SET last_message_id = (SELECT MAX(m.id) FROM chat_messages m WHERE m.chat_room_id = chat_rooms.id),
+                last_message_at = COALESCE(
+                    (SELECT MAX(m.created_at) FROM chat_messages m WHERE m.chat_room_id = chat_rooms.id),
+                    created_at)
+            WHERE last_message_at IS NULL
+            """, nativeQuery = true)
+    int backfillLastMessage();
+
+    /** 참여자 행의 last_message_at 사본이 생기기 전 행을 방 값으로 채운다 (기동할 때 한 번, 방을 채운 뒤) */
+    @Modifying
+    @Query(value = """
+            UPDATE chat_room_participants
+            SET last_message_at = (SELECT r.last_message_at FROM chat_rooms r WHERE r.id = chat_room_participants.chat_room_id)
+            WHERE last_message_at IS NULL
+            """, nativeQuery = true)
+    int backfillParticipantLastMessage();
+
+    /** 읽음 표시 전에 참여 여부만 확인 (방과 참여자 목록을 읽지 않음) */
+    @Query("""
+            SELECT COUNT(p) > 0 FROM ChatRoomParticipant p
+            WHERE p.chatRoom.id = :roomId AND p.userNo = :userNo
+            """)
+    boolean existsParticipant(Long roomId, Long userNo);
 }
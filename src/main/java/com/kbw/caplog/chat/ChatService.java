@@ -5,13 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kbw.caplog.card.dto.CardDto;
 import com.kbw.caplog.card.service.CardService;
 import com.kbw.caplog.chat.dto.*;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.user.FriendDirectory;
 import com.kbw.caplog.user.User;
 import com.kbw.caplog.user.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,12 +23,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChatService {
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final ChatRoomRepository chatRoomRepository;
     private final ChatMessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final FriendDirectory friendDirectory;
     private final CardService cardService;
+    private final CardSnapshotStore cardSnapshots;
+    private final CollectionVersionRepository collectionVersions;
+    private final ChatReadMarkers readMarkers;
     private final ObjectMapper objectMapper;
 
+    /**
+     * 채팅방 만들기. 참여자는 모두 내 친구여야 한다 (친구 여부는 FriendDirectory 캐시로 확인)
+     */
     @Transactional
     public ChatSummaryDto createRoom(Long currentUserNo, CreateChatRequest request) {
         User currentUser = userRepository.findById(currentUserNo)
@@ -36,6 +49,10 @@ public class ChatService {
                 if (uid == null || uid.isBlank()) continue;
                 User participant = userRepository.findByUserId(uid.trim())
                         .orElseThrow(() -> new IllegalArgumentException("Participant not found"));
+                if (!participant.getUserNo().equals(currentUserNo)
+                        && !friendDirectory.isFriend(currentUserNo, participant.getUserNo())) {
+                    throw new IllegalArgumentException("Participant is not a friend");
+                }
                 participantUserNos.add(participant.getUserNo());
             }
         }
@@ -52,12 +69,14 @@ public class ChatService {
                             .equals(participantUserNos))
                     .findFirst();
             if (existingRoom.isPresent()) {
-                return toSummaryDto(existingRoom.get(), currentUserNo);
+                return toSummaryDtos(List.of(existingRoom.get()), currentUserNo).get(0);
             }
         }
 
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
         ChatRoom room = ChatRoom.builder()
-                .createdAt(Instant.now())
+                .createdAt(now)
+                .lastMessageAt(now)
                 .build();
         room = chatRoomRepository.save(room);
 
@@ -65,33 +84,52 @@ public class ChatService {
             ChatRoomParticipant p = ChatRoomParticipant.builder()
                     .chatRoom(room)
                     .userNo(userNo)
+                    .lastMessageAt(now)
                     .build();
             room.getParticipants().add(p);
         }
         chatRoomRepository.save(room);
+        collectionVersions.bump(participantUserNos, CollectionVersionRepository.CHATS);
 
-        return toSummaryDto(room, currentUserNo);
+        return toSummaryDtos(List.of(room), currentUserNo).get(0);
     }
 
-    public List<ChatSummaryDto> listRooms(Long currentUserNo) {
-        List<ChatRoom> rooms = chatRoomRepository.findRoomsByParticipantUserNo(currentUserNo);
-        List<ChatSummaryDto> result = rooms.stream()
-                .map(room -> toSummaryDto(room, currentUserNo))
-                .collect(Collectors.toCollection(ArrayList::new));
-        result.sort(Comparator.comparing(ChatSummaryDto::getUpdatedAt).reversed());
-        return result;
+    /**
+     * 내 채팅방 목록 한 페이지 (마지막 활동 최신순)
+     * - 정렬·자르기는 참여자 행의 last_message_at 사본으로 DB에서 하고, 고른 방만 요약을 만든다
+     * - 다음 페이지는 직전 페이지 마지막 방의 updatedAt·id를 before·beforeId로 (둘 다 보내거나 둘 다 생략)
+     * - limit은 최대 MAX_PAGE_SIZE. 0 이하이면 MAX_PAGE_SIZE
+     * - 커서와 limit을 둘 다 안 보내면 전체 목록 (페이지를 모르는 예전 클라이언트용)
+     */
+    @Transactional(readOnly = true)
+    public List<ChatSummaryDto> listRooms(Long currentUserNo, Instant before, Long beforeId, int limit) {
+        if ((before == null) != (beforeId == null)) {
+            throw new IllegalArgumentException("before and beforeId must be given together");
+        }
+        Limit page = limit > 0 ? Limit.of(Math.min(limit, MAX_PAGE_SIZE))
+                : before == null ? Limit.unlimited() : Limit.of(MAX_PAGE_SIZE);
+        List<Long> roomIds = before == null
+                ? chatRoomRepository.findRoomIdPage(currentUserNo, page)
+                : chatRoomRepository.findRoomIdPageBefore(currentUserNo, before, beforeId, page);
+        if (roomIds.isEmpty()) return List.of();
+
+        Map<Long, ChatRoom> rooms = chatRoomRepository.findWithParticipantsByIdIn(roomIds).stream()
+                .collect(Collectors.toMap(ChatRoom::getId, room -> room));
+        return toSummaryDtos(roomIds.stream().map(rooms::get).filter(Objects::nonNull).toList(), currentUserNo);
     }
 
     // findById는 참여자 목록을 LAZY로 두고, open-in-view도 꺼져 있어서
     // 트랜잭션 없이 getParticipants()를 만지면 LazyInitializationException으로 500이 났습니다.
-    // (listRooms는 @EntityGraph로 미리 가져와서 멀쩡했습니다.)
+    // (listRooms는 참여자를 @EntityGraph로 미리 가져와서 멀쩡했습니다.)
     @Transactional(readOnly = true)
     public List<ChatMessageDto> getMessages(Long roomId, Long currentUserNo) {
         ChatRoom room = chatRoomRepository.findById(roomId).orElseThrow(() -> new IllegalArgumentException("Room not found"));
         boolean isParticipant = room.getParticipants().stream().anyMatch(p -> p.getUserNo().equals(currentUserNo));
         if (!isParticipant) throw new IllegalArgumentException("Not a participant");
-        return messageRepository.findByChatRoomIdOrderByCreatedAtAsc(roomId).stream()
-                .map(m -> toMessageDto(m, roomId))
+        List<ChatMessage> messages = messageRepository.findByChatRoomIdOrderByCreatedAtAsc(roomId);
+        Map<String, CardDto> cards = sharedCards(messages);
+        return messages.stream()
+                .map(m -> toMessageDto(m, roomId, sharedCard(m, cards)))
                 .collect(Collectors.toList());
     }
 
@@ -108,10 +146,11 @@ public class ChatService {
             throw new IllegalArgumentException("Message content required");
         }
 
-        String cardSnapshot = null;
+        CardDto card = null;
+        String cardSnapshotHash = null;
         if (cardId != null) {
-            CardDto card = cardService.findOwnedCardByExternalId(currentUserNo, cardId);
-            cardSnapshot = serializeCard(card);
+            card = cardService.findOwnedCardByExternalId(currentUserNo, cardId);
+            cardSnapshotHash = cardSnapshots.save(card);
         }
 
         ChatMessage msg = ChatMessage.builder()
@@ -119,37 +158,45 @@ public class ChatService {
                 .senderUserNo(currentUserNo)
                 .text(text)
                 .cardId(cardId)
-                .cardSnapshot(cardSnapshot)
+                .cardSnapshotHash(cardSnapshotHash)
                 .createdAt(Instant.now())
                 .build();
         msg = messageRepository.save(msg);
-        return toMessageDto(msg, roomId);
+        chatRoomRepository.updateLastMessage(roomId, msg.getId(), msg.getCreatedAt().truncatedTo(ChronoUnit.MILLIS));
+        chatRoomRepository.copyLastMessageAtToParticipants(List.of(roomId));
+        collectionVersions.bump(participantUserNos(room), CollectionVersionRepository.CHATS);
+        return toMessageDto(msg, roomId, card);
     }
 
-    @Transactional
+    /**
+     * 읽음 표시. 방을 읽지 않고 참여 여부만 확인한 뒤 ChatReadMarkers에 맡긴다 (잠시 뒤 모아서 UPDATE).
+     * 안 읽은 수는 읽은 사람 목록에만 보이므로 그 사람의 채팅 목록 버전도 쓰기와 함께 올라간다
+     */
     public void markRead(Long roomId, Long currentUserNo) {
-        ChatRoom room = chatRoomRepository.findById(roomId).orElseThrow(() -> new IllegalArgumentException("Room not found"));
-        ChatRoomParticipant participant = room.getParticipants().stream()
-                .filter(p -> p.getUserNo().equals(currentUserNo))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Not a participant"));
-        participant.setLastReadAt(Instant.now());
-        chatRoomRepository.save(room);
+        if (!readMarkers.isPending(roomId, currentUserNo)
+                && !chatRoomRepository.existsParticipant(roomId, currentUserNo)) {
+            throw new IllegalArgumentException("Not a participant");
+        }
+        readMarkers.markRead(roomId, currentUserNo, Instant.now());
     }
 
     @Transactional
     public void leaveRoom(Long roomId, Long currentUserNo) {
         ChatRoom room = chatRoomRepository.findById(roomId)
                 .orElseThrow(() -> new IllegalArgumentException("Room not found"));
+        Set<Long> affected = participantUserNos(room);
         boolean removed = room.getParticipants()
                 .removeIf(participant -> participant.getUserNo().equals(currentUserNo));
         if (!removed) {
             throw new IllegalArgumentException("Not a participant");
         }
+        collectionVersions.bump(affected, CollectionVersionRepository.CHATS);
 
         if (room.getParticipants().isEmpty()) {
+            List<String> snapshotHashes = messageRepository.findCardSnapshotHashes(roomId);
             messageRepository.deleteByChatRoomId(roomId);
             chatRoomRepository.delete(room);
+            deleteOrphanedSnapshots(snapshotHashes);
             return;
         }
 
@@ -161,28 +208,52 @@ public class ChatService {
      *
      * <p>혼자 남은 방은 방과 메시지를 통째로 지우고, 다른 사람이 남아 있는 방은
      * 방을 유지합니다. 다만 탈퇴한 사람이 보낸 메시지는 그의 개인정보이므로
-     * 남은 사람 화면에서도 사라집니다.
+     * 남은 사람 화면에서도 사라집니다. 지운 메시지만 가리키던 카드 스냅샷도 함께 지웁니다.
      */
     @Transactional
     public void purgeUser(Long userNo) {
+        Set<String> snapshotHashes = new HashSet<>();
         for (ChatRoom room : chatRoomRepository.findRoomsByParticipantUserNo(userNo)) {
             room.getParticipants().removeIf(participant -> participant.getUserNo().equals(userNo));
+            collectionVersions.bump(participantUserNos(room), CollectionVersionRepository.CHATS);
 
             if (room.getParticipants().isEmpty()) {
+                snapshotHashes.addAll(messageRepository.findCardSnapshotHashes(room.getId()));
                 messageRepository.deleteByChatRoomId(room.getId());
                 chatRoomRepository.delete(room);
                 continue;
             }
 
+            snapshotHashes.addAll(messageRepository.findCardSnapshotHashesBySender(room.getId(), userNo));
             messageRepository.deleteByChatRoomIdAndSenderUserNo(room.getId(), userNo);
+            ChatMessage lastMessage = messageRepository.findTopByChatRoomIdOrderByCreatedAtDesc(room.getId()).orElse(null);
+            room.setLastMessageId(lastMessage != null ? lastMessage.getId() : null);
+            room.setLastMessageAt(lastMessage != null
+                    ? lastMessage.getCreatedAt().truncatedTo(ChronoUnit.MILLIS)
+                    : room.getCreatedAt());
+            room.getParticipants().forEach(participant -> participant.setLastMessageAt(room.getLastMessageAt()));
             chatRoomRepository.save(room);
         }
+        deleteOrphanedSnapshots(snapshotHashes);
     }
 
-    private String buildRoomTitle(ChatRoom room, Long currentUserNo) {
+    /** 지운 메시지가 가리키던 스냅샷 중 남은 메시지가 없는 것을 지운다. 지운 메시지를 먼저 DB에 반영해야 NOT EXISTS가 맞다 */
+    private void deleteOrphanedSnapshots(Collection<String> snapshotHashes) {
+        if (snapshotHashes.isEmpty()) return;
+        messageRepository.flush();
+        cardSnapshots.deleteUnreferenced(snapshotHashes);
+    }
+
+    private static Set<Long> participantUserNos(ChatRoom room) {
+        return room.getParticipants().stream()
+                .map(ChatRoomParticipant::getUserNo)
+                .collect(Collectors.toSet());
+    }
+
+    private static String buildRoomTitle(ChatRoom room, Long currentUserNo, Map<Long, User> users) {
         List<String> names = room.getParticipants().stream()
                 .filter(p -> !p.getUserNo().equals(currentUserNo))
-                .map(p -> userRepository.findById(p.getUserNo()).map(User::getName).orElse("?"))
+                .map(p -> Optional.ofNullable(users.get(p.getUserNo())).map(User::getName).orElse("?"))
                 .filter(Objects::nonNull)
                 .sorted()
                 .collect(Collectors.toList());
@@ -207,30 +278,47 @@ public class ChatService {
         return (int) Math.min(unreadCount, Integer.MAX_VALUE);
     }
 
-    private ChatSummaryDto toSummaryDto(ChatRoom room, Long currentUserNo) {
-        ChatMessage lastMessage = messageRepository
-                .findTopByChatRoomIdOrderByCreatedAtDesc(room.getId())
-                .orElse(null);
-        List<String> participantIds = room.getParticipants().stream()
-                .map(ChatRoomParticipant::getUserNo)
-                .map(userNo -> userRepository.findById(userNo)
-                        .map(User::getUserId)
-                        .orElse(String.valueOf(userNo)))
+    /** 방 요약. 마지막 메시지와 참여자 정보는 방 전체를 모아 한 번씩 읽고, 안 읽은 수만 방마다 센다 */
+    private List<ChatSummaryDto> toSummaryDtos(List<ChatRoom> rooms, Long currentUserNo) {
+        List<Long> lastMessageIds = rooms.stream()
+                .map(ChatRoom::getLastMessageId)
+                .filter(Objects::nonNull)
                 .toList();
+        Map<Long, ChatMessage> lastMessages = lastMessageIds.isEmpty() ? Map.of()
+                : messageRepository.findAllById(lastMessageIds).stream()
+                        .collect(Collectors.toMap(ChatMessage::getId, message -> message));
+        Map<String, CardDto> lastCards = sharedCards(lastMessages.values());
+        Set<Long> userNos = rooms.stream()
+                .flatMap(room -> room.getParticipants().stream())
+                .map(ChatRoomParticipant::getUserNo)
+                .collect(Collectors.toSet());
+        Map<Long, User> users = userRepository.findAllById(userNos).stream()
+                .collect(Collectors.toMap(User::getUserNo, user -> user));
 
-        return ChatSummaryDto.builder()
-                .id(String.valueOf(room.getId()))
-                .title(buildRoomTitle(room, currentUserNo))
-                .lastMessage(lastMessage != null && lastMessage.getText() != null ? lastMessage.getText() : "")
-                .lastMessageCardTitle(lastMessage != null ? cardTitle(lastMessage) : null)
-                .updatedAt(lastMessage != null ? lastMessage.getCreatedAt() : room.getCreatedAt())
-                .unreadCount(countUnread(room, currentUserNo))
-                .participantIds(participantIds)
-                .avatarUrl(null)
-                .build();
+        List<ChatSummaryDto> summaries = new ArrayList<>(rooms.size());
+        for (ChatRoom room : rooms) {
+            ChatMessage lastMessage = room.getLastMessageId() != null ? lastMessages.get(room.getLastMessageId()) : null;
+            List<String> participantIds = room.getParticipants().stream()
+                    .map(ChatRoomParticipant::getUserNo)
+                    .map(userNo -> Optional.ofNullable(users.get(userNo))
+                            .map(User::getUserId)
+                            .orElse(String.valueOf(userNo)))
+                    .toList();
+            summaries.add(ChatSummaryDto.builder()
+                    .id(String.valueOf(room.getId()))
+                    .title(buildRoomTitle(room, currentUserNo, users))
+                    .lastMessage(lastMessage != null && lastMessage.getText() != null ? lastMessage.getText() : "")
+                    .lastMessageCardTitle(cardTitle(lastMessage, lastCards))
+                    .updatedAt(room.getLastMessageAt() != null ? room.getLastMessageAt() : room.getCreatedAt())
+                    .unreadCount(countUnread(room, currentUserNo))
+                    .participantIds(participantIds)
+                    .avatarUrl(null)
+                    .build());
+        }
+        return summaries;
     }
 
-    private ChatMessageDto toMessageDto(ChatMessage m, Long roomId) {
+    private ChatMessageDto toMessageDto(ChatMessage m, Long roomId, CardDto card) {
         String senderId = userRepository.findById(m.getSenderUserNo())
                 .map(User::getUserId)
                 .orElse(String.valueOf(m.getSenderUserNo()));
@@ -243,17 +331,24 @@ public class ChatService {
                 .senderId(senderId)
                 .senderName(senderName != null ? senderName : senderId)
                 .text(m.getText() != null ? m.getText() : "")
-                .card(deserializeCard(m.getCardSnapshot()))
+                .card(card)
                 .createdAt(m.getCreatedAt())
                 .build();
     }
 
-    private String serializeCard(CardDto card) {
-        try {
-            return objectMapper.writeValueAsString(card);
-        } catch (JsonProcessingException error) {
-            throw new IllegalStateException("Failed to serialize card", error);
-        }
+    /** 메시지들이 공유한 카드 스냅샷을 한 번에 읽는다 */
+    private Map<String, CardDto> sharedCards(Collection<ChatMessage> messages) {
+        Set<String> hashes = messages.stream()
+                .map(ChatMessage::getCardSnapshotHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return cardSnapshots.findAll(hashes);
+    }
+
+    /** 스냅샷 hash가 있으면 그것으로, 아직 옮기지 않은 예전 메시지면 본문 JSON으로 */
+    private CardDto sharedCard(ChatMessage message, Map<String, CardDto> cards) {
+        if (message.getCardSnapshotHash() != null) return cards.get(message.getCardSnapshotHash());
+        return deserializeCard(message.getCardSnapshot());
     }
 
     private CardDto deserializeCard(String snapshot) {
@@ -265,8 +360,9 @@ public class ChatService {
         }
     }
 
-    private String cardTitle(ChatMessage message) {
-        CardDto card = deserializeCard(message.getCardSnapshot());
+    private String cardTitle(ChatMessage message, Map<String, CardDto> cards) {
+        if (message == null) return null;
+        CardDto card = sharedCard(message, cards);
         return card != null ? card.getTitle() : null;
     }
 }
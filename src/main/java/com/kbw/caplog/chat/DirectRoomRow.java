@@ -0,0 +1,11 @@
+package com.kbw.caplog.chat;
+
+/**
+ * 1:1 방과 그 방의 상대 (ChatRoomRepository.findDirectRooms)
+ */
+public interface DirectRoomRow {
+
+    Long getRoomId();
+
+    Long getOtherUserNo();
+}
@@ -0,0 +1,19 @@
+package com.kbw.caplog.chat.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ShareCardRequest {
+
+    /** 받을 친구 userId 목록 (본인 제외). 친구마다 1:1 방에 메시지 하나 */
+    private List<String> recipientUserIds;
+
+    /** 카드와 함께 보낼 글 (선택) */
+    private String text;
+}
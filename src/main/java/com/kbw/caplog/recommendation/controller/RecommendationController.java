@@ -1,6 +1,7 @@
 package com.kbw.caplog.recommendation.controller;
 
 import com.kbw.caplog.recommendation.dto.NearbyResponse;
+import com.kbw.caplog.recommendation.dto.ViewportResponse;
 import com.kbw.caplog.recommendation.service.RecommendationService;
 import com.kbw.caplog.user.User;
 import com.kbw.caplog.user.UserRepository;
@@ -39,6 +40,39 @@ public class RecommendationController {
         return service.findNearby(userNo, lat, lng, r, l);
     }
 
+    /**
+     * 지도 뷰포트 (핀 또는 클러스터)
+     * - minLat/minLng/maxLat/maxLng: 화면에 보이는 영역. 날짜변경선을 넘는 영역(minLng > maxLng)은 받지 않는다
+     * - zoom: 지도 zoom 레벨 (0~22). 클러스터 격자 크기를 정한다
+     */
+    @GetMapping("/viewport")
+    public ViewportResponse viewport(
+            Authentication auth,
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @RequestParam int zoom
+    ) {
+        if (!validLat(minLat) || !validLat(maxLat) || !validLng(minLng) || !validLng(maxLng)
+                || minLat > maxLat || minLng > maxLng) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid viewport");
+        }
+        if (zoom < 0 || zoom > 22) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid zoom");
+        }
+        Long userNo = resolveUserNo(auth);
+        return service.findViewport(userNo, minLat, minLng, maxLat, maxLng, zoom);
+    }
+
+    private static boolean validLat(double lat) {
+        return Double.isFinite(lat) && lat >= -90 && lat <= 90;
+    }
+
+    private static boolean validLng(double lng) {
+        return Double.isFinite(lng) && lng >= -180 && lng <= 180;
+    }
+
     private Long resolveUserNo(Authentication auth) {
         if (auth == null || auth.getName() == null || auth.getName().isBlank()) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
@@ -7,7 +7,14 @@ import lombok.Setter;
 import java.time.Instant;
 
 @Entity
-@Table(name = "screenshot")
+@Table(name = "screenshot", indexes = {
+    // 카드 목록 keyset 페이지네이션: WHERE user_no = ? AND screenshot_id < ? ORDER BY screenshot_id DESC
+    @Index(name = "idx_screenshot_user_id", columnList = "user_no, screenshot_id"),
+    // 카드 델타 동기화: WHERE user_no = ? AND change_seq > ? ORDER BY change_seq
+    @Index(name = "idx_screenshot_user_change", columnList = "user_no, change_seq"),
+    // 지도 뷰포트·근처 카드: WHERE user_no = ? AND geocode_status = 1 AND lat BETWEEN ? AND ? (lng는 인덱스 안에서 거름)
+    @Index(name = "idx_screenshot_user_geo", columnList = "user_no, geocode_status, lat, lng")
+})
 @Getter @Setter
 public class Screenshot {
 
@@ -66,6 +73,13 @@ public class Screenshot {
     @Column(name = "updated_at")
     private Instant updatedAt;
 
+    /**
+     * 마지막 쓰기의 변경 번호 (사용자의 CARDS 목록 버전). 델타 동기화 커서.
+     * 시계가 아니라 커밋 순서를 따르므로 늦게 커밋된 쓰기도 커서 뒤로 빠지지 않는다. 도입 전 카드는 NULL
+     */
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     @PrePersist
     void onCreate() {
         Instant now = Instant.now();
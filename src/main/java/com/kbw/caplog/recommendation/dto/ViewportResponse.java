@@ -0,0 +1,43 @@
+package com.kbw.caplog.recommendation.dto;
+
+import com.kbw.caplog.recommendation.repository.MapClusterProjection;
+import com.kbw.caplog.recommendation.repository.MapPinProjection;
+
+import java.util.List;
+
+/**
+ * 지도 뷰포트 응답 DTO
+ * - 뷰포트 안 카드가 적으면 pins에 카드별 핀, 많으면 clusters에 격자 칸별 묶음 (둘 중 하나만 채움)
+ * - total: 뷰포트 안 위치 있는 카드 수
+ * - cellDegrees: 클러스터 격자 한 칸 크기(도). 핀이면 0
+ */
+public record ViewportResponse(
+        int total,
+        double cellDegrees,
+        List<Pin> pins,
+        List<Cluster> clusters
+) {
+    public static ViewportResponse ofPins(List<MapPinProjection> rows) {
+        return new ViewportResponse(rows.size(), 0, rows.stream().map(Pin::from).toList(), List.of());
+    }
+
+    public static ViewportResponse ofClusters(double cellDegrees, List<MapClusterProjection> rows) {
+        int total = 0;
+        for (MapClusterProjection row : rows) total += row.getCount().intValue();
+        return new ViewportResponse(total, cellDegrees, List.of(), rows.stream().map(Cluster::from).toList());
+    }
+
+    public record Pin(Long id, String title, String placeName, Double lat, Double lng) {
+        static Pin from(MapPinProjection p) {
+            return new Pin(p.getId(), p.getTitle(), p.getPlaceName(), p.getLat(), p.getLng());
+        }
+    }
+
+    /** count: 칸 안 카드 수, lat/lng: 칸 안 카드 좌표 평균, cardId: 카드가 하나뿐이면 그 카드 id */
+    public record Cluster(int count, Double lat, Double lng, Long cardId) {
+        static Cluster from(MapClusterProjection p) {
+            int count = p.getCount().intValue();
+            return new Cluster(count, p.getLat(), p.getLng(), count == 1 ? p.getSampleId() : null);
+        }
+    }
+}
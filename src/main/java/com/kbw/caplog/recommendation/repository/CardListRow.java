@@ -0,0 +1,33 @@
+package com.kbw.caplog.recommendation.repository;
+
+import com.kbw.caplog.recommendation.domain.Screenshot;
+
+import java.time.Instant;
+
+/**
+ * 카드 목록용 Projection
+ * - CardDto를 만드는 데 필요한 컬럼만 담는다 (좌표, 지오코딩 상태, image_url 제외)
+ * - 엔티티가 아니므로 영속성 컨텍스트에 올라가지 않고 dirty checking 대상도 아니다
+ */
+public record CardListRow(
+        Long id,
+        Long categoryId,
+        String title,
+        String summary,
+        String subcategory,
+        String tagsJson,
+        String fieldsJson,
+        String placeName,
+        String address,
+        Instant createdAt,
+        Instant updatedAt
+) {
+    public static CardListRow from(Screenshot s) {
+        return new CardListRow(
+                s.getId(), s.getCategoryId(), s.getTitle(), s.getSummary(),
+                s.getSubcategory(), s.getTagsJson(), s.getFieldsJson(),
+                s.getPlaceName(), s.getAddress(),
+                s.getCreatedAt(), s.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,10 @@
+package com.kbw.caplog.recommendation.repository;
+
+/**
+ * 카드 검색 결과 Projection 인터페이스
+ * (FULLTEXT 네이티브 쿼리의 id와 관련도 점수)
+ */
+public interface CardSearchHit {
+    Long getId();
+    Double getScore();
+}
@@ -0,0 +1,12 @@
+package com.kbw.caplog.recommendation.repository;
+
+/**
+ * 지도 클러스터 Projection 인터페이스
+ * (격자 칸 하나의 카드 수, 중심점, 대표 카드 id)
+ */
+public interface MapClusterProjection {
+    Long getCount();
+    Double getLat();
+    Double getLng();
+    Long getSampleId();
+}
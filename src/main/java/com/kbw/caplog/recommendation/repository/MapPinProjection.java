@@ -0,0 +1,13 @@
+package com.kbw.caplog.recommendation.repository;
+
+/**
+ * 지도 핀 Projection 인터페이스
+ * (뷰포트 안 카드 하나)
+ */
+public interface MapPinProjection {
+    Long getId();
+    String getTitle();
+    String getPlaceName();
+    Double getLat();
+    Double getLng();
+}
@@ -13,4 +13,7 @@ public interface NearbyProjection {
     Double getLat();
     Double getLng();
     Double getDistanceMeters();
+    Long getCategoryId();
+    /** 카드 저장 후 지난 초 (최신성 점수용) */
+    Long getAgeSeconds();
 }
@@ -1,23 +1,184 @@
 package com.kbw.caplog.recommendation.repository;
 
 import com.kbw.caplog.recommendation.domain.Screenshot;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ScreenshotRepository extends JpaRepository<Screenshot, Long> {
 
-    /** 현재 유저의 스크린샷 목록 조회 (최신순) */
-    List<Screenshot> findByUserNoOrderByIdDesc(Long userNo);
+    /**
+     * 카드 목록 첫 페이지 (최신순). (user_no, screenshot_id) 인덱스를 역순으로 읽고
+     * LIMIT에서 멈추므로 카드가 몇 장이든 읽는 행 수는 limit개입니다.
+     */
+    @Query("""
+            SELECT new com.kbw.caplog.recommendation.repository.CardListRow(
+                s.id, s.categoryId, s.title, s.summary, s.subcategory,
+                s.tagsJson, s.fieldsJson, s.placeName, s.address,
+                s.createdAt, s.updatedAt)
+            FROM Screenshot s
+            WHERE s.userNo = :userNo
+            ORDER BY s.id DESC
+            """)
+    List<CardListRow> findCardPage(@Param("userNo") Long userNo, Limit limit);
+
+    /** 카드 목록 다음 페이지. before(직전 페이지 마지막 카드 id)보다 오래된 카드만 읽습니다. */
+    @Query("""
+            SELECT new com.kbw.caplog.recommendation.repository.CardListRow(
+                s.id, s.categoryId, s.title, s.summary, s.subcategory,
+                s.tagsJson, s.fieldsJson, s.placeName, s.address,
+                s.createdAt, s.updatedAt)
+            FROM Screenshot s
+            WHERE s.userNo = :userNo AND s.id < :before
+            ORDER BY s.id DESC
+            """)
+    List<CardListRow> findCardPageBefore(
+            @Param("userNo") Long userNo,
+            @Param("before") Long before,
+            Limit limit
+    );
+
+    /** 델타 동기화: 변경 번호 after 뒤에 생성·수정된 카드 (user_no, change_seq) 인덱스 범위 조회 */
+    @Query("""
+            SELECT new com.kbw.caplog.recommendation.repository.CardListRow(
+                s.id, s.categoryId, s.title, s.summary, s.subcategory,
+                s.tagsJson, s.fieldsJson, s.placeName, s.address,
+                s.createdAt, s.updatedAt)
+            FROM Screenshot s
+            WHERE s.userNo = :userNo AND s.changeSeq > :after
+            ORDER BY s.changeSeq, s.id
+            """)
+    List<CardListRow> findCardsChangedAfter(
+            @Param("userNo") Long userNo,
+            @Param("after") long after,
+            Limit limit
+    );
 
     Optional<Screenshot> findByIdAndUserNo(Long id, Long userNo);
 
+    /**
+     * 카드 검색 (MySQL FULLTEXT, ngram 파서). 점수 높은 순, 같으면 최신순으로 id와 점수만 읽습니다.
+     * query는 BOOLEAN MODE 식입니다 (CardSearchQuery가 만든다). 인덱스는 CardFullTextIndexInitializer가 만듭니다.
+     * <p>FULLTEXT 인덱스는 user_no로 나뉘지 않습니다. MATCH가 먼저 모든 사용자의 카드에서 검색어가 든 행을 모으고
+     * user_no 조건은 그다음에 거르므로, 비용은 내 카드 수가 아니라 테이블 전체에서 그 검색어가 든 카드 수를 따라
+     * 늘어납니다 ("카페"처럼 흔한 단어일수록). CardSearchLoadTest가 여러 사용자 카드로 이 증가를 잽니다.
+     */
+    @Query(value = """
+            SELECT s.screenshot_id AS id,
+                   MATCH(s.title, s.summary, s.subcategory, s.place_name, s.tags_json)
+                       AGAINST (:query IN BOOLEAN MODE) AS score
+            FROM screenshot s
+            WHERE s.user_no = :userNo
+              AND MATCH(s.title, s.summary, s.subcategory, s.place_name, s.tags_json)
+                  AGAINST (:query IN BOOLEAN MODE)
+            ORDER BY score DESC, s.screenshot_id DESC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<CardSearchHit> searchCards(
+            @Param("userNo") Long userNo,
+            @Param("query") String query,
+            @Param("limit") int limit,
+            @Param("offset") int offset
+    );
+
+    /** 검색 결과 id로 카드 행을 읽습니다. 순서는 보장하지 않으므로 호출하는 쪽에서 점수 순으로 다시 맞춥니다. */
+    @Query("""
+            SELECT new com.kbw.caplog.recommendation.repository.CardListRow(
+                s.id, s.categoryId, s.title, s.summary, s.subcategory,
+                s.tagsJson, s.fieldsJson, s.placeName, s.address,
+                s.createdAt, s.updatedAt)
+            FROM Screenshot s
+            WHERE s.userNo = :userNo AND s.id IN :ids
+            """)
+    List<CardListRow> findCardRowsByIds(@Param("userNo") Long userNo, @Param("ids") Collection<Long> ids);
+
+    /**
+     * 지오코딩 결과 저장. 외부 API 호출 동안 트랜잭션(DB 커넥션)을 잡지 않도록 조회와 저장을 나눴다.
+     * 그 사이 카드가 수정됐으면(updated_at이 다르면) 덮어쓰지 않고 0을 반환한다.
+     * filledAddress는 주소가 비어 있어 장소명 검색 결과로 채운 경우에만 넘긴다.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE Screenshot s
+            SET s.lat = :lat,
+                s.lng = :lng,
+                s.address = COALESCE(:filledAddress, s.address),
+                s.geocodeStatus = :status,
+                s.geocodeAttempts = COALESCE(s.geocodeAttempts, 0) + 1,
+                s.updatedAt = :now,
+                s.changeSeq = :changeSeq
+            WHERE s.id = :id
+              AND (s.updatedAt = :seenUpdatedAt OR (s.updatedAt IS NULL AND :seenUpdatedAt IS NULL))
+            """)
+    int updateGeocodeResult(
+            @Param("id") Long id,
+            @Param("seenUpdatedAt") Instant seenUpdatedAt,
+            @Param("lat") Double lat,
+            @Param("lng") Double lng,
+            @Param("filledAddress") String filledAddress,
+            @Param("status") short status,
+            @Param("changeSeq") long changeSeq,
+            @Param("now") Instant now
+    );
+
     /** 회원 탈퇴용. 해당 계정의 카드를 모두 지웁니다. */
     void deleteByUserNo(Long userNo);
 
+    /**
+     * 지도 뷰포트 안 핀 (최신순). 호출하는 쪽에서 limit을 한도+1로 넘겨 한도를 넘는지 본다.
+     * (user_no, geocode_status, lat, lng) 인덱스의 lat 범위로 읽는다
+     */
+    @Query(value = """
+            SELECT s.screenshot_id AS id, s.title AS title, s.place_name AS placeName,
+                   s.lat AS lat, s.lng AS lng
+            FROM screenshot s
+            WHERE s.user_no = :userNo
+              AND s.geocode_status = 1
+              AND s.lat BETWEEN :minLat AND :maxLat
+              AND s.lng BETWEEN :minLng AND :maxLng
+            ORDER BY s.screenshot_id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<MapPinProjection> findPinsInViewport(
+            @Param("userNo") Long userNo,
+            @Param("minLat") double minLat,
+            @Param("minLng") double minLng,
+            @Param("maxLat") double maxLat,
+            @Param("maxLng") double maxLng,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 지도 뷰포트 클러스터. 경위도를 cell(도) 크기 격자로 나눠 칸마다 카드 수와 좌표 평균을 DB에서 집계한다.
+     * 응답 크기는 카드 수가 아니라 뷰포트 안 칸 수에 비례한다
+     */
+    @Query(value = """
+            SELECT COUNT(*) AS count, AVG(s.lat) AS lat, AVG(s.lng) AS lng, MIN(s.screenshot_id) AS sampleId
+            FROM screenshot s
+            WHERE s.user_no = :userNo
+              AND s.geocode_status = 1
+              AND s.lat BETWEEN :minLat AND :maxLat
+              AND s.lng BETWEEN :minLng AND :maxLng
+            GROUP BY FLOOR(s.lat / :cell), FLOOR(s.lng / :cell)
+            """, nativeQuery = true)
+    List<MapClusterProjection> findClustersInViewport(
+            @Param("userNo") Long userNo,
+            @Param("minLat") double minLat,
+            @Param("minLng") double minLng,
+            @Param("maxLat") double maxLat,
+            @Param("maxLng") double maxLng,
+            @Param("cell") double cellDegrees
+    );
+
     @Query(value = """
     SELECT
       s.screenshot_id    AS id,
@@ -27,6 +188,8 @@ public interface ScreenshotRepository extends JpaRepository<Screenshot, Long> {
       s.address          AS address,
       s.lat              AS lat,
       s.lng              AS lng,
+      s.category_id      AS categoryId,
+      TIMESTAMPDIFF(SECOND, s.created_at, UTC_TIMESTAMP()) AS ageSeconds,
       (6371000 * ACOS(
         LEAST(1, GREATEST(-1,
           COS(RADIANS(:lat)) * COS(RADIANS(s.lat)) *
@@ -0,0 +1,35 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.card.service.CardService;
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 카테고리 선호: 사용자가 가장 많이 저장한 카테고리 = 1, 나머지는 그 대비 비율
+ * (맛집 카드를 주로 모으는 사용자에게는 맛집 카드를 먼저)
+ */
+@Component
+public class CategoryAffinityScorer implements RecommendationScorer {
+
+    private final double weight;
+
+    public CategoryAffinityScorer(@Value("${caplog.recommend.weights.category:0.15}") double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public double score(NearbyProjection candidate, ScoringContext context) {
+        if (context.categoryShares().isEmpty()) return 0;
+        double top = 0;
+        for (double share : context.categoryShares().values()) top = Math.max(top, share);
+        if (top == 0) return 0;
+        String category = CardService.mapCategoryId(candidate.getCategoryId());
+        return context.categoryShares().getOrDefault(category, 0.0) / top;
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/** 거리 감쇠: half-life 거리마다 점수가 절반 (0m = 1) */
+@Component
+public class DistanceDecayScorer implements RecommendationScorer {
+
+    private final double weight;
+    private final double halfLifeMeters;
+
+    public DistanceDecayScorer(
+            @Value("${caplog.recommend.weights.distance:0.6}") double weight,
+            @Value("${caplog.recommend.distance-half-life-meters:500}") double halfLifeMeters
+    ) {
+        this.weight = weight;
+        this.halfLifeMeters = halfLifeMeters;
+    }
+
+    @Override
+    public double score(NearbyProjection candidate, ScoringContext context) {
+        Double distance = candidate.getDistanceMeters();
+        if (distance == null) return 0;
+        return Math.pow(0.5, Math.max(0, distance) / halfLifeMeters);
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+}
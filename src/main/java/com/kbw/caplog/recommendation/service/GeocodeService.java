@@ -4,28 +4,53 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kbw.caplog.recommendation.domain.Screenshot;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class GeocodeService {
 
+    private static final Logger log = LoggerFactory.getLogger(GeocodeService.class);
+
     private final ScreenshotRepository repo;
     private final KakaoGeocodingClient kakao;
+    private final MeterRegistry meterRegistry;
+    private final NearbyCache nearbyCache;
+    private final CollectionVersionRepository collectionVersions;
+    private final TransactionTemplate transactionTemplate;
     private final ObjectMapper om = new ObjectMapper();
 
-    /** 단건 지오코딩: 주소 먼저, 안되면 place_name 사용 */
-    @Transactional
+    /**
+     * 단건 지오코딩: 주소 먼저, 안되면 place_name 사용
+     * - 트랜잭션 없이 읽고, Kakao 응답을 받은 뒤 짧은 UPDATE 한 번으로 저장한다.
+     *   Kakao가 느려도 DB 커넥션 풀을 붙잡지 않는다 (가상 스레드에서 동시 요청이 커넥션 수에 묶이지 않게)
+     * - 저장은 변경 번호를 받는 것과 한 트랜잭션이라 델타 동기화가 채워진 주소를 놓치지 않는다
+     * - 좌표가 새로 생기면 근처 추천 캐시를 비운다
+     * - caplog.geocode 타이머 (result: cached, success, no_result, stale)
+     */
     public boolean geocodeOne(Long screenshotId, Long userNo) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         Screenshot s = repo.findByIdAndUserNo(screenshotId, userNo).orElseThrow();
 
-        if (s.getLat() != null && s.getLng() != null) return true;
+        if (s.getLat() != null && s.getLng() != null) {
+            stop(sample, "cached");
+            return true;
+        }
 
+        Instant seenUpdatedAt = s.getUpdatedAt();
+        boolean addressWasBlank = isBlank(s.getAddress());
         boolean success = false;
 
-        if (s.getAddress() != null && !s.getAddress().isBlank()) {
+        if (!addressWasBlank) {
             success = tryAddress(s);
         }
 
@@ -33,12 +58,34 @@ public class GeocodeService {
             success = tryKeyword(s);
         }
 
-        s.setGeocodeAttempts(nullToZero(s.getGeocodeAttempts()) + 1);
-        s.setGeocodeStatus((short) (success ? 1 : 2)); // 1 성공, 2 실패
-        repo.save(s);
+        String filledAddress = addressWasBlank && !isBlank(s.getAddress()) ? s.getAddress() : null;
+        short status = (short) (success ? 1 : 2); // 1 성공, 2 실패
+        int updated = transactionTemplate.execute(tx -> {
+            long changeSeq = collectionVersions.bumpAndGet(userNo, CollectionVersionRepository.CARDS);
+            int rows = repo.updateGeocodeResult(
+                    s.getId(), seenUpdatedAt, s.getLat(), s.getLng(), filledAddress, status, changeSeq, Instant.now());
+            // 버린 결과에는 변경 번호도 쓰지 않는다
+            if (rows == 0) tx.setRollbackOnly();
+            return rows;
+        });
+        if (updated == 0) {
+            // 조회 이후 카드가 수정됨. 수정 쪽에서 위치를 다시 변환하므로 이 결과는 버린다
+            log.debug("지오코딩 중 카드가 바뀌어 결과를 저장하지 않음 (screenshotId={})", s.getId());
+            stop(sample, "stale");
+            return false;
+        }
+        if (success) nearbyCache.invalidate(userNo);
+        stop(sample, success ? "success" : "no_result");
         return success;
     }
 
+    private void stop(Timer.Sample sample, String result) {
+        sample.stop(Timer.builder("caplog.geocode")
+                .description("Geocoding one card (DB + Kakao)")
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
     private boolean tryAddress(Screenshot s) {
         try {
             String json = kakao.geocodeByAddress(s.getAddress().trim());
@@ -61,7 +108,7 @@ public class GeocodeService {
                 }
             }
         } catch (Exception e) {
-            System.out.println("⚠️ 주소 지오코딩 실패: " + e.getMessage());
+            log.warn("주소 지오코딩 실패 (screenshotId={}): {}", s.getId(), e.getMessage());
         }
         return false;
     }
@@ -87,11 +134,10 @@ public class GeocodeService {
                 }
             }
         } catch (Exception e) {
-            System.out.println("⚠️ 장소명 지오코딩 실패: " + e.getMessage());
+            log.warn("장소명 지오코딩 실패 (screenshotId={}): {}", s.getId(), e.getMessage());
         }
         return false;
     }
 
     private static boolean isBlank(String v) { return v == null || v.isBlank(); }
-    private static int nullToZero(Integer v) { return v == null ? 0 : v; }
 }
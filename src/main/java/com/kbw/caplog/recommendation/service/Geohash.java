@@ -0,0 +1,80 @@
+package com.kbw.caplog.recommendation.service;
+
+/**
+ * Geohash (base32) 인코딩
+ * - 근처 추천 캐시 키용. 같은 칸 안의 위치는 같은 문자열이 된다
+ * - 정밀도 7 ≈ 153m × 153m, 8 ≈ 38m × 19m (적도 기준, 위도가 높을수록 경도 폭이 좁아진다)
+ */
+final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lngBit = true;
+        int bits = 0;
+        int value = 0;
+        while (hash.length() < precision) {
+            if (lngBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    value = value << 1 | 1;
+                    minLng = mid;
+                } else {
+                    value <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    value = value << 1 | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lngBit = !lngBit;
+            if (++bits == 5) {
+                hash.append(BASE32[value]);
+                bits = 0;
+                value = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /** 칸 중심 {lat, lng} */
+    static double[] center(String hash) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        boolean lngBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int value = indexOf(hash.charAt(i));
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean on = (value >> bit & 1) == 1;
+                if (lngBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    if (on) minLng = mid;
+                    else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (on) minLat = mid;
+                    else maxLat = mid;
+                }
+                lngBit = !lngBit;
+            }
+        }
+        return new double[] {(minLat + maxLat) / 2, (minLng + maxLng) / 2};
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c) return i;
+        }
+        throw new IllegalArgumentException("Invalid geohash: " + c);
+    }
+}
@@ -1,21 +1,34 @@
 package com.kbw.caplog.recommendation.service;
 
+import com.kbw.caplog.support.UpstreamMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Component
 public class KakaoGeocodingClient {
 
     private final WebClient client;
     private final String apiKey;
+    private final UpstreamMetrics metrics;
 
     public KakaoGeocodingClient(
-            @Value("${kakao.restApiKey:}") String keyFromProp
+            WebClient.Builder webClientBuilder,
+            UpstreamMetrics metrics,
+            @Value("${kakao.restApiKey:}") String keyFromProp,
+            @Value("${kakao.base-url:https://dapi.kakao.com}") String baseUrl,
+            @Value("${kakao.max-connections:200}") int maxConnections,
+            @Value("${kakao.response-timeout:5s}") Duration responseTimeout
     ) {
+        this.metrics = metrics;
         String key = keyFromProp;
         if (key == null || key.isBlank()) {
             key = System.getenv("KAKAO_REST_API_KEY");
@@ -26,8 +39,17 @@ public class KakaoGeocodingClient {
         this.apiKey = (key != null && !key.isBlank()) ? key.trim() : null;
 
         if (this.apiKey != null) {
-            this.client = WebClient.builder()
-                    .baseUrl("https://dapi.kakao.com")
+            // 주입받은 Builder를 써야 http.client.requests 메트릭이 붙는다
+            // Reactor Netty 기본 풀은 커넥션이 max(CPU 수, 8) × 2개뿐이라, 블로킹 호출자가 많아지면
+            // (특히 가상 스레드) 응답이 아니라 커넥션을 기다리느라 줄을 선다
+            ConnectionProvider pool = ConnectionProvider.builder("kakao")
+                    .maxConnections(maxConnections)
+                    .pendingAcquireTimeout(responseTimeout)
+                    .build();
+            this.client = webClientBuilder
+                    .clientConnector(new ReactorClientHttpConnector(
+                            HttpClient.create(pool).responseTimeout(responseTimeout)))
+                    .baseUrl(baseUrl)
                     .defaultHeader(HttpHeaders.AUTHORIZATION, "KakaoAK " + this.apiKey)
                     .build();
         } else {
@@ -42,7 +64,7 @@ public class KakaoGeocodingClient {
         if (client == null) {
             throw new IllegalStateException("KAKAO_REST_API_KEY(또는 kakao.restApiKey)가 설정되지 않았습니다. application.yml 또는 환경변수 KAKAO_REST_API_KEY를 설정하세요.");
         }
-        return client.get()
+        return metrics.time("kakao", "address", () -> client.get()
                 .uri(b -> b.path("/v2/local/search/address.json")
                         .queryParam("query", address)
                         .queryParam("size", 1)
@@ -55,7 +77,7 @@ public class KakaoGeocodingClient {
                         resp -> resp.bodyToMono(String.class)
                                 .flatMap(b -> Mono.error(new RuntimeException("Kakao 5xx: " + b))))
                 .bodyToMono(String.class)
-                .block();
+                .block());
     }
 
     /** 장소명(키워드)로 좌표 조회 -> JSON(String) 반환 */
@@ -63,7 +85,7 @@ public class KakaoGeocodingClient {
         if (client == null) {
             throw new IllegalStateException("KAKAO_REST_API_KEY(또는 kakao.restApiKey)가 설정되지 않았습니다.");
         }
-        return client.get()
+        return metrics.time("kakao", "keyword", () -> client.get()
                 .uri(b -> b.path("/v2/local/search/keyword.json")
                         .queryParam("query", keyword)
                         .queryParam("size", 1)
@@ -76,6 +98,6 @@ public class KakaoGeocodingClient {
                         resp -> resp.bodyToMono(String.class)
                                 .flatMap(b -> Mono.error(new RuntimeException("Kakao 5xx: " + b))))
                 .bodyToMono(String.class)
-                .block();
+                .block());
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kbw.caplog.recommendation.dto.NearbyResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 근처 추천 결과 캐시
+ * - 키: (userNo, 세대, geohash 칸, 반경, 개수). 홈 화면이 제자리에서 새로고침할 때 같은 칸이면 DB를 다시 읽지 않는다
+ * - 같은 키로 동시에 들어온 요청은 먼저 온 요청의 조회 결과를 함께 기다린다 (조회는 한 번)
+ * - 카드·위치가 바뀌면 invalidate(userNo)로 사용자 세대를 올린다. 이전 세대 키는 다시 읽히지 않고 TTL로 사라진다.
+ *   진행 중이던 조회가 바뀌기 전 데이터를 늦게 저장해도 이전 세대 키에 들어가므로 새 요청에 보이지 않는다
+ * - caplog.recommend.nearby.cache{result=hit|miss|coalesced} 카운터로 적중률을 본다
+ */
+@Component
+public class NearbyCache {
+
+    /** geohash 7자리 ≈ 150m 칸 */
+    static final int CELL_PRECISION = 7;
+    static final Duration TTL = Duration.ofSeconds(30);
+    static final int MAX_ENTRIES = 10_000;
+    static final String METRIC = "caplog.recommend.nearby.cache";
+
+    record Key(Long userNo, long generation, String cell, int radiusMeters, int limit) {
+    }
+
+    private final AsyncCache<Key, List<NearbyResponse>> results = Caffeine.newBuilder()
+            .expireAfterWrite(TTL)
+            .maximumSize(MAX_ENTRIES)
+            .buildAsync();
+
+    /**
+     * 사용자별 현재 세대. 항목이 밀려나도 다시 만들 때 새 번호를 받으므로 이전 세대 키와 겹치지 않는다
+     */
+    private final Cache<Long, Long> generations = Caffeine.newBuilder()
+            .expireAfterAccess(TTL.multipliedBy(2))
+            .maximumSize(MAX_ENTRIES)
+            .build();
+    private final AtomicLong nextGeneration = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public NearbyCache(MeterRegistry registry) {
+        this.hits = counter(registry, "hit");
+        this.misses = counter(registry, "miss");
+        this.coalesced = counter(registry, "coalesced");
+        Gauge.builder(METRIC + ".size", results.synchronous(), Cache::estimatedSize)
+                .description("Cached nearby recommendation results")
+                .register(registry);
+    }
+
+    List<NearbyResponse> get(Long userNo, String cell, int radiusMeters, int limit, Supplier<List<NearbyResponse>> loader) {
+        Key key = new Key(userNo, generation(userNo), cell, radiusMeters, limit);
+        CompletableFuture<List<NearbyResponse>> mine = new CompletableFuture<>();
+        CompletableFuture<List<NearbyResponse>> existing = results.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            (existing.isDone() ? hits : coalesced).increment();
+            try {
+                return existing.join();
+            } catch (CompletionException error) {
+                throw error.getCause() instanceof RuntimeException cause ? cause : error;
+            }
+        }
+
+        misses.increment();
+        try {
+            List<NearbyResponse> loaded = List.copyOf(loader.get());
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException error) {
+            // 실패한 결과는 캐시에 남기지 않는다. 기다리던 요청에는 같은 예외를 전한다
+            results.asMap().remove(key, mine);
+            mine.completeExceptionally(error);
+            throw error;
+        }
+    }
+
+    /** 사용자의 카드·위치가 바뀌었을 때 */
+    public void invalidate(Long userNo) {
+        generations.put(userNo, nextGeneration.incrementAndGet());
+    }
+
+    private long generation(Long userNo) {
+        return generations.get(userNo, ignored -> nextGeneration.incrementAndGet());
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder(METRIC)
+                .description("Nearby recommendation cache lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+}
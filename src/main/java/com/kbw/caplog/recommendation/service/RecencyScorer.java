@@ -0,0 +1,35 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/** 최신성: 카드 저장 후 half-life 일수마다 점수가 절반 (방금 저장 = 1) */
+@Component
+public class RecencyScorer implements RecommendationScorer {
+
+    private static final double SECONDS_PER_DAY = 86_400;
+
+    private final double weight;
+    private final double halfLifeSeconds;
+
+    public RecencyScorer(
+            @Value("${caplog.recommend.weights.recency:0.25}") double weight,
+            @Value("${caplog.recommend.recency-half-life-days:30}") double halfLifeDays
+    ) {
+        this.weight = weight;
+        this.halfLifeSeconds = halfLifeDays * SECONDS_PER_DAY;
+    }
+
+    @Override
+    public double score(NearbyProjection candidate, ScoringContext context) {
+        Long age = candidate.getAgeSeconds();
+        if (age == null) return 0;
+        return Math.pow(0.5, Math.max(0, age) / halfLifeSeconds);
+    }
+
+    @Override
+    public double weight() {
+        return weight;
+    }
+}
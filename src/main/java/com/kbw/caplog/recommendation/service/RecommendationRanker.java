@@ -0,0 +1,75 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * 추천 후보 순위 매기기
+ * - 후보마다 RecommendationScorer 점수의 가중합
+ * - 같은 장소(dedupeKey)는 점수 높은 하나만 남긴다
+ * - 전체를 정렬하지 않고 크기 k의 최소 힙으로 상위 k개만 고른다 (후보 n개에 O(n log k))
+ */
+@Component
+public class RecommendationRanker {
+
+    /** 점수가 같으면 id가 큰(최근 저장한) 카드를 앞에 */
+    private static final Comparator<Scored> ASCENDING = Comparator
+            .comparingDouble(Scored::score)
+            .thenComparing(scored -> scored.candidate().getId(), Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+    private final List<RecommendationScorer> scorers;
+
+    public RecommendationRanker(List<RecommendationScorer> scorers) {
+        this.scorers = scorers.stream().filter(scorer -> scorer.weight() != 0).toList();
+    }
+
+    record Scored(NearbyProjection candidate, double score) {
+    }
+
+    public List<NearbyProjection> topK(
+            List<? extends NearbyProjection> candidates,
+            int k,
+            ScoringContext context,
+            Function<NearbyProjection, String> dedupeKey
+    ) {
+        if (k <= 0 || candidates.isEmpty()) return List.of();
+
+        Map<String, Scored> best = new HashMap<>();
+        for (NearbyProjection candidate : candidates) {
+            Scored scored = new Scored(candidate, score(candidate, context));
+            best.merge(dedupeKey.apply(candidate), scored, (a, b) -> ASCENDING.compare(a, b) >= 0 ? a : b);
+        }
+
+        PriorityQueue<Scored> heap = new PriorityQueue<>(k + 1, ASCENDING);
+        for (Scored scored : best.values()) {
+            if (heap.size() < k) {
+                heap.add(scored);
+            } else if (ASCENDING.compare(scored, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(scored);
+            }
+        }
+
+        List<NearbyProjection> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) result.add(heap.poll().candidate());
+        Collections.reverse(result);
+        return result;
+    }
+
+    double score(NearbyProjection candidate, ScoringContext context) {
+        double total = 0;
+        for (RecommendationScorer scorer : scorers) {
+            total += scorer.weight() * scorer.score(candidate, context);
+        }
+        return total;
+    }
+}
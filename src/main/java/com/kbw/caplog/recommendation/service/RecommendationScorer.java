@@ -0,0 +1,15 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.repository.NearbyProjection;
+
+/**
+ * 추천 점수 항목 하나 (거리, 최신성, 카테고리 선호 …)
+ * - 빈으로 등록하면 RecommendationRanker가 모두 모아 가중합을 낸다. 새 항목은 구현체를 하나 더 두면 된다
+ * - score는 0~1, 가중치는 설정(caplog.recommend.weights.*)에서 읽는다. 0이면 계산하지 않는다
+ */
+public interface RecommendationScorer {
+
+    double score(NearbyProjection candidate, ScoringContext context);
+
+    double weight();
+}
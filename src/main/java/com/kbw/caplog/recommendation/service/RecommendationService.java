@@ -1,55 +1,118 @@
 package com.kbw.caplog.recommendation.service;
 
+import com.kbw.caplog.card.service.CardFacetService;
 import com.kbw.caplog.recommendation.dto.NearbyResponse;
+import com.kbw.caplog.recommendation.dto.ViewportResponse;
+import com.kbw.caplog.recommendation.repository.MapPinProjection;
 import com.kbw.caplog.recommendation.repository.NearbyProjection;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class RecommendationService {
 
+    /** 근처 추천 후보 상한. 반경 안 카드가 이보다 많으면 가까운 순으로 자른 뒤 점수를 매긴다 */
+    static final int MAX_CANDIDATES = 1000;
+    /** 뷰포트 안 카드가 이 수 이하이면 핀으로, 넘으면 클러스터로 보낸다 */
+    static final int MAX_PINS = 200;
+    /** 클러스터 격자: 지도 타일(256px) 한 장을 4×4칸(약 64px)으로 나눈다 */
+    static final int CELLS_PER_TILE_LOG2 = 2;
+    /** 뷰포트 한 변에 들어갈 최대 칸 수. zoom과 뷰포트가 안 맞게 와도 클러스터는 24×24개를 넘지 않는다 */
+    static final int MAX_CELLS_PER_AXIS = 24;
+
     private final ScreenshotRepository repo;
+    private final NearbyCache nearbyCache;
+    private final RecommendationRanker ranker;
+    private final CardFacetService cardFacetService;
 
     /**
      * 거리 기반 추천
-     * - 기본 반경 내에서 장소 부족하면 반경 확장
-     * - 최대 3개 카드 추천
+     * - 반경 안 후보를 모아 거리·최신성·카테고리 선호 점수(RecommendationRanker)로 상위 카드를 고른다
+     * - 후보가 부족하면 반경 확장, 최대 3개 카드 추천
+     * - 위치를 geohash 칸(약 150m)으로 묶어 칸 중심 기준으로 조회하고 NearbyCache에 잠깐 보관한다.
+     *   거리는 요청한 실제 위치에서 다시 계산해 돌려준다 (순서는 점수 순 그대로)
      */
-    @Transactional(readOnly = true)
     public List<NearbyResponse> findNearby(Long userNo, double lat, double lng, int radiusMeters, int limit) {
-        int need = Math.min(limit, 3);
-        List<NearbyProjection> acc = new ArrayList<>();
+        String cell = Geohash.encode(lat, lng, NearbyCache.CELL_PRECISION);
+        double[] center = Geohash.center(cell);
+        List<NearbyResponse> cached = nearbyCache.get(userNo, cell, radiusMeters, limit,
+                () -> queryNearby(userNo, center[0], center[1], radiusMeters, limit));
+        return withDistancesFrom(cached, lat, lng);
+    }
 
-        // 여러 반경 시도: 1km → 1.5km → 3km → 5km
-        int[] radii = {radiusMeters, 1500, 3000, 5000};
+    private List<NearbyResponse> queryNearby(Long userNo, double lat, double lng, int radiusMeters, int limit) {
+        int need = Math.min(limit, 3);
 
-        for (int r : radii) {
-            if (acc.size() >= need) break;
-            var rows = repo.findNearby(userNo, lat, lng, r, need * 5);
-            acc.addAll(rows);
+        // 여러 반경 시도: 1km → 1.5km → 3km → 5km. 넓은 반경 결과가 좁은 반경 결과를 포함하므로 마지막 결과만 쓴다
+        List<NearbyProjection> candidates = List.of();
+        for (int r : new int[] {radiusMeters, 1500, 3000, 5000}) {
+            if (r < radiusMeters) continue;
+            candidates = repo.findNearby(userNo, lat, lng, r, MAX_CANDIDATES);
+            if (candidates.size() >= need) break;
         }
+        if (candidates.isEmpty()) return List.of();
+
+        ScoringContext context = new ScoringContext(userNo, cardFacetService.categoryShares(userNo));
+        return ranker.topK(candidates, need, context, RecommendationService::placeKey).stream()
+                .map(NearbyResponse::from)
+                .toList();
+    }
+
+    /** 같은 장소(장소명 + 주소)의 카드는 하나만 추천 */
+    private static String placeKey(NearbyProjection p) {
+        return ((p.getPlaceName() == null ? "" : p.getPlaceName().trim()) + "|" +
+                (p.getAddress() == null ? "" : p.getAddress().trim())).toLowerCase();
+    }
 
-        // 중복 제거 + 최대 need개만
-        var seen = new LinkedHashSet<String>();
-        var result = new ArrayList<NearbyResponse>();
+    /** 캐시된 결과의 거리를 요청 위치 기준으로 다시 계산 */
+    private static List<NearbyResponse> withDistancesFrom(List<NearbyResponse> rows, double lat, double lng) {
+        return rows.stream()
+                .map(r -> r.lat() == null || r.lng() == null ? r : new NearbyResponse(
+                        r.id(), r.title(), r.summary(), r.placeName(), r.address(),
+                        r.lat(), r.lng(), distanceMeters(lat, lng, r.lat(), r.lng())))
+                .toList();
+    }
 
-        for (var p : acc) {
-            String key = ((p.getPlaceName() == null ? "" : p.getPlaceName().trim()) + "|" +
-                    (p.getAddress() == null ? "" : p.getAddress().trim())).toLowerCase();
+    /** findNearby 쿼리와 같은 구면 코사인 법칙 */
+    static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double cos = Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.cos(Math.toRadians(lng2) - Math.toRadians(lng1))
+                + Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2));
+        return 6371000 * Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
 
-            if (seen.add(key)) {
-                result.add(NearbyResponse.from(p));
-                if (result.size() == need) break;
-            }
+    /**
+     * 지도 뷰포트
+     * - 뷰포트 안 카드가 MAX_PINS 이하이면 카드별 핀 (zoom과 상관없이)
+     * - 넘으면 zoom에 맞춘 격자 칸별 클러스터 (DB에서 GROUP BY)
+     * - 격자는 경위도 0에서 시작하는 2의 거듭제곱 크기라, 지도를 옮겨도 같은 zoom이면 칸 경계가 그대로다
+     */
+    @Transactional(readOnly = true)
+    public ViewportResponse findViewport(
+            Long userNo, double minLat, double minLng, double maxLat, double maxLng, int zoom
+    ) {
+        List<MapPinProjection> pins = repo.findPinsInViewport(userNo, minLat, minLng, maxLat, maxLng, MAX_PINS + 1);
+        if (pins.size() <= MAX_PINS) {
+            return ViewportResponse.ofPins(pins);
         }
+        double cell = cellDegrees(zoom, Math.max(maxLat - minLat, maxLng - minLng));
+        return ViewportResponse.ofClusters(
+                cell,
+                repo.findClustersInViewport(userNo, minLat, minLng, maxLat, maxLng, cell)
+        );
+    }
 
-        return result;
+    /** zoom의 타일 크기를 나눈 칸 크기(도). 뷰포트 한 변이 MAX_CELLS_PER_AXIS칸을 넘으면 칸을 두 배씩 키운다 */
+    static double cellDegrees(int zoom, double spanDegrees) {
+        int level = zoom + CELLS_PER_TILE_LOG2;
+        while (level > 0 && spanDegrees / (360.0 / (1L << level)) > MAX_CELLS_PER_AXIS) {
+            level--;
+        }
+        return 360.0 / (1L << level);
     }
 }
@@ -0,0 +1,10 @@
+package com.kbw.caplog.recommendation.service;
+
+import java.util.Map;
+
+/**
+ * 추천 요청 하나의 점수 계산 재료
+ * - categoryShares: 사용자 카드 중 카테고리별 비율 (카드 집계에서 읽음). 카드가 없으면 빈 맵
+ */
+public record ScoringContext(Long userNo, Map<String, Double> categoryShares) {
+}
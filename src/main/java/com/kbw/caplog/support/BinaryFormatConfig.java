@@ -0,0 +1,129 @@
+package com.kbw.caplog.support;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kbw.caplog.card.dto.CardChangesDto;
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.dto.CardSearchResult;
+import com.kbw.caplog.chat.dto.ChatMessageDto;
+import com.kbw.caplog.chat.dto.ChatSummaryDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 카드·채팅 응답의 바이너리 형식 (CBOR / Smile)
+ * - Accept: application/cbor 또는 application/x-jackson-smile을 보내면 그 형식으로, 아니면 지금처럼 JSON
+ * - 카드 목록·검색·델타, 채팅 목록·메시지 응답에만 쓴다. 요청 본문과 다른 응답은 JSON만 내보내므로
+ *   클라이언트는 Accept에 application/json도 낮은 q로 함께 보낸다
+ * - 바이너리 형식에서 시각(createdAt, updatedAt)은 epoch 밀리초 정수. 델타의 watermark는
+ *   시각이 아닌 변경 번호라 JSON과 같은 정수다
+ * - Smile은 반복되는 키(장소명, 주소 등)를 앞서 나온 것의 참조로 줄여 쓴다. CBOR는 키를 매번 쓰지만 파싱이 단순하다
+ */
+@Configuration
+@RequiredArgsConstructor
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+    /** 바이너리 형식으로 내보내는 응답 타입 (목록이면 원소 타입) */
+    static final Set<Class<?>> BINARY_TYPES = Set.of(
+            CardDto.class,
+            CardChangesDto.class,
+            CardSearchResult.class,
+            ChatMessageDto.class,
+            ChatSummaryDto.class
+    );
+
+    private final Jackson2ObjectMapperBuilder jacksonBuilder;
+
+    /**
+     * Spring MVC가 classpath를 보고 넣는 기본 CBOR/Smile 변환기(모든 타입 허용)를 빼고,
+     * 허용 목록만 쓰는 변환기를 JSON 바로 뒤에 둔다. Accept가 없거나 모든 형식을 받으면 JSON이 먼저 뽑힌다
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        int json = 0;
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                json = i + 1;
+                break;
+            }
+        }
+        converters.add(json, cborConverter(jacksonBuilder));
+        converters.add(json + 1, smileConverter(jacksonBuilder));
+    }
+
+    static MappingJackson2CborHttpMessageConverter cborConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory())) {
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+                return isBinaryType(type != null ? type : clazz) && super.canWrite(type, clazz, mediaType);
+            }
+        };
+    }
+
+    static MappingJackson2SmileHttpMessageConverter smileConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory())) {
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+                return isBinaryType(type != null ? type : clazz) && super.canWrite(type, clazz, mediaType);
+            }
+        };
+    }
+
+    /** JSON과 같은 설정(모듈, null 처리 등)에 시각만 epoch 밀리초로 */
+    static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder.build()
+                .copyWith(factory)
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .addMixIn(CardDto.class, CardDtoTimestamps.class);
+    }
+
+    /** List&lt;CardDto&gt; 같은 목록은 원소 타입으로 판단 */
+    static boolean isBinaryType(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (Collection.class.isAssignableFrom(resolved.toClass())) {
+            resolved = resolved.asCollection().getGeneric(0);
+        }
+        return BINARY_TYPES.contains(resolved.toClass());
+    }
+
+    /** CardDto의 JSON용 문자열 시각 지정(@JsonFormat STRING)을 바이너리에서만 덮어쓴다 */
+    private abstract static class CardDtoTimestamps {
+
+        @JsonFormat(shape = JsonFormat.Shape.NUMBER_INT)
+        private Instant createdAt;
+
+        @JsonFormat(shape = JsonFormat.Shape.NUMBER_INT)
+        private Instant updatedAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kbw.caplog.support;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 사용자별 목록 버전 (조건부 GET의 ETag 재료)
+ * - collection: CARDS, CHATS, FRIENDS, PROFILE, CARDS_PURGED(카드 삭제 기록을 정리한 변경 번호)
+ * - 그 목록의 응답이 달라질 수 있는 쓰기마다 같은 트랜잭션(또는 커밋 뒤)에서 1씩 올린다
+ * - 쓰기는 CollectionVersionRepository(JdbcTemplate 업서트)로만 한다
+ */
+@Entity
+@Table(name = "collection_version", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_collection_version_user_collection", columnNames = {"user_no", "collection"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_no", nullable = false)
+    private Long userNo;
+
+    @Column(name = "collection", nullable = false, length = 16)
+    private String collection;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
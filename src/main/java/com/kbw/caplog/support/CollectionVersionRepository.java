@@ -0,0 +1,110 @@
+package com.kbw.caplog.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 목록 버전(collection_version) 읽기·올리기
+ *
+ * <p>올리기는 INSERT ... ON DUPLICATE KEY UPDATE 업서트라 행이 없어도 먼저 읽지 않습니다.
+ * 여러 사용자를 올릴 때는 userNo 순으로 보내서 동시 쓰기끼리 잠금 순서가 엇갈리지 않게 합니다.
+ *
+ * <p>버전은 데이터보다 먼저 커밋되면 안 됩니다 (새 ETag에 옛 본문이 붙음).
+ * 그래서 데이터와 같은 트랜잭션에서, 트랜잭션이 없으면 데이터를 저장한 뒤에 올립니다.
+ *
+ * <p>CARDS 버전은 카드 델타 동기화의 변경 번호도 겸합니다. 올린 행은 커밋까지 잠겨 있어
+ * 같은 사용자의 카드 쓰기는 받은 번호 순서대로 커밋되고, 읽는 쪽이 본 버전 이하의 변경은 모두 보입니다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CollectionVersionRepository {
+
+    public static final String CARDS = "CARDS";
+    public static final String CHATS = "CHATS";
+    public static final String FRIENDS = "FRIENDS";
+    public static final String PROFILE = "PROFILE";
+    /** 보관 기간이 지나 지운 카드 삭제 기록 중 가장 큰 변경 번호. 이보다 앞선 커서는 전체 재동기화 */
+    public static final String CARDS_PURGED = "CARDS_PURGED";
+
+    private static final String BUMP_SQL = """
+            INSERT INTO collection_version (user_no, collection, version)
+            VALUES (?, ?, 1)
+            ON DUPLICATE KEY UPDATE version = version + 1
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 아직 한 번도 올린 적이 없으면 0 */
+    public long find(Long userNo, String collection) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM collection_version WHERE user_no = ? AND collection = ?",
+                Long.class, userNo, collection);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    public void bump(Long userNo, String collection) {
+        jdbcTemplate.update(BUMP_SQL, userNo, collection);
+    }
+
+    /** 올리고 올린 값을 반환한다. 쓰기 트랜잭션의 첫 문장으로 불러 그 트랜잭션의 변경 번호로 쓴다 */
+    public long bumpAndGet(Long userNo, String collection) {
+        bump(userNo, collection);
+        return find(userNo, collection);
+    }
+
+    /**
+     * 버전 행을 값은 그대로 둔 채 커밋까지 잠근다 (행이 없으면 0으로 만들어 잠근다).
+     * 카드 쓰기는 모두 CARDS 버전을 먼저 올리므로, 이 잠금을 쥔 트랜잭션과 같은 사용자의 카드 쓰기는 차례로 돈다
+     */
+    public void lock(Long userNo, String collection) {
+        jdbcTemplate.update("""
+                INSERT INTO collection_version (user_no, collection, version)
+                VALUES (?, ?, 0)
+                ON DUPLICATE KEY UPDATE version = version
+                """, userNo, collection);
+    }
+
+    /** 지금 값보다 클 때만 value로 올린다 */
+    public void raise(Long userNo, String collection, long value) {
+        jdbcTemplate.update("""
+                INSERT INTO collection_version (user_no, collection, version)
+                VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE version = GREATEST(version, ?)
+                """, userNo, collection, value, value);
+    }
+
+    public void bump(Collection<Long> userNos, String collection) {
+        List<Long> ordered = List.copyOf(new TreeSet<>(userNos));
+        if (ordered.isEmpty()) return;
+        jdbcTemplate.batchUpdate(BUMP_SQL, ordered, ordered.size(), (ps, userNo) -> {
+            ps.setLong(1, userNo);
+            ps.setString(2, collection);
+        });
+    }
+
+    /** 이 사용자의 이름이 보이는 목록: 친구들의 친구 목록 */
+    public void bumpFriendsOf(Long userNo) {
+        bump(jdbcTemplate.queryForList(
+                "SELECT friend_user_no FROM friendships WHERE owner_user_no = ?", Long.class, userNo), FRIENDS);
+    }
+
+    /** 이 사용자의 이름이 보이는 목록: 같은 방 사람들의 채팅방 목록(방 제목) */
+    public void bumpChatPartnersOf(Long userNo) {
+        bump(jdbcTemplate.queryForList("""
+                SELECT DISTINCT other.user_no
+                FROM chat_room_participants mine
+                JOIN chat_room_participants other ON other.chat_room_id = mine.chat_room_id
+                WHERE mine.user_no = ? AND other.user_no <> ?
+                """, Long.class, userNo, userNo), CHATS);
+    }
+
+    /** 회원 탈퇴용 */
+    public void deleteByUserNo(Long userNo) {
+        jdbcTemplate.update("DELETE FROM collection_version WHERE user_no = ?", userNo);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kbw.caplog.support;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * 조건부 GET (ETag / If-None-Match)
+ * - ETag = 사용자·목록 버전·쿼리 문자열·Accept로 만든 약한 태그. 본문을 만들기 전에 버전 한 줄만 읽는다
+ *   (같은 목록이라도 JSON과 CBOR/Smile은 본문이 달라 태그를 나눈다. Vary: Accept)
+ * - 클라이언트가 보낸 태그와 같으면 본문을 만들지 않고 304
+ * - Cache-Control: private, no-cache (저장은 하되 매번 재검증). 기본 보안 헤더(no-store)를 대신한다
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGet {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final CollectionVersionRepository versions;
+
+    public <T> ResponseEntity<T> respond(
+            HttpServletRequest request,
+            Long userNo,
+            String collection,
+            Supplier<T> body
+    ) {
+        String etag = etag(userNo, collection, versions.find(userNo, collection),
+                request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT));
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT).body(body.get());
+    }
+
+    static String etag(Long userNo, String collection, long version, String queryString, String accept) {
+        int variant = Objects.hash(queryString, accept);
+        return "W/\"" + collection.toLowerCase() + "-" + userNo + "-" + version + "-" + Integer.toHexString(variant) + "\"";
+    }
+
+    /** If-None-Match 목록 중 하나라도 같으면 (약한 비교, *는 항상 일치) */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        String opaque = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || opaque(trimmed).equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
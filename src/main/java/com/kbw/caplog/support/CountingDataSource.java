@@ -0,0 +1,103 @@
+package com.kbw.caplog.support;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC 실행마다 {@link QueryCounter}에 알리는 DataSource
+ *
+ * <p>Hibernate의 StatementInspector는 JdbcTemplate으로 보내는 SQL을 보지 못해서
+ * 요청이 실제로 보낸 문장 수보다 적게 셉니다. 연결·문장을 JDK 프록시로 감싸 execute* 호출을 셉니다.
+ *
+ * <p>연결을 빌릴 때 현재 스레드에 집계 구간이 없으면 감싸지 않습니다 (운영 경로는 그대로).
+ * 그래서 구간을 연 뒤에 빌린 연결만 셉니다. 요청 필터·MockMvc 요청은 구간 안에서 연결을 빌립니다.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+    public CountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        if (!QueryCounter.isActive()) return connection;
+        return (Connection) Proxy.newProxyInstance(
+                CountingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException error) {
+            throw error.getCause();
+        }
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result = CountingDataSource.invoke(target, method, args);
+            if (!(result instanceof Statement statement)) return result;
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return Proxy.newProxyInstance(
+                    CountingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private record StatementHandler(Statement target, String preparedSql) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate":
+                    QueryCounter.record(args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+                    break;
+                case "executeBatch", "executeLargeBatch":
+                    QueryCounter.record(preparedSql != null ? preparedSql : "(batch)");
+                    break;
+                default:
+                    break;
+            }
+            return CountingDataSource.invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.kbw.caplog.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL 수 집계 설정
+ * - DataSource 빈을 CountingDataSource로 감쌉니다. 집계 구간이 없으면 연결을 감싸지 않고 그대로 돌려줍니다.
+ * - X-Query-Count 헤더는 caplog.debug.query-count-header=true(dev 프로필)일 때만 붙입니다.
+ */
+@Configuration
+public class QueryCountConfig {
+
+    /** JPA·JdbcTemplate이 같은 (감싼) DataSource를 쓰도록 빈 자체를 바꿉니다. */
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+                    return new CountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "caplog.debug.query-count-header", havingValue = "true")
+    public FilterRegistrationBean<QueryCountHeaderFilter> queryCountHeaderFilter() {
+        FilterRegistrationBean<QueryCountHeaderFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountHeaderFilter());
+        registration.addUrlPatterns("/api/*");
+        // 인증 필터에서 보내는 SQL까지 세도록 Security 체인보다 먼저 실행
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
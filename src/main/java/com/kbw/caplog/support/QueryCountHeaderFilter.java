@@ -0,0 +1,89 @@
+package com.kbw.caplog.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * 개발용: 요청 하나가 보낸 SQL 수를 X-Query-Count 응답 헤더로 알려줍니다.
+ *
+ * <p>헤더는 본문을 쓰기 직전(커밋 전)에 붙입니다. 본문을 버퍼링하지 않으므로
+ * SSE 스트리밍 응답도 그대로 흘러갑니다. 비동기 응답(Mono, SSE)은 첫 스레드에서
+ * 보낸 SQL까지만 셉니다.
+ */
+public class QueryCountHeaderFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Query-Count";
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            CountingResponse counted = new CountingResponse(response, scope);
+            try {
+                filterChain.doFilter(request, counted);
+            } finally {
+                // 본문 없는 응답(204 등)은 여기서 붙입니다.
+                counted.writeHeader();
+            }
+        }
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private final QueryCounter.Scope scope;
+        private boolean written;
+
+        CountingResponse(HttpServletResponse response, QueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        void writeHeader() {
+            if (written || isCommitted()) return;
+            written = true;
+            setHeader(HEADER, String.valueOf(scope.count()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+    }
+}
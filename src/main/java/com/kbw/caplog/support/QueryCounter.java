@@ -0,0 +1,84 @@
+package com.kbw.caplog.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 실행한 SQL 수를 스레드별로 셉니다.
+ *
+ * <p>{@link #open()}으로 연 구간 안에서 같은 스레드가 보낸 문장만 집계합니다.
+ * 요청 단위 헤더({@link QueryCountHeaderFilter})와 테스트의 쿼리 예산 검사가 같은 카운터를 씁니다.
+ * 구간은 겹쳐 열 수 있고, 열린 구간이 없으면 ThreadLocal 조회 한 번으로 끝납니다.
+ *
+ * <p>집계는 {@link CountingDataSource}가 JDBC 실행마다 합니다. Hibernate와 JdbcTemplate(버전, 집계 업서트,
+ * 일괄 INSERT 등)을 가리지 않고 모두 셉니다. JDBC 배치는 executeBatch 한 번을 한 문장으로 셉니다.
+ */
+public final class QueryCounter {
+
+    /** 실패 메시지용으로 구간마다 보관할 최대 SQL 수 */
+    private static final int MAX_KEPT_STATEMENTS = 50;
+
+    private static final ThreadLocal<List<Scope>> ACTIVE = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    /** 현재 스레드에 열린 구간이 있는지 */
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+
+    /** 실행한 문장 하나를 열린 구간 모두에 더합니다. */
+    static void record(String sql) {
+        List<Scope> scopes = ACTIVE.get();
+        if (scopes != null) {
+            for (Scope scope : scopes) {
+                scope.record(sql);
+            }
+        }
+    }
+
+    /** 현재 스레드에서 집계를 시작합니다. try-with-resources로 닫으세요. */
+    public static Scope open() {
+        List<Scope> scopes = ACTIVE.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>(2);
+            ACTIVE.set(scopes);
+        }
+        Scope scope = new Scope();
+        scopes.add(scope);
+        return scope;
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private int count;
+        private final List<String> statements = new ArrayList<>();
+
+        private Scope() {
+        }
+
+        private void record(String sql) {
+            count++;
+            if (statements.size() < MAX_KEPT_STATEMENTS) statements.add(sql);
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /** 앞에서부터 최대 50개 */
+        public List<String> statements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        @Override
+        public void close() {
+            List<Scope> scopes = ACTIVE.get();
+            if (scopes == null) return;
+            scopes.remove(this);
+            if (scopes.isEmpty()) ACTIVE.remove();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.kbw.caplog.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * 외부 API 호출 시간 (caplog.upstream.requests)
+ * - tags: upstream(kakao, openai), operation, outcome(success, error, cancelled)
+ * - WebClient 자동 계측(http.client.requests)은 응답 헤더까지만 재므로,
+ *   본문·스트림이 끝날 때까지의 전체 시간은 여기서 잽니다.
+ * - 퍼센타일 히스토그램은 management.metrics.distribution 설정에서 켭니다.
+ * - 보내기 전 줄인 프롬프트 토큰(추정)은 caplog.upstream.prompt.tokens.saved에 요청마다 남깁니다.
+ */
+@Component
+public class UpstreamMetrics {
+
+    static final String TIMER = "caplog.upstream.requests";
+    static final String PROMPT_TOKENS_SAVED = "caplog.upstream.prompt.tokens.saved";
+
+    private final MeterRegistry registry;
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** 블로킹 호출 */
+    public <T> T time(String upstream, String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            T result = call.get();
+            stop(sample, upstream, operation, "success");
+            return result;
+        } catch (RuntimeException error) {
+            stop(sample, upstream, operation, "error");
+            throw error;
+        }
+    }
+
+    /** 구독부터 완료·오류·취소까지 */
+    public <T> Mono<T> time(String upstream, String operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(ignored -> stop(sample, upstream, operation, "success"))
+                    .doOnError(ignored -> stop(sample, upstream, operation, "error"))
+                    .doOnCancel(() -> stop(sample, upstream, operation, "cancelled"));
+        });
+    }
+
+    /** 구독부터 스트림 끝까지 */
+    public <T> Flux<T> time(String upstream, String operation, Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnComplete(() -> stop(sample, upstream, operation, "success"))
+                    .doOnError(ignored -> stop(sample, upstream, operation, "error"))
+                    .doOnCancel(() -> stop(sample, upstream, operation, "cancelled"));
+        });
+    }
+
+    /** 요청 하나에서 프롬프트를 줄여 아낀 추정 토큰 수. truncated는 예산을 넘겨 내용을 잘랐는지 */
+    public void recordPromptTokensSaved(String upstream, String operation, int savedTokens, boolean truncated) {
+        DistributionSummary.builder(PROMPT_TOKENS_SAVED)
+                .description("Estimated prompt tokens removed before sending")
+                .baseUnit("tokens")
+                .tag("upstream", upstream)
+                .tag("operation", operation)
+                .tag("truncated", String.valueOf(truncated))
+                .register(registry)
+                .record(savedTokens);
+    }
+
+    private void stop(Timer.Sample sample, String upstream, String operation, String outcome) {
+        sample.stop(Timer.builder(TIMER)
+                .description("External API call duration")
+                .tag("upstream", upstream)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+}
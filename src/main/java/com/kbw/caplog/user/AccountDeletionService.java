@@ -1,8 +1,11 @@
 package com.kbw.caplog.user;
 
 import com.kbw.caplog.auth.token.RefreshTokenRepository;
+import com.kbw.caplog.card.repository.CardFacetCountRepository;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
 import com.kbw.caplog.chat.ChatService;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import com.kbw.caplog.support.CollectionVersionRepository;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -23,9 +26,13 @@ public class AccountDeletionService {
 
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
+    private final FriendGraph friendGraph;
     private final RefreshTokenRepository refreshTokenRepository;
     private final ScreenshotRepository screenshotRepository;
+    private final CardTombstoneRepository cardTombstoneRepository;
+    private final CardFacetCountRepository cardFacetCountRepository;
     private final ChatService chatService;
+    private final CollectionVersionRepository collectionVersions;
     private final EntityManager entityManager;
 
     @Transactional
@@ -39,10 +46,16 @@ public class AccountDeletionService {
 
         // 2. 친구 관계: 관계는 양쪽 관점의 두 행으로 저장되므로 두 방향 모두 지웁니다.
         //    이걸 빠뜨리면 상대 친구 목록에 사라진 계정이 계속 남습니다.
+        //    지우기 전에 친구들의 목록 버전을 올려 캐시된 목록(ETag)이 다시 받아지게 합니다.
+        collectionVersions.bumpFriendsOf(userNo);
         friendshipRepository.deleteByOwnerUserNoOrFriendUserNo(userNo, userNo);
+        friendGraph.userRemoved(userNo);
 
-        // 3. 카드(스크린샷 레코드)
+        // 3. 카드(스크린샷 레코드), 델타 동기화용 삭제 기록, 카테고리·태그 집계, 목록 버전
         screenshotRepository.deleteByUserNo(userNo);
+        cardTombstoneRepository.deleteByUserNo(userNo);
+        cardFacetCountRepository.deleteByUserNo(userNo);
+        collectionVersions.deleteByUserNo(userNo);
 
         // 4. 업로드 파일 기록. JPA 엔티티가 없는 테이블이라 네이티브 쿼리로 지웁니다.
         entityManager.createNativeQuery("DELETE FROM screenshot_file WHERE user_id = :userNo")
@@ -0,0 +1,53 @@
+package com.kbw.caplog.user;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.kbw.caplog.support.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 사용자별 친구 userNo 집합 캐시
+ * - 채팅방 만들기·카드 공유처럼 "이 사람이 내 친구인가"만 확인하는 흐름이 DB를 다시 읽지 않게 한다
+ * - 친구 추가·삭제는 커밋된 뒤 양쪽 사용자 항목을 지운다. 커밋 전에 지우면 그 사이 다른 요청이
+ *   바뀌기 전 목록을 다시 채워 넣을 수 있다
+ * - 다른 인스턴스에서 바뀐 관계는 TTL 안에서 늦게 보일 수 있다
+ * - cache.gets{cache=friendDirectory} 등 Caffeine 통계로 적중률을 본다
+ */
+@Component
+public class FriendDirectory {
+
+    static final Duration TTL = Duration.ofMinutes(10);
+    static final int MAX_ENTRIES = 50_000;
+
+    private final LoadingCache<Long, Set<Long>> friendUserNos;
+
+    public FriendDirectory(FriendshipRepository friendshipRepository, MeterRegistry registry) {
+        this.friendUserNos = Caffeine.newBuilder()
+                .expireAfterWrite(TTL)
+                .maximumSize(MAX_ENTRIES)
+                .recordStats()
+                .build(userNo -> Set.copyOf(friendshipRepository.findFriendUserNos(userNo)));
+        CaffeineCacheMetrics.monitor(registry, friendUserNos, "friendDirectory");
+    }
+
+    public Set<Long> friendUserNos(Long userNo) {
+        return friendUserNos.get(userNo);
+    }
+
+    public boolean isFriend(Long userNo, Long otherUserNo) {
+        return friendUserNos(userNo).contains(otherUserNo);
+    }
+
+    /** 트랜잭션 안이면 커밋 뒤에, 아니면 바로 지운다. */
+    public void invalidate(Long userNo, Long otherUserNo) {
+        AfterCommit.run(() -> {
+            friendUserNos.invalidate(userNo);
+            friendUserNos.invalidate(otherUserNo);
+        });
+    }
+}
@@ -0,0 +1,293 @@
+package com.kbw.caplog.user;
+
+import com.kbw.caplog.support.AfterCommit;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 인메모리 친구 그래프 (친구 추천용)
+ * - userNo → 친구 userNo 집합(RoaringBitmap). friendships 100만 행이면 수십 MB
+ * - 서버가 뜨면 friendships를 id 순으로 나눠 읽어 백그라운드 스레드에서 만든다. 그 전에 온 추천 요청은
+ *   요청 스레드에서 만들지 않고 그 작업을 기다린다
+ * - 잠금은 synchronized 대신 ReentrantLock이고 짧은 목록·참조 교체만 감싼다 (가상 스레드가 캐리어 스레드를 붙잡지 않게)
+ * - 친구 추가·삭제·탈퇴는 커밋된 뒤 바로 반영한다. 비트맵은 바꾸지 않고 복사본으로 갈아 끼우므로
+ *   읽는 쪽은 잠그지 않는다
+ * - 다른 인스턴스에서 바뀐 관계는 REBUILD_INTERVAL마다 백그라운드에서 다시 만들어 따라잡는다.
+ *   다시 만드는 동안 들어온 변경은 모아 뒀다가 새 그래프에 이어 붙인다
+ */
+@Component
+public class FriendGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(FriendGraph.class);
+
+    static final Duration REBUILD_INTERVAL = Duration.ofMinutes(15);
+    static final int LOAD_BATCH = 50_000;
+
+    /** 함께 아는 친구 수 */
+    public record Suggestion(long userNo, int mutualFriends) {
+    }
+
+    private record Change(int userNo, int otherUserNo, boolean added) {
+    }
+
+    private record Adjacency(Map<Integer, RoaringBitmap> friends, long builtAtNanos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "friend-graph-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Adjacency adjacency;
+    /** 첫 그래프를 만드는 중인 작업. 끝나면 비운다 (실패했으면 다음 요청이 다시 시작). lock으로 보호 */
+    private CompletableFuture<Adjacency> firstBuild;
+    /** 다시 만드는 중일 때만 null이 아님. lock으로 보호 */
+    private List<Change> pending;
+
+    public FriendGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 첫 추천 요청이 그래프를 기다리지 않도록 서버가 뜨자마자 만들기 시작한다 */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        startFirstBuild();
+    }
+
+    /** 친구 추가 (커밋 뒤 반영) */
+    public void friendshipAdded(Long userNo, Long friendUserNo) {
+        AfterCommit.run(() -> apply(List.of(
+                new Change(toInt(userNo), toInt(friendUserNo), true),
+                new Change(toInt(friendUserNo), toInt(userNo), true)
+        )));
+    }
+
+    /** 친구 삭제 (커밋 뒤 반영) */
+    public void friendshipRemoved(Long userNo, Long friendUserNo) {
+        AfterCommit.run(() -> apply(List.of(
+                new Change(toInt(userNo), toInt(friendUserNo), false),
+                new Change(toInt(friendUserNo), toInt(userNo), false)
+        )));
+    }
+
+    /** 회원 탈퇴 (커밋 뒤 반영). 그 사용자와 이어진 간선을 모두 지운다 */
+    public void userRemoved(Long userNo) {
+        AfterCommit.run(() -> {
+            int user = toInt(userNo);
+            Adjacency current = adjacency;
+            RoaringBitmap friends = current != null ? current.friends().get(user) : null;
+            if (friends == null) return;
+            List<Change> changes = new ArrayList<>();
+            friends.forEach((int friend) -> {
+                changes.add(new Change(user, friend, false));
+                changes.add(new Change(friend, user, false));
+            });
+            apply(changes);
+        });
+    }
+
+    /**
+     * 친구의 친구 중 아직 친구가 아닌 사람을 함께 아는 친구 수 내림차순(같으면 userNo 오름차순)으로 limit명
+     * - 후보 = 내 친구들의 친구 집합 합집합 - 내 친구 - 나
+     * - 후보마다 |후보의 친구 ∩ 내 친구|를 세고 크기 limit 힙으로 상위만 남긴다
+     */
+    public List<Suggestion> suggest(Long userNo, int limit) {
+        Map<Integer, RoaringBitmap> graph = current().friends();
+        int user = toInt(userNo);
+        RoaringBitmap mine = graph.get(user);
+        if (mine == null || mine.isEmpty() || limit <= 0) return List.of();
+
+        RoaringBitmap candidates = RoaringBitmap.or(mine.stream()
+                .mapToObj(graph::get)
+                .filter(friends -> friends != null)
+                .iterator());
+        candidates.andNot(mine);
+        candidates.remove(user);
+
+        Comparator<Suggestion> weakestFirst = Comparator.comparingInt(Suggestion::mutualFriends)
+                .thenComparing(Comparator.comparingLong(Suggestion::userNo).reversed());
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(limit + 1, weakestFirst);
+        candidates.forEach((int candidate) -> {
+            RoaringBitmap theirs = graph.get(candidate);
+            if (theirs == null) return;
+            Suggestion suggestion = new Suggestion(candidate, RoaringBitmap.andCardinality(theirs, mine));
+            if (top.size() < limit) {
+                top.add(suggestion);
+            } else if (weakestFirst.compare(suggestion, top.peek()) > 0) {
+                top.poll();
+                top.add(suggestion);
+            }
+        });
+
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(weakestFirst.reversed());
+        return result;
+    }
+
+    private Adjacency current() {
+        Adjacency current = adjacency;
+        if (current == null) {
+            try {
+                return startFirstBuild().join();
+            } catch (CompletionException error) {
+                throw error.getCause() instanceof RuntimeException cause ? cause : error;
+            }
+        }
+        if (System.nanoTime() - current.builtAtNanos() > REBUILD_INTERVAL.toNanos()) {
+            lock.lock();
+            try {
+                if (pending == null) {
+                    pending = new ArrayList<>();
+                    rebuilder.execute(this::rebuild);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /** 첫 그래프 작업을 rebuilder 스레드에 한 번만 맡기고 그 작업을 돌려준다 */
+    private CompletableFuture<Adjacency> startFirstBuild() {
+        lock.lock();
+        try {
+            if (adjacency != null) return CompletableFuture.completedFuture(adjacency);
+            if (firstBuild != null) return firstBuild;
+            CompletableFuture<Adjacency> build = CompletableFuture.supplyAsync(() -> {
+                rebuild();
+                return adjacency;
+            }, rebuilder);
+            firstBuild = build;
+            build.whenComplete((built, error) -> {
+                lock.lock();
+                try {
+                    if (firstBuild == build) firstBuild = null;
+                } finally {
+                    lock.unlock();
+                }
+            });
+            return build;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** friendships 전체를 다시 읽는다. 읽는 동안 커밋된 변경은 pending에 모였다가 마지막에 덧붙는다 */
+    private void rebuild() {
+        lock.lock();
+        try {
+            if (pending == null) pending = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            long started = System.nanoTime();
+            Map<Integer, RoaringBitmap> friends = load();
+            lock.lock();
+            try {
+                for (Change change : pending) {
+                    applyTo(friends, change);
+                }
+                adjacency = new Adjacency(friends, System.nanoTime());
+            } finally {
+                lock.unlock();
+            }
+            log.info("friend graph built: {} users in {} ms",
+                    friends.size(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+        } catch (RuntimeException error) {
+            log.warn("friend graph rebuild failed", error);
+            if (adjacency == null) throw error;
+            lock.lock();
+            try {
+                // 지금 그래프로 한 주기 더 버틴다 (요청마다 다시 시도하지 않도록)
+                adjacency = new Adjacency(adjacency.friends(), System.nanoTime());
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            lock.lock();
+            try {
+                pending = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    Map<Integer, RoaringBitmap> load() {
+        Map<Integer, RoaringBitmap> friends = new ConcurrentHashMap<>();
+        long[] lastId = {0};
+        int read;
+        do {
+            int[] rows = {0};
+            jdbcTemplate.query(
+                    "SELECT id, owner_user_no, friend_user_no FROM friendships WHERE id > ? ORDER BY id LIMIT ?",
+                    rs -> {
+                        lastId[0] = rs.getLong(1);
+                        friends.computeIfAbsent(toInt(rs.getLong(2)), ignored -> new RoaringBitmap())
+                                .add(toInt(rs.getLong(3)));
+                        rows[0]++;
+                    },
+                    lastId[0], LOAD_BATCH);
+            read = rows[0];
+        } while (read == LOAD_BATCH);
+        friends.values().forEach(RoaringBitmap::runOptimize);
+        return friends;
+    }
+
+    /** 미리 만든 그래프로 시작 (벤치마크·테스트용) */
+    void replace(Map<Integer, RoaringBitmap> friends) {
+        adjacency = new Adjacency(new ConcurrentHashMap<>(friends), System.nanoTime());
+    }
+
+    private void apply(List<Change> changes) {
+        lock.lock();
+        try {
+            Adjacency current = adjacency;
+            for (Change change : changes) {
+                if (current != null) applyTo(current.friends(), change);
+                if (pending != null) pending.add(change);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 비트맵을 복사해 바꾼 뒤 갈아 끼운다. 이미 공개된 비트맵은 건드리지 않는다 */
+    private static void applyTo(Map<Integer, RoaringBitmap> friends, Change change) {
+        friends.compute(change.userNo(), (ignored, existing) -> {
+            RoaringBitmap next = existing != null ? existing.clone() : new RoaringBitmap();
+            if (change.added()) {
+                next.add(change.otherUserNo());
+            } else {
+                next.remove(change.otherUserNo());
+            }
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    private static int toInt(long userNo) {
+        return Math.toIntExact(userNo);
+    }
+}
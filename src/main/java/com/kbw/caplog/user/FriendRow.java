@@ -0,0 +1,12 @@
+package com.kbw.caplog.user;
+
+/**
+ * 친구 목록 한 줄. FriendDto에 필요한 열만 읽는다 (User 엔티티 전체·비밀번호 해시는 읽지 않음)
+ * - name: 이름이 없으면 userId (정렬 키와 같은 값)
+ */
+public interface FriendRow {
+
+    String getUserId();
+
+    String getName();
+}
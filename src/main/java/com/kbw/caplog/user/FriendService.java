@@ -1,78 +1,130 @@
 package com.kbw.caplog.user;
 
+import com.kbw.caplog.support.CollectionVersionRepository;
 import com.kbw.caplog.user.dto.AddFriendRequest;
 import com.kbw.caplog.user.dto.FriendDto;
+import com.kbw.caplog.user.dto.FriendSuggestionDto;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class FriendService {
 
+    static final int MAX_PAGE_SIZE = 200;
+    static final int DEFAULT_SUGGESTIONS = 20;
+    static final int MAX_SUGGESTIONS = 50;
+    /** 교착으로 롤백된 친구 추가를 다시 해 보는 최대 횟수 (첫 시도 포함) */
+    static final int ADD_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(FriendService.class);
+
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
+    private final FriendDirectory friendDirectory;
+    private final FriendGraph friendGraph;
+    private final CollectionVersionRepository collectionVersions;
+    private final TransactionTemplate transactionTemplate;
 
-    public List<FriendDto> getFriends(Long ownerUserNo) {
-        return friendshipRepository.findByOwnerUserNo(ownerUserNo).stream()
-                .map(Friendship::getFriend)
-                .filter(f -> f != null)
-                .map(FriendDto::from)
-                .sorted((left, right) -> left.getName().compareToIgnoreCase(right.getName()))
-                .collect(Collectors.toList());
+    /**
+     * 친구 목록 (이름순, DB에서 정렬)
+     * - after: 직전 페이지 마지막 친구 id(userId). 없으면 첫 페이지
+     * - limit: 최대 MAX_PAGE_SIZE. 0 이하이면 MAX_PAGE_SIZE
+     * - after와 limit이 둘 다 없으면 전체 목록 (페이지를 모르는 예전 클라이언트용)
+     */
+    public List<FriendDto> getFriends(Long ownerUserNo, String after, int limit) {
+        boolean firstPage = after == null || after.isBlank();
+        Limit pageSize = limit > 0 ? Limit.of(Math.min(limit, MAX_PAGE_SIZE))
+                : firstPage ? Limit.unlimited() : Limit.of(MAX_PAGE_SIZE);
+        List<FriendRow> rows = firstPage
+                ? friendshipRepository.findFriendPage(ownerUserNo, pageSize)
+                : friendshipRepository.findFriendPageAfter(ownerUserNo, after.trim(), pageSize);
+        return rows.stream()
+                .map(row -> FriendDto.of(row.getUserId(), row.getName()))
+                .toList();
     }
 
-    @Transactional
+    /**
+     * 친구 추가 (멱등)
+     * - 이미 친구여도, 한쪽 행만 남아 있어도 성공하며 빠진 행만 채워집니다.
+     * - 양방향 행은 INSERT ... ON DUPLICATE KEY 한 문장으로 넣어, 동시 요청이 유니크 제약에 걸리지 않습니다.
+     * - 두 행은 번호 순으로 넣어 A→B와 B→A가 서로 막지 않지만, InnoDB는 옆 키에 동시에 들어오는 다른 친구 관계와
+     *   간격(gap) 잠금이 엇갈려도 교착을 냅니다. 교착이면 트랜잭션 전체가 롤백되므로 새 트랜잭션으로
+     *   ADD_ATTEMPTS번까지 다시 합니다. 추가는 멱등이라 다시 해도 결과가 같습니다.
+     */
     public FriendDto addFriend(Long ownerUserNo, AddFriendRequest request) {
         if (request.getUserId() == null || request.getUserId().isBlank()) {
             throw new IllegalArgumentException("userId is required");
         }
-        User owner = userRepository.findById(ownerUserNo)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
         User friendUser = userRepository.findByUserId(request.getUserId().trim())
                 .orElseThrow(() -> new IllegalArgumentException("Friend user not found: " + request.getUserId()));
 
-        if (owner.getUserNo().equals(friendUser.getUserNo())) {
+        if (ownerUserNo.equals(friendUser.getUserNo())) {
             throw new IllegalArgumentException("Cannot add yourself as friend");
         }
-        boolean ownerHasFriend = friendshipRepository.existsByOwnerUserNoAndFriendUserNo(
-                ownerUserNo,
-                friendUser.getUserNo()
-        );
-        boolean friendHasOwner = friendshipRepository.existsByOwnerUserNoAndFriendUserNo(
-                friendUser.getUserNo(),
-                ownerUserNo
-        );
-        if (ownerHasFriend && friendHasOwner) {
-            throw new IllegalArgumentException("Already friends");
-        }
-
-        if (!ownerHasFriend) {
-            friendshipRepository.save(Friendship.builder()
-                    .ownerUserNo(ownerUserNo)
-                    .friendUserNo(friendUser.getUserNo())
-                    .build());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    friendshipRepository.insertBothIgnoringExisting(ownerUserNo, friendUser.getUserNo());
+                    friendDirectory.invalidate(ownerUserNo, friendUser.getUserNo());
+                    friendGraph.friendshipAdded(ownerUserNo, friendUser.getUserNo());
+                    collectionVersions.bump(List.of(ownerUserNo, friendUser.getUserNo()), CollectionVersionRepository.FRIENDS);
+                });
+                return FriendDto.from(friendUser);
+            } catch (PessimisticLockingFailureException error) {
+                if (attempt == ADD_ATTEMPTS) throw error;
+                log.info("친구 추가 교착, 다시 시도 (userNo={}, friendUserNo={}, attempt={})",
+                        ownerUserNo, friendUser.getUserNo(), attempt);
+            }
         }
-        if (!friendHasOwner) {
-            friendshipRepository.save(Friendship.builder()
-                    .ownerUserNo(friendUser.getUserNo())
-                    .friendUserNo(ownerUserNo)
-                    .build());
-        }
-        return FriendDto.from(friendUser);
     }
 
     @Transactional
     public void removeFriend(Long ownerUserNo, String friendUserId) {
         User friendUser = userRepository.findByUserId(friendUserId)
                 .orElseThrow(() -> new IllegalArgumentException("Friend user not found: " + friendUserId));
-        if (!friendshipRepository.existsByOwnerUserNoAndFriendUserNo(ownerUserNo, friendUser.getUserNo())) {
+        if (friendshipRepository.deleteBoth(ownerUserNo, friendUser.getUserNo()) == 0) {
             throw new IllegalArgumentException("Friendship not found");
         }
-        friendshipRepository.deleteByOwnerUserNoAndFriendUserNo(ownerUserNo, friendUser.getUserNo());
-        friendshipRepository.deleteByOwnerUserNoAndFriendUserNo(friendUser.getUserNo(), ownerUserNo);
+        friendDirectory.invalidate(ownerUserNo, friendUser.getUserNo());
+        friendGraph.friendshipRemoved(ownerUserNo, friendUser.getUserNo());
+        collectionVersions.bump(List.of(ownerUserNo, friendUser.getUserNo()), CollectionVersionRepository.FRIENDS);
+    }
+
+    /**
+     * 친구 추천: 친구의 친구를 함께 아는 친구 수 순으로 (FriendGraph, 메모리에서 계산)
+     * - DB는 추천된 사람들의 이름을 읽을 때 한 번만 간다
+     */
+    public List<FriendSuggestionDto> suggestFriends(Long ownerUserNo, int limit) {
+        int size = limit > 0 ? Math.min(limit, MAX_SUGGESTIONS) : DEFAULT_SUGGESTIONS;
+        List<FriendGraph.Suggestion> suggestions = friendGraph.suggest(ownerUserNo, size);
+        if (suggestions.isEmpty()) return List.of();
+
+        Map<Long, UserNameRow> users = userRepository.findNameRows(
+                suggestions.stream().map(FriendGraph.Suggestion::userNo).toList()
+        ).stream().collect(Collectors.toMap(UserNameRow::getUserNo, Function.identity()));
+        return suggestions.stream()
+                .filter(suggestion -> users.containsKey(suggestion.userNo()))
+                .map(suggestion -> {
+                    UserNameRow user = users.get(suggestion.userNo());
+                    return FriendSuggestionDto.builder()
+                            .id(user.getUserId())
+                            .name(user.getName())
+                            .avatarUrl(null)
+                            .mutualFriends(suggestion.mutualFriends())
+                            .build();
+                })
+                .toList();
     }
 }
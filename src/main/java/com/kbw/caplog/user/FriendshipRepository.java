@@ -1,6 +1,8 @@
 package com.kbw.caplog.user;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -9,14 +11,66 @@ import java.util.Optional;
 
 public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
 
-    @Query("SELECT f FROM Friendship f JOIN FETCH f.friend WHERE f.ownerUserNo = :ownerUserNo")
-    List<Friendship> findByOwnerUserNo(@Param("ownerUserNo") Long ownerUserNo);
+    /**
+     * 친구 목록 첫 페이지. 이름(없으면 userId) → userId 순.
+     * (owner_user_no, friend_user_no) 유니크 인덱스로 내 관계만 훑고 users는 PK로 붙인다
+     */
+    @Query("""
+            SELECT u.userId AS userId, COALESCE(u.name, u.userId) AS name
+            FROM Friendship f JOIN f.friend u
+            WHERE f.ownerUserNo = :ownerUserNo
+            ORDER BY COALESCE(u.name, u.userId), u.userId
+            """)
+    List<FriendRow> findFriendPage(@Param("ownerUserNo") Long ownerUserNo, Limit limit);
+
+    /**
+     * 다음 페이지: 직전 페이지 마지막 친구(after, userId)보다 뒤. 정렬 키는 서브쿼리로 읽어 왕복을 늘리지 않는다.
+     * after가 없는 사용자면 빈 목록
+     */
+    @Query("""
+            SELECT u.userId AS userId, COALESCE(u.name, u.userId) AS name
+            FROM Friendship f JOIN f.friend u
+            WHERE f.ownerUserNo = :ownerUserNo
+              AND (COALESCE(u.name, u.userId) > (SELECT COALESCE(a.name, a.userId) FROM User a WHERE a.userId = :after)
+                OR (COALESCE(u.name, u.userId) = (SELECT COALESCE(a.name, a.userId) FROM User a WHERE a.userId = :after)
+                    AND u.userId > :after))
+            ORDER BY COALESCE(u.name, u.userId), u.userId
+            """)
+    List<FriendRow> findFriendPageAfter(
+            @Param("ownerUserNo") Long ownerUserNo,
+            @Param("after") String after,
+            Limit limit
+    );
+
+    @Query("SELECT f.friendUserNo FROM Friendship f WHERE f.ownerUserNo = :ownerUserNo")
+    List<Long> findFriendUserNos(@Param("ownerUserNo") Long ownerUserNo);
 
     Optional<Friendship> findByOwnerUserNoAndFriendUserNo(Long ownerUserNo, Long friendUserNo);
 
-    void deleteByOwnerUserNoAndFriendUserNo(Long ownerUserNo, Long friendUserNo);
+    /**
+     * 양방향 두 행을 한 문장으로 넣습니다. 이미 있는 행은 건드리지 않으므로(no-op UPDATE)
+     * 반복·동시 호출해도 유니크 제약 오류 없이 같은 결과가 됩니다.
+     * INSERT IGNORE는 외래 키 오류까지 경고로 삼키므로 쓰지 않습니다.
+     * 행은 누가 추가하든 (작은 번호, 큰 번호) → (큰 번호, 작은 번호) 순으로 넣어, A→B와 B→A가 동시에 와도
+     * 같은 순서로 잠급니다 (요청 순서대로 넣으면 서로 상대가 먼저 잡은 행을 기다리며 교착된다).
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO friendships (owner_user_no, friend_user_no)
+            VALUES (LEAST(:userNo, :friendUserNo), GREATEST(:userNo, :friendUserNo)),
+                   (GREATEST(:userNo, :friendUserNo), LEAST(:userNo, :friendUserNo))
+            ON DUPLICATE KEY UPDATE friend_user_no = friend_user_no
+            """, nativeQuery = true)
+    void insertBothIgnoringExisting(@Param("userNo") Long userNo, @Param("friendUserNo") Long friendUserNo);
 
-    boolean existsByOwnerUserNoAndFriendUserNo(Long ownerUserNo, Long friendUserNo);
+    /** 양방향 두 행을 한 문장으로 지우고, 지운 행 수를 반환합니다. */
+    @Modifying
+    @Query("""
+            DELETE FROM Friendship f
+            WHERE (f.ownerUserNo = :userNo AND f.friendUserNo = :friendUserNo)
+               OR (f.ownerUserNo = :friendUserNo AND f.friendUserNo = :userNo)
+            """)
+    int deleteBoth(@Param("userNo") Long userNo, @Param("friendUserNo") Long friendUserNo);
 
     /** 회원 탈퇴용. 내가 가진 관계와 남이 나를 가진 관계를 한 번에 지웁니다. */
     void deleteByOwnerUserNoOrFriendUserNo(Long ownerUserNo, Long friendUserNo);
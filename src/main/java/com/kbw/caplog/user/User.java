@@ -6,7 +6,10 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    // 사용자 검색(이름 앞부분 일치). user_id는 유니크 인덱스가 이미 있음
+    @Index(name = "idx_users_name", columnList = "name")
+})
 @Getter
 @Setter
 @Builder
@@ -1,22 +1,29 @@
 package com.kbw.caplog.user;
 
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.support.ConditionalGet;
 import com.kbw.caplog.user.dto.AddFriendRequest;
 import com.kbw.caplog.user.dto.FriendDto;
+import com.kbw.caplog.user.dto.FriendSuggestionDto;
 import com.kbw.caplog.user.dto.UpdateProfileRequest;
 import com.kbw.caplog.user.dto.UserProfileDto;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 사용자 프로필 및 친구 API (JWT Bearer 필요)
  * - GET /api/users/me: 내 프로필 조회
  * - PUT /api/users/me: 프로필 수정
  * - DELETE /api/users/me: 회원 탈퇴 (계정과 연관 데이터 삭제)
- * - GET /api/users/friends: 친구 목록
+ * - GET /api/users/search?prefix=: 사용자 검색 (userId·이름 앞부분 일치, 자동완성용)
+ * - GET /api/users/friends: 친구 목록 (이름순, ?after=&limit= keyset 페이지네이션)
+ * - GET /api/users/friends/suggestions: 친구 추천 (친구의 친구, 함께 아는 친구 수 순)
  * - POST /api/users/friends: 친구 추가 (body: { "userId": "친구userId" })
  * - DELETE /api/users/friends/{userId}: 친구 삭제
  */
@@ -28,16 +35,19 @@ public class UserController {
     private final UserRepository userRepository;
     private final FriendService friendService;
     private final AccountDeletionService accountDeletionService;
+    private final UserSearchService userSearchService;
+    private final CollectionVersionRepository collectionVersions;
+    private final ConditionalGet conditionalGet;
 
     @GetMapping("/me")
-    public ResponseEntity<UserProfileDto> getMe(Authentication auth) {
+    public ResponseEntity<UserProfileDto> getMe(Authentication auth, HttpServletRequest request) {
         String email = auth != null ? auth.getName() : null;
         if (email == null || email.isBlank()) {
             return ResponseEntity.status(401).build();
         }
         return userRepository.findByEmail(email)
-                .map(UserProfileDto::from)
-                .map(ResponseEntity::ok)
+                .map(user -> conditionalGet.respond(request, user.getUserNo(), CollectionVersionRepository.PROFILE,
+                        () -> UserProfileDto.from(user)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -52,10 +62,18 @@ public class UserController {
         }
         return userRepository.findByEmail(email)
                 .map(user -> {
+                    String previousName = user.getName();
                     if (request.getNickname() != null) user.setName(request.getNickname());
                     if (request.getGender() != null) user.setGender(request.getGender());
                     if (request.getBirthday() != null) user.setBirthday(request.getBirthday());
-                    return userRepository.save(user);
+                    User saved = userRepository.save(user);
+                    collectionVersions.bump(saved.getUserNo(), CollectionVersionRepository.PROFILE);
+                    if (!Objects.equals(previousName, saved.getName())) {
+                        // 이름은 친구들의 친구 목록과 같은 방 사람들의 방 제목에도 보인다
+                        collectionVersions.bumpFriendsOf(saved.getUserNo());
+                        collectionVersions.bumpChatPartnersOf(saved.getUserNo());
+                    }
+                    return saved;
                 })
                 .map(UserProfileDto::from)
                 .map(ResponseEntity::ok)
@@ -74,11 +92,50 @@ public class UserController {
         }
     }
 
+    /**
+     * 사용자 검색. prefix는 2~50자, 아니면 400. 나 자신은 빠진다
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<FriendDto>> searchUsers(
+            Authentication auth,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        Long userNo = resolveUserNo(auth);
+        if (userNo == null) return ResponseEntity.status(401).build();
+        try {
+            return ResponseEntity.ok(userSearchService.search(userNo, prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 친구 목록. 다음 페이지는 이전 응답 마지막 친구 id를 after로 넘겨 조회
+     * - after와 limit을 둘 다 안 보내면 전체 목록 (페이지를 모르는 iOS 클라이언트)
+     * - ETag를 보내고, If-None-Match가 같으면 목록을 읽지 않고 304
+     */
     @GetMapping("/friends")
-    public ResponseEntity<List<FriendDto>> getFriends(Authentication auth) {
+    public ResponseEntity<List<FriendDto>> getFriends(
+            Authentication auth,
+            HttpServletRequest request,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "0") int limit
+    ) {
+        Long userNo = resolveUserNo(auth);
+        if (userNo == null) return ResponseEntity.status(401).build();
+        return conditionalGet.respond(request, userNo, CollectionVersionRepository.FRIENDS,
+                () -> friendService.getFriends(userNo, after, limit));
+    }
+
+    @GetMapping("/friends/suggestions")
+    public ResponseEntity<List<FriendSuggestionDto>> getFriendSuggestions(
+            Authentication auth,
+            @RequestParam(defaultValue = "20") int limit
+    ) {
         Long userNo = resolveUserNo(auth);
         if (userNo == null) return ResponseEntity.status(401).build();
-        return ResponseEntity.ok(friendService.getFriends(userNo));
+        return ResponseEntity.ok(friendService.suggestFriends(userNo, limit));
     }
 
     @PostMapping("/friends")
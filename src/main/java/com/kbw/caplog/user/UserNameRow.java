@@ -0,0 +1,14 @@
+package com.kbw.caplog.user;
+
+/**
+ * 다른 사용자를 보여 줄 때 필요한 열만 (비밀번호 해시·이메일은 읽지 않음)
+ * - name: 이름이 없으면 userId
+ */
+public interface UserNameRow {
+
+    Long getUserNo();
+
+    String getUserId();
+
+    String getName();
+}
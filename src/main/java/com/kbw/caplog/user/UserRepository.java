@@ -1,8 +1,13 @@
 package com.kbw.caplog.user;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +20,36 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     boolean existsByUserId(String userId);
+
+    @Query("SELECT u.userNo AS userNo, u.userId AS userId, COALESCE(u.name, u.userId) AS name FROM User u WHERE u.userNo IN :userNos")
+    List<UserNameRow> findNameRows(@Param("userNos") Collection<Long> userNos);
+
+    @Query("SELECT u.userNo AS userNo, u.userId AS userId, COALESCE(u.name, u.userId) AS name FROM User u WHERE u.userId IN :userIds")
+    List<UserNameRow> findNameRowsByUserIds(@Param("userIds") Collection<String> userIds);
+
+    /** userId 앞부분 일치 (user_id 유니크 인덱스 범위 스캔). pattern은 '!'로 이스케이프한 'abc%' */
+    @Query("""
+            SELECT u.userNo AS userNo, u.userId AS userId, COALESCE(u.name, u.userId) AS name
+            FROM User u
+            WHERE u.userId LIKE :pattern ESCAPE '!' AND u.userNo <> :excludeUserNo
+            ORDER BY u.userId
+            """)
+    List<UserNameRow> findUserIdPrefixMatches(
+            @Param("pattern") String pattern,
+            @Param("excludeUserNo") Long excludeUserNo,
+            Limit limit
+    );
+
+    /** 이름 앞부분 일치 (idx_users_name 범위 스캔) */
+    @Query("""
+            SELECT u.userNo AS userNo, u.userId AS userId, u.name AS name
+            FROM User u
+            WHERE u.name LIKE :pattern ESCAPE '!' AND u.userNo <> :excludeUserNo
+            ORDER BY u.name, u.userId
+            """)
+    List<UserNameRow> findNamePrefixMatches(
+            @Param("pattern") String pattern,
+            @Param("excludeUserNo") Long excludeUserNo,
+            Limit limit
+    );
 }
@@ -0,0 +1,65 @@
+package com.kbw.caplog.user;
+
+import com.kbw.caplog.user.dto.FriendDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 사용자 검색 (공유 시트 사람 고르기·친구 추가 자동완성)
+ * - userId 앞부분 일치를 먼저, 그다음 이름 앞부분 일치를 채운다. 두 쿼리 모두 인덱스 범위 스캔이고
+ *   OR 한 쿼리로 묶으면 인덱스를 못 타서 나눴다
+ * - 응답은 FriendDto 필드(id, name)만. 요청 빈도는 RequestRateLimitFilter(user-search)가 제한한다
+ */
+@Service
+@RequiredArgsConstructor
+public class UserSearchService {
+
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_LENGTH = 50;
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 20;
+
+    private final UserRepository userRepository;
+
+    public List<FriendDto> search(Long currentUserNo, String prefix, int limit) {
+        String trimmed = prefix != null ? prefix.trim() : "";
+        if (trimmed.length() < MIN_PREFIX_LENGTH || trimmed.length() > MAX_PREFIX_LENGTH) {
+            throw new IllegalArgumentException("prefix must be " + MIN_PREFIX_LENGTH + "-" + MAX_PREFIX_LENGTH + " characters");
+        }
+        int size = limit > 0 ? Math.min(limit, MAX_LIMIT) : DEFAULT_LIMIT;
+        String pattern = likePrefix(trimmed);
+
+        List<FriendDto> result = new ArrayList<>(size);
+        Set<Long> seen = new HashSet<>();
+        for (UserNameRow row : userRepository.findUserIdPrefixMatches(pattern, currentUserNo, Limit.of(size))) {
+            seen.add(row.getUserNo());
+            result.add(FriendDto.of(row.getUserId(), row.getName()));
+        }
+        if (result.size() < size) {
+            for (UserNameRow row : userRepository.findNamePrefixMatches(pattern, currentUserNo, Limit.of(size))) {
+                if (result.size() == size) break;
+                if (seen.add(row.getUserNo())) {
+                    result.add(FriendDto.of(row.getUserId(), row.getName()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /** LIKE 와일드카드를 이스케이프('!')하고 끝에 %를 붙인다 */
+    static String likePrefix(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 2);
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '!' || c == '%' || c == '_') pattern.append('!');
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+}
@@ -20,9 +20,13 @@ public class FriendDto {
     private String avatarUrl;
 
     public static FriendDto from(User user) {
+        return of(user.getUserId(), user.getName());
+    }
+
+    public static FriendDto of(String userId, String name) {
         return FriendDto.builder()
-                .id(user.getUserId())
-                .name(user.getName() != null ? user.getName() : user.getUserId())
+                .id(userId)
+                .name(name != null ? name : userId)
                 .avatarUrl(null)
                 .build();
     }
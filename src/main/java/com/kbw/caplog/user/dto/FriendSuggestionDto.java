@@ -0,0 +1,26 @@
+package com.kbw.caplog.user.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 친구 추천 한 명 (GET /api/users/friends/suggestions)
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FriendSuggestionDto {
+
+    private String id;       // userId (FriendDto와 같은 키)
+    private String name;
+
+    @JsonProperty("avatar_url")
+    private String avatarUrl;
+
+    /** 함께 아는 친구 수 */
+    private int mutualFriends;
+}
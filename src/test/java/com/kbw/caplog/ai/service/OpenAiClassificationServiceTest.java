@@ -1,10 +1,13 @@
 package com.kbw.caplog.ai.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.ai.dto.AiClassifyDelta;
+import com.kbw.caplog.ai.dto.AiClassifyResponse;
 import org.junit.jupiter.api.Test;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class OpenAiClassificationServiceTest {
@@ -38,4 +41,49 @@ class OpenAiClassificationServiceTest {
         assertThrows(ResponseStatusException.class,
                 () -> OpenAiClassificationService.parseResponse(json));
     }
+
+    @Test
+    void streamParserRelaysDeltasAndReportsTotalTokensOnCompletion() throws Exception {
+        var parser = new OpenAiClassificationService.StreamParser();
+
+        var first = parser.accept(objectMapper.readTree("""
+                {"type": "response.output_text.delta", "delta": "{\\"category_main\\":"}
+                """));
+        var second = parser.accept(objectMapper.readTree("""
+                {"type": "response.output_text.delta", "delta": "\\"Info\\"}"}
+                """));
+        var completed = parser.accept(objectMapper.readTree("""
+                {"type": "response.completed", "response": {"usage": {"total_tokens": 77}}}
+                """));
+        var done = parser.finish();
+
+        assertEquals("delta", first.event());
+        assertEquals("{\"category_main\":", ((AiClassifyDelta) first.data()).text());
+        assertEquals("\"Info\"}", ((AiClassifyDelta) second.data()).text());
+        assertNull(completed);
+        assertEquals("done", done.event());
+        var response = (AiClassifyResponse) done.data();
+        assertEquals("{\"category_main\":\"Info\"}", response.content());
+        assertEquals(77, response.totalTokens());
+    }
+
+    @Test
+    void streamParserRejectsStreamThatNeverCompletes() throws Exception {
+        var parser = new OpenAiClassificationService.StreamParser();
+        parser.accept(objectMapper.readTree("""
+                {"type": "response.output_text.delta", "delta": "{"}
+                """));
+
+        assertThrows(ResponseStatusException.class, parser::finish);
+    }
+
+    @Test
+    void streamParserRejectsFailedResponse() throws Exception {
+        var parser = new OpenAiClassificationService.StreamParser();
+        var failed = objectMapper.readTree("""
+                {"type": "response.failed", "response": {"error": {"code": "server_error"}}}
+                """);
+
+        assertThrows(ResponseStatusException.class, () -> parser.accept(failed));
+    }
 }
@@ -0,0 +1,135 @@
+package com.kbw.caplog.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptCompactorTest {
+
+    private static final List<String> SAMPLES = List.of(
+            "coupon.txt",
+            "instagram.txt",
+            "job-posting.txt",
+            "chat.txt"
+    );
+
+    @Test
+    void removesChromeAndDuplicateLinesOnlyInsideOcrBlock() {
+        var compactor = new PromptCompactor(6000);
+        String prompt = """
+                [공통 스키마]
+                {
+                  "title": "",
+                  "summary": ""
+                }
+                {
+                  "title": "",
+                  "summary": ""
+                }
+                **OCR 텍스트:**
+                \"""
+                9:41
+                LTE   87%
+                공유
+                이마트24    모바일금액권
+                이마트24    모바일금액권
+                유효기간   2026.12.31
+                \"""
+                """;
+
+        var result = compactor.compact(prompt);
+
+        String ocr = result.prompt().substring(result.prompt().indexOf("\"\"\""));
+        assertEquals("\"\"\"\n이마트24 모바일금액권\n유효기간 2026.12.31\n\"\"\"", ocr);
+        assertEquals(2, result.prompt().split("\"title\": \"\"", -1).length - 1);
+        assertFalse(result.truncated());
+        assertTrue(result.savedTokens() > 0);
+    }
+
+    @Test
+    void truncatesOcrBlockToBudgetAndKeepsInstructions() {
+        var compactor = new PromptCompactor(300);
+        StringBuilder ocr = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            ocr.append("메뉴 항목 번호 ").append(i).append(" 설명 텍스트\n");
+        }
+        String prompt = "지침: JSON만 출력하세요.\n\"\"\"\n" + ocr + "\"\"\"\n끝 지침";
+
+        var result = compactor.compact(prompt);
+
+        assertTrue(result.truncated());
+        assertTrue(result.prompt().startsWith("지침: JSON만 출력하세요."));
+        assertTrue(result.prompt().endsWith("\"\"\"\n끝 지침"));
+        assertTrue(result.prompt().contains(PromptCompactor.TRUNCATED_MARKER));
+        assertTrue(result.compactedTokens() <= 300 + PromptCompactor.estimateTokens("끝 지침") + 10);
+    }
+
+    @Test
+    void truncatesWholePromptWhenThereIsNoOcrBlock() {
+        var compactor = new PromptCompactor(50);
+        String prompt = "가나다라마바사아자차\n".repeat(30);
+
+        var result = compactor.compact(prompt);
+
+        assertTrue(result.truncated());
+        assertTrue(result.compactedTokens() <= 50);
+    }
+
+    @Test
+    void keepsTimesBelowTheStatusBar() {
+        var compactor = new PromptCompactor(6000);
+        String prompt = "지침\n\"\"\"\n9:41\n예약 확인\n좌석 A12\n오후 7:00\n18:30\n9:41 LTE 80%\n\"\"\"\n";
+
+        var result = compactor.compact(prompt);
+
+        String ocr = result.prompt().substring(result.prompt().indexOf("\"\"\""));
+        assertEquals("\"\"\"\n예약 확인\n좌석 A12\n오후 7:00\n18:30\n\"\"\"", ocr);
+    }
+
+    @Test
+    void cutsInsideSingleLongLineInsteadOfDroppingIt() {
+        var compactor = new PromptCompactor(300);
+        String prompt = "지침\n\"\"\"\n" + "가".repeat(2000) + "\n\"\"\"\n끝";
+
+        var result = compactor.compact(prompt);
+
+        assertTrue(result.truncated());
+        assertTrue(result.prompt().contains("가".repeat(200)));
+        assertTrue(result.prompt().contains(PromptCompactor.TRUNCATED_MARKER));
+        assertTrue(result.compactedTokens() <= 300 + PromptCompactor.estimateTokens("지침끝") + 10);
+    }
+
+    /** 샘플 OCR 프롬프트 묶음에서 줄어드는 토큰 양을 측정합니다. */
+    @Test
+    void reducesTokensAcrossSampleOcrCorpus() throws IOException {
+        var compactor = new PromptCompactor(6000);
+        int before = 0;
+        int after = 0;
+        for (String name : SAMPLES) {
+            var result = compactor.compact(sample(name));
+            assertTrue(result.compactedTokens() < result.originalTokens(),
+                    name + ": " + result.originalTokens() + " -> " + result.compactedTokens() + " tokens");
+            before += result.originalTokens();
+            after += result.compactedTokens();
+        }
+        double reduction = 1.0 - (double) after / before;
+
+        assertTrue(reduction >= 0.2,
+                "expected at least 20% reduction but was " + reduction + " (" + before + " -> " + after + " tokens)");
+    }
+
+    private static String sample(String name) throws IOException {
+        try (InputStream in = PromptCompactorTest.class.getResourceAsStream("/ai/ocr-samples/" + name)) {
+            assertNotNull(in, name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.kbw.caplog.auth.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class RequestRateLimitFilterTest {
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private final Clock clock = Clock.fixed(
             Instant.parse("2026-07-27T00:00:00Z"),
             ZoneOffset.UTC
@@ -31,7 +34,7 @@ class RequestRateLimitFilterTest {
 
     @Test
     void limitsRepeatedLoginAttemptsByRemoteAddress() throws Exception {
-        var filter = new RequestRateLimitFilter(false, clock);
+        var filter = new RequestRateLimitFilter(false, clock, meterRegistry);
         var allowedRequests = new AtomicInteger();
         FilterChain chain = (request, response) -> allowedRequests.incrementAndGet();
 
@@ -50,11 +53,15 @@ class RequestRateLimitFilterTest {
         assertEquals(429, rejected.getStatus());
         assertNotNull(rejected.getHeader("Retry-After"));
         assertEquals("no-store", rejected.getHeader("Cache-Control"));
+        assertEquals(5, meterRegistry.get("caplog.ratelimit.decisions")
+                .tags("policy", "login", "outcome", "allowed").timer().count());
+        assertEquals(1, meterRegistry.get("caplog.ratelimit.decisions")
+                .tags("policy", "login", "outcome", "rejected").timer().count());
     }
 
     @Test
     void keepsLoginLimitsSeparateForDifferentAddresses() throws Exception {
-        var filter = new RequestRateLimitFilter(false, clock);
+        var filter = new RequestRateLimitFilter(false, clock, meterRegistry);
         var allowedRequests = new AtomicInteger();
         FilterChain chain = (request, response) -> allowedRequests.incrementAndGet();
 
@@ -70,6 +77,32 @@ class RequestRateLimitFilterTest {
         assertEquals(6, allowedRequests.get());
     }
 
+    @Test
+    void limitsUserSearchPerAuthenticatedUser() throws Exception {
+        var filter = new RequestRateLimitFilter(false, clock, meterRegistry);
+        var allowedRequests = new AtomicInteger();
+        FilterChain chain = (request, response) -> allowedRequests.incrementAndGet();
+
+        authenticate("me@caplog.test");
+        for (int i = 0; i < 60; i++) {
+            execute(filter, chain, "GET", "/api/users/search", "203.0.113.30");
+        }
+        var rejected = execute(filter, chain, "GET", "/api/users/search", "203.0.113.30");
+
+        authenticate("other@caplog.test");
+        var otherUser = execute(filter, chain, "GET", "/api/users/search", "203.0.113.30");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals(200, otherUser.getStatus());
+        assertEquals(61, allowedRequests.get());
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                email, null, AuthorityUtils.NO_AUTHORITIES
+        ));
+    }
+
     private static MockHttpServletResponse execute(
             RequestRateLimitFilter filter,
             FilterChain chain,
@@ -0,0 +1,172 @@
+package com.kbw.caplog.card.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.card.dto.CardFacetsDto;
+import com.kbw.caplog.card.repository.CardFacetCountRepository;
+import com.kbw.caplog.card.repository.CardFacetCountRepository.Facet;
+import com.kbw.caplog.card.repository.CardFacetCountRepository.FacetCount;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardFacetServiceTest {
+
+    private final CardFacetCountRepository repository = mock(CardFacetCountRepository.class);
+    private final CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+    private final CardFacetService service = new CardFacetService(
+            repository, versions, new TransactionTemplate(mock(PlatformTransactionManager.class)), new ObjectMapper());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsOnlyChangedFacetsWhenCardIsEdited() {
+        Screenshot card = card(1L, "[\"카페\",\" 데이트 \",\"데이트\"]");
+
+        service.cardChanged(0L, "[\"카페\",\"맛집\"]", card);
+
+        ArgumentCaptor<Map<Facet, Integer>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(repository).applyDeltas(eq(7L), deltas.capture());
+        assertEquals(Map.of(
+                new Facet(CardFacetCountRepository.CATEGORY, "Info"), -1,
+                new Facet(CardFacetCountRepository.CATEGORY, "Contents"), 1,
+                new Facet(CardFacetCountRepository.TAG, "맛집"), -1,
+                new Facet(CardFacetCountRepository.TAG, "데이트"), 1
+        ), deltas.getValue());
+    }
+
+    @Test
+    void doesNotWriteWhenNothingCountedChanged() {
+        service.cardChanged(0L, "[\"카페\"]", card(0L, "[\"카페\"]"));
+
+        verify(repository, never()).applyDeltas(anyLong(), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergesBulkImportBatchIntoOneWrite() {
+        service.cardsAdded(7L, List.of(card(0L, "[\"카페\"]"), card(0L, "[\"카페\",\"빵\"]"), card(null, null)));
+
+        ArgumentCaptor<Map<Facet, Integer>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(repository).applyDeltas(eq(7L), deltas.capture());
+        assertEquals(3, deltas.getValue().get(Facet.total()));
+        assertEquals(2, deltas.getValue().get(new Facet(CardFacetCountRepository.CATEGORY, "Info")));
+        assertEquals(1, deltas.getValue().get(new Facet(CardFacetCountRepository.CATEGORY, "Etc.")));
+        assertEquals(2, deltas.getValue().get(new Facet(CardFacetCountRepository.TAG, "카페")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsTagsThatDifferOnlyInCaseOrAccentAsOneFacet() {
+        service.cardsAdded(7L, List.of(
+                card(0L, "[\"Cafe\",\"cafe\"]"),
+                card(0L, "[\"café\"]"),
+                card(0L, "[\"CAFÉ\",\"빵\"]")
+        ));
+
+        ArgumentCaptor<Map<Facet, Integer>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(repository).applyDeltas(eq(7L), deltas.capture());
+        assertEquals(Map.of(
+                Facet.total(), 3,
+                new Facet(CardFacetCountRepository.CATEGORY, "Info"), 3,
+                new Facet(CardFacetCountRepository.TAG, "Cafe"), 3,
+                new Facet(CardFacetCountRepository.TAG, "빵"), 1
+        ), deltas.getValue());
+    }
+
+    @Test
+    void doesNotWriteWhenOnlyTagCaseOrAccentChanged() {
+        service.cardChanged(0L, "[\"Cafe\"]", card(0L, "[\"café\"]"));
+
+        verify(repository, never()).applyDeltas(anyLong(), anyMap());
+    }
+
+    @Test
+    void propagatesIncrementFailureSoCardWriteRollsBack() {
+        doThrow(new IllegalStateException("deadlock")).when(repository).applyDeltas(anyLong(), anyMap());
+
+        assertThrows(IllegalStateException.class, () -> service.cardRemoved(card(0L, "[\"카페\"]")));
+    }
+
+    @Test
+    void readsStoredCountsWithoutScanningCards() {
+        when(repository.findByUserNo(7L)).thenReturn(List.of(
+                new FacetCount(CardFacetCountRepository.TOTAL, "", 5),
+                new FacetCount(CardFacetCountRepository.CATEGORY, "Info", 4),
+                new FacetCount(CardFacetCountRepository.CATEGORY, "Log", 1),
+                new FacetCount(CardFacetCountRepository.TAG, "빵", 1),
+                new FacetCount(CardFacetCountRepository.TAG, "카페", 3),
+                new FacetCount(CardFacetCountRepository.TAG, "지난태그", 0)
+        ));
+
+        CardFacetsDto facets = service.findFacets(7L);
+
+        assertEquals(5, facets.getTotal());
+        assertEquals(List.of(
+                new CardFacetsDto.Facet("Info", 4),
+                new CardFacetsDto.Facet("Contents", 0),
+                new CardFacetsDto.Facet("Social", 0),
+                new CardFacetsDto.Facet("Log", 1),
+                new CardFacetsDto.Facet("Music/Art", 0),
+                new CardFacetsDto.Facet("Etc.", 0)
+        ), facets.getCategories());
+        assertEquals(List.of(new CardFacetsDto.Facet("카페", 3), new CardFacetsDto.Facet("빵", 1)), facets.getTags());
+        verify(repository, never()).scanCards(anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildsFromCardsWhenCountsWereNeverFilled() {
+        when(repository.findByUserNo(7L)).thenReturn(List.of(
+                new FacetCount(CardFacetCountRepository.CATEGORY, "Info", 1)
+        ));
+        doAnswer(invocation -> {
+            BiConsumer<Long, String> consumer = invocation.getArgument(1);
+            consumer.accept(0L, "[\"카페\"]");
+            consumer.accept(0L, "[\"카페\"]");
+            consumer.accept(2L, "깨진 json");
+            return null;
+        }).when(repository).scanCards(eq(7L), any());
+
+        CardFacetsDto facets = service.findFacets(7L);
+
+        ArgumentCaptor<Map<Facet, Integer>> rebuilt = ArgumentCaptor.forClass(Map.class);
+        InOrder order = inOrder(versions, repository);
+        order.verify(versions).lock(7L, CollectionVersionRepository.CARDS);
+        order.verify(repository).scanCards(eq(7L), any());
+        order.verify(repository).replaceAll(eq(7L), rebuilt.capture());
+        assertEquals(3, rebuilt.getValue().get(Facet.total()));
+        assertEquals(3, facets.getTotal());
+        assertEquals(new CardFacetsDto.Facet("Info", 2), facets.getCategories().get(0));
+        assertEquals(new CardFacetsDto.Facet("Social", 1), facets.getCategories().get(2));
+        assertEquals(List.of(new CardFacetsDto.Facet("카페", 2)), facets.getTags());
+    }
+
+    private static Screenshot card(Long categoryId, String tagsJson) {
+        Screenshot card = new Screenshot();
+        card.setUserNo(7L);
+        card.setCategoryId(categoryId);
+        card.setTagsJson(tagsJson);
+        return card;
+    }
+}
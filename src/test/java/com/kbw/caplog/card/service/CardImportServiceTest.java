@@ -0,0 +1,155 @@
+package com.kbw.caplog.card.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.card.dto.CardImportResult;
+import com.kbw.caplog.card.repository.CardBulkInsertRepository;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import com.kbw.caplog.recommendation.service.GeocodeService;
+import com.kbw.caplog.recommendation.service.NearbyCache;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CardImportServiceTest {
+
+    @Test
+    void insertsStreamedCardsInFixedSizeBatches() throws IOException {
+        CardBulkInsertRepository bulk = mock(CardBulkInsertRepository.class);
+        GeocodeService geocodeService = mock(GeocodeService.class);
+        List<List<Screenshot>> batches = recordBatches(bulk);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append("{\"title\":\"카드 ").append(i)
+                    .append("\",\"category\":\"Info\",\"tags\":[\"t\"],\"fields\":{\"주소\":\"서울\"}}\n");
+        }
+
+        CardImportResult result = service(bulk, geocodeService).importNdjson(7L, body(ndjson.toString()));
+
+        assertEquals(250, result.getImported());
+        assertEquals(0, result.getFailed());
+        assertEquals(List.of(100, 100, 50), batches.stream().map(List::size).toList());
+        assertEquals(List.of(100, 100, 50), result.getBatches().stream().map(CardImportResult.Batch::rows).toList());
+        Screenshot first = batches.get(0).get(0);
+        assertEquals(7L, first.getUserNo());
+        assertEquals("카드 0", first.getTitle());
+        assertEquals(0L, first.getCategoryId());
+        assertEquals("서울", first.getAddress());
+        assertEquals((short) 0, first.getGeocodeStatus());
+        verifyNoInteractions(geocodeService);
+    }
+
+    @Test
+    void skipsMalformedLinesAndReportsLineNumbers() throws IOException {
+        CardBulkInsertRepository bulk = mock(CardBulkInsertRepository.class);
+        List<List<Screenshot>> batches = recordBatches(bulk);
+        String ndjson = """
+                {"title":"첫 카드","category":"Log"}
+
+                {"title":
+                {"title":"둘째 카드","category":"Social"}
+                """;
+
+        CardImportResult result = service(bulk, mock(GeocodeService.class)).importNdjson(7L, body(ndjson));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("3: "));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void stopsAtLimitAndReportsWhatWasImported() throws IOException {
+        CardBulkInsertRepository bulk = mock(CardBulkInsertRepository.class);
+        recordBatches(bulk);
+        String ndjson = "{\"title\":\"카드\"}\n".repeat(CardImportService.MAX_CARDS + 10);
+
+        CardImportResult result = service(bulk, mock(GeocodeService.class)).importNdjson(7L, body(ndjson));
+
+        assertTrue(result.isLimitReached());
+        assertEquals(CardImportService.MAX_CARDS, result.getImported());
+        assertTrue(result.getErrors().get(result.getErrors().size() - 1)
+                .startsWith((CardImportService.MAX_CARDS + 1) + ": card limit reached"));
+    }
+
+    @Test
+    void skipsLinesLongerThanLimitWithoutBufferingThem() throws IOException {
+        CardBulkInsertRepository bulk = mock(CardBulkInsertRepository.class);
+        List<List<Screenshot>> batches = recordBatches(bulk);
+        String ndjson = "{\"title\":\"" + "가".repeat(CardImportService.MAX_LINE_CHARS) + "\"}\r\n"
+                + "{\"title\":\"짧은 카드\"}\r\n";
+
+        CardImportResult result = service(bulk, mock(GeocodeService.class)).importNdjson(7L, body(ndjson));
+
+        assertEquals(1, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getErrors().get(0).startsWith("1: line too long"));
+        assertEquals("짧은 카드", batches.get(0).get(0).getTitle());
+        assertFalse(result.isLimitReached());
+    }
+
+    @Test
+    void emptyBodyInsertsNothing() throws IOException {
+        CardBulkInsertRepository bulk = mock(CardBulkInsertRepository.class);
+
+        CardImportResult result = service(bulk, mock(GeocodeService.class)).importNdjson(7L, body("\n\n"));
+
+        assertEquals(0, result.getImported());
+        assertTrue(result.getBatches().isEmpty());
+        verify(bulk, never()).insertAll(anyList());
+    }
+
+    /** 서비스가 배치 리스트를 재사용하므로 호출 시점의 내용을 복사해 둡니다. */
+    private static List<List<Screenshot>> recordBatches(CardBulkInsertRepository bulk) {
+        List<List<Screenshot>> batches = new ArrayList<>();
+        when(bulk.insertAll(anyList())).thenAnswer(invocation -> {
+            List<Screenshot> cards = invocation.getArgument(0);
+            batches.add(new ArrayList<>(cards));
+            return cards.size();
+        });
+        return batches;
+    }
+
+    private static CardImportService service(CardBulkInsertRepository bulk, GeocodeService geocodeService) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        CardService cardService = new CardService(
+                mock(ScreenshotRepository.class),
+                mock(CardTombstoneRepository.class),
+                geocodeService,
+                mock(CardFacetService.class),
+                mock(NearbyCache.class),
+                mock(CollectionVersionRepository.class),
+                transactionTemplate,
+                objectMapper
+        );
+        return new CardImportService(
+                cardService, bulk, mock(CardFacetService.class), mock(CollectionVersionRepository.class),
+                transactionTemplate, objectMapper
+        );
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
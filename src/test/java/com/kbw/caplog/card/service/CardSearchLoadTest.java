@@ -0,0 +1,146 @@
+package com.kbw.caplog.card.service;
+
+import com.kbw.caplog.CaplogApplication;
+import com.kbw.caplog.card.dto.CardSearchResult;
+import com.kbw.caplog.card.repository.CardBulkInsertRepository;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 카드 검색 지연 측정 (여러 사용자의 합성 카드, 실제 MySQL 필요)
+ *
+ * <pre>
+ * CAPLOG_SEARCH_BENCH_URL=jdbc:mysql://localhost:3307/caplog_bench \
+ * CAPLOG_SEARCH_BENCH_USERNAME=caplog CAPLOG_SEARCH_BENCH_PASSWORD=... \
+ * ./gradlew loadTest --tests '*CardSearchLoadTest'
+ * </pre>
+ *
+ * 벤치 사용자에게 카드 10만 장, 다른 사용자들에게 같은 어휘의 카드를 더 넣고(FULLTEXT 인덱스 포함)
+ * 검색어별로 여러 번 돌려 p50/p99를 출력합니다. FULLTEXT 인덱스는 사용자별로 나뉘지 않아 MATCH가
+ * 모든 사용자의 카드를 훑은 뒤 user_no로 거르므로, 카드가 몇 장 없는 사용자(light)도 같은 표로 잽니다.
+ * 다른 사용자 카드 수는 CAPLOG_SEARCH_BENCH_OTHER_CARDS(기본 40만)로 바꿔 가며 전체 규모에 따른 증가를 봅니다.
+ * 벤치 사용자들의 카드는 끝나면 지웁니다. URL이 없으면 건너뜁니다.
+ */
+@Tag("load")
+class CardSearchLoadTest {
+
+    private static final int CARDS = 100_000;
+    private static final int LIGHT_CARDS = 200;
+    private static final int OTHER_USERS = 40;
+    private static final int BATCH = 1_000;
+    private static final int ROUNDS = 200;
+    private static final long BENCH_USER_NO = 900_000_001L;
+    private static final long LIGHT_USER_NO = 900_000_002L;
+    /** 다른 사용자들은 LIGHT_USER_NO 다음 번호부터 */
+    private static final long LAST_BENCH_USER_NO = LIGHT_USER_NO + OTHER_USERS;
+
+    private static final String[] PLACES = {"망원", "연남", "성수", "을지로", "한남", "합정", "익선", "서촌", "해운대", "전포"};
+    private static final String[] KINDS = {"카페", "베이커리", "파스타", "라멘", "이자카야", "전시", "공연", "서점", "빈티지샵", "와인바"};
+    private static final String[] WORDS = {"분위기", "주차", "예약", "웨이팅", "디저트", "브런치", "야경", "조용한", "데이트", "혼밥"};
+
+    @Test
+    void measuresSearchLatencyOnMultiUserCorpus() {
+        String url = System.getenv("CAPLOG_SEARCH_BENCH_URL");
+        assumeTrue(url != null && !url.isBlank(), "CAPLOG_SEARCH_BENCH_URL not set");
+        int otherCards = Integer.parseInt(System.getenv().getOrDefault("CAPLOG_SEARCH_BENCH_OTHER_CARDS", "400000"));
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(CaplogApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + System.getenv().getOrDefault("CAPLOG_SEARCH_BENCH_USERNAME", "caplog"),
+                        "spring.datasource.password=" + System.getenv().getOrDefault("CAPLOG_SEARCH_BENCH_PASSWORD", ""),
+                        "jwt.secret=card-search-bench-secret-0123456789abcdef",
+                        "management.server.port=-1",
+                        "logging.level.root=warn"
+                )
+                .run()) {
+            JdbcTemplate jdbcTemplate = app.getBean(JdbcTemplate.class);
+            CardService cardService = app.getBean(CardService.class);
+            deleteBenchCards(jdbcTemplate);
+            try {
+                CardBulkInsertRepository repository = app.getBean(CardBulkInsertRepository.class);
+                Random random = new Random(42);
+                seed(repository, random, BENCH_USER_NO, CARDS);
+                seed(repository, random, LIGHT_USER_NO, LIGHT_CARDS);
+                for (int i = 1; i <= OTHER_USERS; i++) {
+                    seed(repository, random, LIGHT_USER_NO + i, otherCards / OTHER_USERS);
+                }
+                jdbcTemplate.execute("ANALYZE TABLE screenshot");
+                Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM screenshot", Long.class);
+
+                System.out.printf("%d cards in table (bench %d, light %d, %d other users %d), %d rounds per query%n",
+                        total, CARDS, LIGHT_CARDS, OTHER_USERS, otherCards, ROUNDS);
+                System.out.printf("%-6s %-16s %8s %8s %8s%n", "user", "query", "p50(ms)", "p99(ms)", "hits");
+                for (String query : List.of("카페", "망원 카페", "성수 브런치 주차", "빈티지", "와인바 야경", "없는검색어")) {
+                    measure(cardService, "bench", BENCH_USER_NO, query);
+                    measure(cardService, "light", LIGHT_USER_NO, query);
+                }
+            } finally {
+                deleteBenchCards(jdbcTemplate);
+            }
+        }
+    }
+
+    private static void deleteBenchCards(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("DELETE FROM screenshot WHERE user_no BETWEEN ? AND ?", BENCH_USER_NO, LAST_BENCH_USER_NO);
+    }
+
+    private static void seed(CardBulkInsertRepository repository, Random random, long userNo, int cards) {
+        List<Screenshot> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < cards; i++) {
+            String place = pick(random, PLACES);
+            String kind = pick(random, KINDS);
+            Screenshot card = new Screenshot();
+            card.setUserNo(userNo);
+            card.setCategoryId((long) random.nextInt(6));
+            card.setTitle(place + " " + kind + " " + i);
+            card.setSummary(pick(random, WORDS) + " " + pick(random, WORDS) + " 좋은 " + place + "동 " + kind);
+            card.setSubcategory(kind);
+            card.setTagsJson("[\"" + pick(random, WORDS) + "\",\"" + place + "\"]");
+            card.setFieldsJson("{}");
+            card.setPlaceName(place + " " + kind);
+            batch.add(card);
+            if (batch.size() == BATCH) {
+                repository.insertAll(batch);
+                batch.clear();
+            }
+        }
+        repository.insertAll(batch);
+    }
+
+    private static void measure(CardService cardService, String label, long userNo, String query) {
+        for (int i = 0; i < 20; i++) {
+            cardService.searchCards(userNo, query, 0, 20);
+        }
+        long[] latencies = new long[ROUNDS];
+        int hits = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            CardSearchResult result = cardService.searchCards(userNo, query, i % 3, 20);
+            latencies[i] = System.nanoTime() - started;
+            hits = Math.max(hits, result.getCards().size());
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-6s %-16s %8.1f %8.1f %8d%n", label, query,
+                latencies[ROUNDS / 2] / 1_000_000.0, latencies[(int) (ROUNDS * 0.99)] / 1_000_000.0, hits);
+        assertFalse(query.equals("카페") && hits == 0, "seeded cards should match");
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
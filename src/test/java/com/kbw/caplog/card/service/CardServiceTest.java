@@ -1,13 +1,26 @@
 package com.kbw.caplog.card.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.card.domain.CardTombstone;
+import com.kbw.caplog.card.dto.CardChangesDto;
 import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.dto.CardSearchResult;
 import com.kbw.caplog.card.dto.CreateCardRequest;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
 import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.recommendation.repository.CardListRow;
+import com.kbw.caplog.recommendation.repository.CardSearchHit;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
 import com.kbw.caplog.recommendation.service.GeocodeService;
+import com.kbw.caplog.recommendation.service.NearbyCache;
+import com.kbw.caplog.support.CollectionVersionRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.util.List;
@@ -15,8 +28,13 @@ import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -28,7 +46,7 @@ class CardServiceTest {
     void normalizesLocationFieldsAndGeocodesNewPlaceCard() {
         ScreenshotRepository repository = mock(ScreenshotRepository.class);
         GeocodeService geocodeService = mock(GeocodeService.class);
-        CardService service = new CardService(repository, geocodeService, objectMapper());
+        CardService service = service(repository, geocodeService);
         when(repository.save(any(Screenshot.class))).thenAnswer(invocation -> {
             Screenshot screenshot = invocation.getArgument(0);
             screenshot.setId(42L);
@@ -56,7 +74,7 @@ class CardServiceTest {
     void updatesEveryEditableFieldOnOwnedCard() {
         ScreenshotRepository repository = mock(ScreenshotRepository.class);
         GeocodeService geocodeService = mock(GeocodeService.class);
-        CardService service = new CardService(repository, geocodeService, objectMapper());
+        CardService service = service(repository, geocodeService);
         Screenshot screenshot = new Screenshot();
         screenshot.setId(42L);
         screenshot.setUserNo(7L);
@@ -98,7 +116,7 @@ class CardServiceTest {
     void doesNotDeleteCardOwnedByAnotherUser() {
         ScreenshotRepository repository = mock(ScreenshotRepository.class);
         GeocodeService geocodeService = mock(GeocodeService.class);
-        CardService service = new CardService(repository, geocodeService, objectMapper());
+        CardService service = service(repository, geocodeService);
         when(repository.findByIdAndUserNo(42L, 7L)).thenReturn(Optional.empty());
 
         assertThrows(
@@ -109,6 +127,306 @@ class CardServiceTest {
         verify(repository, never()).delete(any(Screenshot.class));
     }
 
+    @Test
+    void listsFirstPageWithDatabaseLimitInsteadOfLoadingEveryCard() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+        CardListRow row = new CardListRow(
+                42L, 0L, "테스트 카페", "요약", "카페",
+                "[\"커피\"]", "{\"메뉴\":\"라떼\"}", "테스트 카페", "서울",
+                Instant.parse("2026-07-01T00:00:00Z"), Instant.parse("2026-07-02T00:00:00Z")
+        );
+        when(repository.findCardPage(any(Long.class), any(Limit.class))).thenReturn(List.of(row));
+
+        List<CardDto> cards = service.findCardsByUserNo(7L, null, 500);
+
+        ArgumentCaptor<Limit> limit = ArgumentCaptor.forClass(Limit.class);
+        verify(repository).findCardPage(eq(7L), limit.capture());
+        assertEquals(CardService.MAX_PAGE_SIZE, limit.getValue().max());
+        assertEquals(1, cards.size());
+        assertEquals("00000000-0000-0000-0000-00000000002a", cards.get(0).getId());
+        assertEquals(List.of("커피"), cards.get(0).getTags());
+        assertEquals("라떼", cards.get(0).getFields().get("메뉴"));
+        assertEquals("서울", cards.get(0).getFields().get("주소"));
+        verify(repository, never()).findCardPageBefore(anyLong(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void fallsBackToEditableCollectionsWhenStoredJsonIsBroken() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+        CardListRow row = new CardListRow(
+                42L, 0L, "테스트 카페", null, null,
+                "[\"커피\"", "null", "테스트 카페", null,
+                Instant.parse("2026-07-01T00:00:00Z"), Instant.parse("2026-07-02T00:00:00Z")
+        );
+        when(repository.findCardPage(any(Long.class), any(Limit.class))).thenReturn(List.of(row));
+
+        CardDto card = service.findCardsByUserNo(7L, null, 20).get(0);
+
+        assertEquals(List.of(), card.getTags());
+        assertEquals(Map.of("장소명", "테스트 카페"), card.getFields());
+    }
+
+    @Test
+    void continuesFromCursorCardId() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+
+        service.findCardsByUserNo(7L, "00000000-0000-0000-0000-00000000002a", 0);
+
+        ArgumentCaptor<Limit> limit = ArgumentCaptor.forClass(Limit.class);
+        verify(repository).findCardPageBefore(
+                eq(7L),
+                eq(42L),
+                limit.capture()
+        );
+        assertEquals(CardService.DEFAULT_PAGE_SIZE, limit.getValue().max());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> service.findCardsByUserNo(7L, "not-a-card-id", 20)
+        );
+    }
+
+    @Test
+    void stampsNewCardWithNextChangeNumber() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+        CardService service = service(repository, mock(CardTombstoneRepository.class), versions);
+        when(versions.bumpAndGet(7L, CollectionVersionRepository.CARDS)).thenReturn(12L);
+        when(repository.save(any(Screenshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CreateCardRequest request = new CreateCardRequest();
+        request.setTitle("새 카드");
+        service.createCard(7L, request);
+
+        ArgumentCaptor<Screenshot> captor = ArgumentCaptor.forClass(Screenshot.class);
+        verify(repository).save(captor.capture());
+        assertEquals(12L, captor.getValue().getChangeSeq());
+    }
+
+    @Test
+    void recordsTombstoneWhenDeletingOwnedCard() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardTombstoneRepository tombstones = mock(CardTombstoneRepository.class);
+        CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+        CardService service = service(repository, tombstones, versions);
+        when(versions.bumpAndGet(7L, CollectionVersionRepository.CARDS)).thenReturn(12L);
+        Screenshot screenshot = new Screenshot();
+        screenshot.setId(42L);
+        screenshot.setUserNo(7L);
+        when(repository.findByIdAndUserNo(42L, 7L)).thenReturn(Optional.of(screenshot));
+
+        service.deleteCard(7L, "00000000-0000-0000-0000-00000000002a");
+
+        ArgumentCaptor<CardTombstone> captor = ArgumentCaptor.forClass(CardTombstone.class);
+        verify(repository).delete(screenshot);
+        verify(tombstones).save(captor.capture());
+        assertEquals(7L, captor.getValue().getUserNo());
+        assertEquals(42L, captor.getValue().getScreenshotId());
+        assertEquals(12L, captor.getValue().getChangeSeq());
+        verify(tombstones, never()).deleteExpired(anyLong(), any(Instant.class));
+    }
+
+    @Test
+    void raisesPurgeFloorBeforeDroppingExpiredTombstones() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardTombstoneRepository tombstones = mock(CardTombstoneRepository.class);
+        CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+        CardService service = service(repository, tombstones, versions);
+        Screenshot screenshot = new Screenshot();
+        screenshot.setId(42L);
+        screenshot.setUserNo(7L);
+        when(repository.findByIdAndUserNo(42L, 7L)).thenReturn(Optional.of(screenshot));
+        when(tombstones.findMaxChangeSeqDeletedBefore(eq(7L), any(Instant.class))).thenReturn(9L);
+
+        service.deleteCard(7L, "00000000-0000-0000-0000-00000000002a");
+
+        verify(versions).raise(7L, CollectionVersionRepository.CARDS_PURGED, 9L);
+        verify(tombstones).deleteExpired(eq(7L), any(Instant.class));
+    }
+
+    @Test
+    void invalidatesNearbyCacheOnlyAfterDeleteCommits() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        NearbyCache nearbyCache = mock(NearbyCache.class);
+        CardService service = new CardService(repository, mock(CardTombstoneRepository.class), mock(GeocodeService.class),
+                mock(CardFacetService.class), nearbyCache, mock(CollectionVersionRepository.class), transactionTemplate(), objectMapper());
+        Screenshot screenshot = new Screenshot();
+        screenshot.setId(42L);
+        screenshot.setUserNo(7L);
+        when(repository.findByIdAndUserNo(42L, 7L)).thenReturn(Optional.of(screenshot));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.deleteCard(7L, "00000000-0000-0000-0000-00000000002a");
+            verify(nearbyCache, never()).invalidate(anyLong());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(nearbyCache).invalidate(7L);
+    }
+
+    @Test
+    void returnsChangedCardsAndDeletedIdsSinceWatermark() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardTombstoneRepository tombstones = mock(CardTombstoneRepository.class);
+        CardService service = service(repository, tombstones, versions(20L, 0L));
+        CardListRow changed = new CardListRow(
+                42L, 1L, "수정된 카드", null, null, "[]", "{}", null, null,
+                Instant.parse("2026-07-01T00:00:00Z"), Instant.parse("2026-07-02T00:00:00Z")
+        );
+        when(repository.findCardsChangedAfter(eq(7L), eq(10L), any(Limit.class)))
+                .thenReturn(List.of(changed));
+        when(tombstones.findDeletedIdsAfter(eq(7L), eq(10L), any(Limit.class)))
+                .thenReturn(List.of(43L));
+
+        CardChangesDto changes = service.findChanges(7L, 10L);
+
+        assertFalse(changes.isFullResync());
+        assertEquals(1, changes.getCards().size());
+        assertEquals("00000000-0000-0000-0000-00000000002a", changes.getCards().get(0).getId());
+        assertEquals(List.of("00000000-0000-0000-0000-00000000002b"), changes.getDeletedIds());
+        assertEquals(20L, changes.getWatermark());
+    }
+
+    @Test
+    void returnsEmptyDeltaWhenCursorIsCurrent() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(CardTombstoneRepository.class), versions(20L, 0L));
+
+        CardChangesDto changes = service.findChanges(7L, 20L);
+
+        assertFalse(changes.isFullResync());
+        assertTrue(changes.getCards().isEmpty());
+        assertEquals(20L, changes.getWatermark());
+    }
+
+    @Test
+    void asksForFullResyncWhenCursorIsMissingUnknownOrPurged() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(CardTombstoneRepository.class), versions(20L, 5L));
+
+        CardChangesDto first = service.findChanges(7L, null);
+        CardChangesDto ahead = service.findChanges(7L, 21L);
+        CardChangesDto purged = service.findChanges(7L, 4L);
+
+        assertTrue(first.isFullResync());
+        assertTrue(ahead.isFullResync());
+        assertTrue(purged.isFullResync());
+        assertEquals(20L, ahead.getWatermark());
+        verify(repository, never()).findCardsChangedAfter(anyLong(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void searchesAllTermsAndKeepsRelevanceOrder() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+        when(repository.searchCards(eq(7L), any(String.class), eq(3), eq(2)))
+                .thenReturn(List.of(hit(43L, 2.5), hit(42L, 1.0), hit(41L, 0.5)));
+        when(repository.findCardRowsByIds(eq(7L), any())).thenReturn(List.of(
+                searchRow(42L, "망원 카페"),
+                searchRow(43L, "망원동 카페 추천")
+        ));
+
+        CardSearchResult result = service.searchCards(7L, "  망원 카페* -광고 ", 1, 2);
+
+        verify(repository).searchCards(7L, "+\"망원\" +\"카페\" +\"광고\"", 3, 2);
+        verify(repository).findCardRowsByIds(7L, List.of(43L, 42L));
+        assertTrue(result.isHasNext());
+        assertEquals(2, result.getSize());
+        assertEquals(
+                List.of("망원동 카페 추천", "망원 카페"),
+                result.getCards().stream().map(CardDto::getTitle).toList()
+        );
+    }
+
+    @Test
+    void searchesSingleCharacterTermsByPrefix() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+
+        CardSearchResult result = service.searchCards(7L, "빵 맛집", 0, 0);
+
+        verify(repository).searchCards(7L, "+빵* +\"맛집\"", CardService.DEFAULT_PAGE_SIZE + 1, 0);
+        verify(repository, never()).findCardRowsByIds(anyLong(), any());
+        assertFalse(result.isHasNext());
+        assertEquals(List.of(), result.getCards());
+    }
+
+    @Test
+    void rejectsEmptySearchQueryAndDeepPages() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardService service = service(repository, mock(GeocodeService.class));
+
+        assertThrows(IllegalArgumentException.class, () -> service.searchCards(7L, " ", 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> service.searchCards(7L, "\"+-*\"", 0, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.searchCards(7L, "카페", CardService.MAX_SEARCH_PAGE + 1, 20));
+        verify(repository, never()).searchCards(anyLong(), any(), anyInt(), anyInt());
+    }
+
+    private static CardSearchHit hit(Long id, double score) {
+        return new CardSearchHit() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Double getScore() {
+                return score;
+            }
+        };
+    }
+
+    private static CardListRow searchRow(Long id, String title) {
+        return new CardListRow(
+                id, 0L, title, null, "카페", "[]", "{}", null, null,
+                Instant.parse("2026-07-01T00:00:00Z"), Instant.parse("2026-07-02T00:00:00Z")
+        );
+    }
+
+    private static CardService service(ScreenshotRepository repository, GeocodeService geocodeService) {
+        return service(repository, mock(CardTombstoneRepository.class), geocodeService);
+    }
+
+    private static CardService service(
+            ScreenshotRepository repository,
+            CardTombstoneRepository tombstones,
+            GeocodeService geocodeService
+    ) {
+        return new CardService(repository, tombstones, geocodeService, mock(CardFacetService.class), mock(NearbyCache.class), mock(CollectionVersionRepository.class), transactionTemplate(), objectMapper());
+    }
+
+    private static CardService service(
+            ScreenshotRepository repository,
+            CardTombstoneRepository tombstones,
+            CollectionVersionRepository versions
+    ) {
+        return new CardService(repository, tombstones, mock(GeocodeService.class), mock(CardFacetService.class), mock(NearbyCache.class), versions, transactionTemplate(), objectMapper());
+    }
+
+    private static CollectionVersionRepository versions(long cards, long purgedThrough) {
+        CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+        when(versions.find(7L, CollectionVersionRepository.CARDS)).thenReturn(cards);
+        when(versions.find(7L, CollectionVersionRepository.CARDS_PURGED)).thenReturn(purgedThrough);
+        return versions;
+    }
+
+    private static TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(mock(PlatformTransactionManager.class));
+    }
+
     private static ObjectMapper objectMapper() {
         return new ObjectMapper().findAndRegisterModules();
     }
@@ -0,0 +1,157 @@
+package com.kbw.caplog.chat;
+
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.card.service.CardService;
+import com.kbw.caplog.chat.dto.ChatMessageDto;
+import com.kbw.caplog.chat.dto.ShareCardRequest;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.user.FriendDirectory;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserNameRow;
+import com.kbw.caplog.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardShareServiceTest {
+
+    private static final String CARD_ID = "00000000-0000-0000-0000-00000000002a";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final FriendDirectory friendDirectory = mock(FriendDirectory.class);
+    private final CardService cardService = mock(CardService.class);
+    private final CardSnapshotStore cardSnapshots = mock(CardSnapshotStore.class);
+    private final ChatRoomRepository chatRoomRepository = mock(ChatRoomRepository.class);
+    private final ChatMessageBulkInsertRepository bulkInsertRepository = mock(ChatMessageBulkInsertRepository.class);
+    private final CollectionVersionRepository collectionVersions = mock(CollectionVersionRepository.class);
+    private final CardShareService service = new CardShareService(
+            userRepository,
+            friendDirectory,
+            cardService,
+            cardSnapshots,
+            chatRoomRepository,
+            bulkInsertRepository,
+            collectionVersions
+    );
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder()
+                .userNo(1L)
+                .userId("me-user")
+                .name("나")
+                .email("me@example.com")
+                .password("encoded")
+                .build()));
+        List<UserNameRow> rows = List.of(
+                nameRow(2L, "friend-b"),
+                nameRow(3L, "friend-c"),
+                nameRow(4L, "stranger")
+        );
+        when(userRepository.findNameRowsByUserIds(anyCollection())).thenReturn(rows);
+        when(friendDirectory.isFriend(1L, 2L)).thenReturn(true);
+        when(friendDirectory.isFriend(1L, 3L)).thenReturn(true);
+        when(cardService.findOwnedCardByExternalId(1L, CARD_ID))
+                .thenReturn(CardDto.builder().id(CARD_ID).title("테스트 카페").build());
+        when(cardSnapshots.save(any(CardDto.class))).thenReturn("a".repeat(64));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reusesExistingRoomCreatesMissingOneAndInsertsAllMessagesInOneBatch() {
+        DirectRoomRow existing = directRoom(10L, 2L);
+        when(chatRoomRepository.findDirectRooms(eq(1L), anyCollection())).thenReturn(List.of(existing));
+        when(chatRoomRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ChatRoom> rooms = invocation.getArgument(0);
+            rooms.get(0).setId(11L);
+            return rooms;
+        });
+        when(bulkInsertRepository.insertAll(anyList())).thenReturn(List.of(101L, 100L));
+        ShareCardRequest request = new ShareCardRequest();
+        request.setRecipientUserIds(List.of(" friend-c ", "friend-b", "friend-c"));
+        request.setText("여기 가 보자");
+
+        List<ChatMessageDto> sent = service.shareCard(1L, CARD_ID, request);
+
+        assertEquals(List.of("11", "10"), sent.stream().map(ChatMessageDto::getChatId).toList());
+        assertEquals(List.of("101", "100"), sent.stream().map(ChatMessageDto::getId).toList());
+        assertEquals("나", sent.get(0).getSenderName());
+        assertEquals("테스트 카페", sent.get(1).getCard().getTitle());
+
+        ArgumentCaptor<List<ChatRoom>> created = ArgumentCaptor.forClass(List.class);
+        verify(chatRoomRepository).saveAll(created.capture());
+        assertEquals(1, created.getValue().size());
+        assertEquals(Set.of(1L, 3L), Set.copyOf(created.getValue().get(0).getParticipants().stream()
+                .map(ChatRoomParticipant::getUserNo)
+                .toList()));
+
+        ArgumentCaptor<List<ChatMessage>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkInsertRepository, times(1)).insertAll(inserted.capture());
+        assertEquals(List.of(11L, 10L), inserted.getValue().stream().map(m -> m.getChatRoom().getId()).toList());
+        inserted.getValue().forEach(m -> {
+            assertEquals("a".repeat(64), m.getCardSnapshotHash());
+            assertEquals("여기 가 보자", m.getText());
+        });
+        verify(cardSnapshots, times(1)).save(any(CardDto.class));
+        verify(chatRoomRepository).updateLastMessages(anyCollection(), any(Instant.class));
+        verify(chatRoomRepository).copyLastMessageAtToParticipants(anyCollection());
+        verify(collectionVersions).bump(Set.of(1L, 2L, 3L), CollectionVersionRepository.CHATS);
+    }
+
+    @Test
+    void rejectsWholeRequestWhenAnyRecipientIsNotAFriend() {
+        ShareCardRequest request = new ShareCardRequest();
+        request.setRecipientUserIds(List.of("friend-b", "stranger"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.shareCard(1L, CARD_ID, request));
+
+        verify(cardSnapshots, never()).save(any(CardDto.class));
+        verify(bulkInsertRepository, never()).insertAll(anyList());
+        verify(collectionVersions, never()).bump(anyCollection(), anyString());
+    }
+
+    @Test
+    void rejectsTooManyRecipients() {
+        ShareCardRequest request = new ShareCardRequest();
+        request.setRecipientUserIds(IntStream.rangeClosed(0, CardShareService.MAX_RECIPIENTS)
+                .mapToObj(i -> "user-" + i)
+                .toList());
+
+        assertThrows(IllegalArgumentException.class, () -> service.shareCard(1L, CARD_ID, request));
+        verify(userRepository, never()).findNameRowsByUserIds(anyCollection());
+    }
+
+    private static UserNameRow nameRow(Long userNo, String userId) {
+        UserNameRow row = mock(UserNameRow.class);
+        when(row.getUserNo()).thenReturn(userNo);
+        when(row.getUserId()).thenReturn(userId);
+        when(row.getName()).thenReturn(userId);
+        return row;
+    }
+
+    private static DirectRoomRow directRoom(Long roomId, Long otherUserNo) {
+        DirectRoomRow row = mock(DirectRoomRow.class);
+        when(row.getRoomId()).thenReturn(roomId);
+        when(row.getOtherUserNo()).thenReturn(otherUserNo);
+        return row;
+    }
+}
@@ -0,0 +1,109 @@
+package com.kbw.caplog.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kbw.caplog.card.dto.CardDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardSnapshotStoreTest {
+
+    private final CardSnapshotRepository repository = mock(CardSnapshotRepository.class);
+    private final CardSnapshotStore store =
+            new CardSnapshotStore(repository, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+
+    @Test
+    void sameCardGetsSameHashWhateverTheFieldOrder() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("장소명", "테스트 카페");
+        fields.put("주소", "서울 마포구");
+        Map<String, String> reversed = new LinkedHashMap<>();
+        reversed.put("주소", "서울 마포구");
+        reversed.put("장소명", "테스트 카페");
+
+        String first = store.save(card("테스트 카페", fields));
+        String second = store.save(card("테스트 카페", reversed));
+        String other = store.save(card("다른 카페", fields));
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals(64, first.length());
+        verify(repository, times(2)).insertIgnoringExisting(eq(first), any(byte[].class), any(Instant.class));
+    }
+
+    @Test
+    void storesCompressedJsonThatReadsBackAsCard() {
+        ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        String hash = store.save(card("테스트 카페", Map.of("주소", "서울 마포구 망원로 1")));
+        verify(repository).insertIgnoringExisting(eq(hash), payload.capture(), any(Instant.class));
+        String json = new String(CardSnapshotStore.inflate(payload.getValue()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"주소\":\"서울 마포구 망원로 1\""));
+
+        CardSnapshotStore restarted =
+                new CardSnapshotStore(repository, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+        when(repository.findAllById(anyIterable()))
+                .thenReturn(List.of(new CardSnapshot(hash, payload.getValue(), Instant.now())));
+
+        Map<String, CardDto> first = restarted.findAll(Set.of(hash, "0".repeat(64)));
+        Map<String, CardDto> cached = restarted.findAll(Set.of(hash));
+
+        assertEquals(Set.of(hash), first.keySet());
+        assertEquals("테스트 카페", first.get(hash).getTitle());
+        assertEquals("서울 마포구 망원로 1", cached.get(hash).getFields().get("주소"));
+        verify(repository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void cachesItsOwnCopyRatherThanCallersCard() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("주소", "서울 마포구");
+        CardDto card = card("테스트 카페", fields);
+
+        String hash = store.save(card);
+        fields.put("주소", "저장 뒤에 바뀐 주소");
+
+        assertEquals("서울 마포구", store.findAll(Set.of(hash)).get(hash).getFields().get("주소"));
+        verify(repository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void deletesUnreferencedSnapshotsAndEvictsThemFromCache() {
+        String hash = store.save(card("테스트 카페", Map.of("주소", "서울 마포구")));
+
+        store.deleteUnreferenced(Set.of(hash));
+
+        verify(repository).deleteUnreferenced(List.of(hash));
+        assertEquals(Map.of(), store.findAll(Set.of(hash)));
+        verify(repository).findAllById(anyIterable());
+    }
+
+    private static CardDto card(String title, Map<String, String> fields) {
+        return CardDto.builder()
+                .id("00000000-0000-0000-0000-00000000002a")
+                .title(title)
+                .category("Info")
+                .tags(List.of("카페"))
+                .fields(fields)
+                .createdAt(Instant.parse("2026-07-28T00:00:00Z"))
+                .build();
+    }
+}
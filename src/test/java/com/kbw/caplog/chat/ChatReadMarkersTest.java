@@ -0,0 +1,99 @@
+package com.kbw.caplog.chat;
+
+import com.kbw.caplog.support.CollectionVersionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatReadMarkersTest {
+
+    private static final Instant T1 = Instant.parse("2026-07-28T00:00:01Z");
+    private static final Instant T2 = Instant.parse("2026-07-28T00:00:02Z");
+    private static final Instant T3 = Instant.parse("2026-07-28T00:00:03Z");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+    private final ChatReadMarkers markers = new ChatReadMarkers(jdbcTemplate, versions, Duration.ofHours(1));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        markers.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesRepeatedReadsIntoOneRowWithLatestTime() {
+        markers.markRead(11L, 2L, T1);
+        markers.markRead(10L, 1L, T1);
+        markers.markRead(10L, 1L, T3);
+        markers.markRead(10L, 1L, T2);
+
+        assertEquals(2, markers.flush());
+
+        ArgumentCaptor<Collection<Map.Entry<ChatReadMarkers.Marker, Instant>>> batch =
+                ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(ChatReadMarkers.UPDATE_SQL), batch.capture(), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(
+                Map.entry(new ChatReadMarkers.Marker(10L, 1L), T3),
+                Map.entry(new ChatReadMarkers.Marker(11L, 2L), T1)
+        ), new ArrayList<>(batch.getValue()));
+        verify(versions).bump(Set.of(1L, 2L), CollectionVersionRepository.CHATS);
+        assertFalse(markers.isPending(10L, 1L));
+        assertEquals(0, markers.flush());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void keepsMarkersForNextFlushWhenWriteFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new QueryTimeoutException("lock wait timeout"))
+                .thenReturn(new int[][]{{1}});
+        markers.markRead(10L, 1L, T1);
+
+        assertThrows(QueryTimeoutException.class, markers::flush);
+        assertTrue(markers.isPending(10L, 1L));
+        verify(versions, never()).bump(anyCollection(), anyString());
+
+        markers.markRead(10L, 1L, T2);
+        assertEquals(1, markers.flush());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flushesPendingMarkersOnShutdown() throws InterruptedException {
+        markers.markRead(10L, 1L, T1);
+
+        markers.shutdown();
+
+        verify(versions).bump(Set.of(1L), CollectionVersionRepository.CHATS);
+        assertFalse(markers.isPending(10L, 1L));
+    }
+}
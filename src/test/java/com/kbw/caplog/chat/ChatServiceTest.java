@@ -5,9 +5,13 @@ import com.kbw.caplog.card.dto.CardDto;
 import com.kbw.caplog.card.service.CardService;
 import com.kbw.caplog.chat.dto.CreateChatRequest;
 import com.kbw.caplog.chat.dto.SendMessageRequest;
+import com.kbw.caplog.support.CollectionVersionRepository;
+import com.kbw.caplog.user.FriendDirectory;
 import com.kbw.caplog.user.User;
 import com.kbw.caplog.user.UserRepository;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
 
 import java.time.Instant;
 import java.util.List;
@@ -16,16 +20,22 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ChatServiceTest {
 
+    private final FriendDirectory friendDirectory = mock(FriendDirectory.class);
+
     @Test
     void reusesRoomWithSameParticipantsAndReturnsTheirUserIds() {
         ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
@@ -36,7 +46,11 @@ class ChatServiceTest {
                 roomRepository,
                 messageRepository,
                 userRepository,
+                friendDirectory,
                 cardService,
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
 
@@ -64,9 +78,9 @@ class ChatServiceTest {
         when(userRepository.findById(1L)).thenReturn(Optional.of(me));
         when(userRepository.findById(2L)).thenReturn(Optional.of(friend));
         when(userRepository.findByUserId("friend-user")).thenReturn(Optional.of(friend));
+        when(friendDirectory.isFriend(1L, 2L)).thenReturn(true);
+        when(userRepository.findAllById(any())).thenReturn(List.of(me, friend));
         when(roomRepository.findRoomsByParticipantUserNo(1L)).thenReturn(List.of(room));
-        when(messageRepository.findTopByChatRoomIdOrderByCreatedAtDesc(10L))
-                .thenReturn(Optional.empty());
         when(messageRepository.countByChatRoomIdAndSenderUserNoNot(10L, 1L))
                 .thenReturn(0L);
 
@@ -83,7 +97,7 @@ class ChatServiceTest {
     }
 
     @Test
-    void returnsExactUnreadCountAndLoadsOnlyLatestMessageForSummary() {
+    void hydratesOnlyPagedRoomsWithLatestMessageAndExactUnreadCount() {
         ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
         ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
         UserRepository userRepository = mock(UserRepository.class);
@@ -91,13 +105,19 @@ class ChatServiceTest {
                 roomRepository,
                 messageRepository,
                 userRepository,
+                friendDirectory,
                 mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
         Instant lastReadAt = Instant.parse("2026-07-28T00:00:00Z");
         ChatRoom room = ChatRoom.builder()
                 .id(10L)
                 .createdAt(Instant.parse("2026-07-27T00:00:00Z"))
+                .lastMessageAt(Instant.parse("2026-07-28T00:03:00Z"))
+                .lastMessageId(20L)
                 .build();
         room.getParticipants().add(
                 ChatRoomParticipant.builder()
@@ -119,23 +139,26 @@ class ChatServiceTest {
         User me = User.builder().userNo(1L).userId("me").name("나").build();
         User friend = User.builder().userNo(2L).userId("friend").name("친구").build();
 
-        when(roomRepository.findRoomsByParticipantUserNo(1L)).thenReturn(List.of(room));
-        when(messageRepository.findTopByChatRoomIdOrderByCreatedAtDesc(10L))
-                .thenReturn(Optional.of(latestMessage));
+        when(roomRepository.findRoomIdPage(eq(1L), any(Limit.class))).thenReturn(List.of(10L));
+        when(roomRepository.findWithParticipantsByIdIn(List.of(10L))).thenReturn(List.of(room));
+        when(messageRepository.findAllById(List.of(20L))).thenReturn(List.of(latestMessage));
         when(messageRepository.countByChatRoomIdAndSenderUserNoNotAndCreatedAtAfter(
                 10L,
                 1L,
                 lastReadAt
         )).thenReturn(3L);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(me));
-        when(userRepository.findById(2L)).thenReturn(Optional.of(friend));
+        when(userRepository.findAllById(any())).thenReturn(List.of(me, friend));
 
-        var result = service.listRooms(1L);
+        var result = service.listRooms(1L, null, null, 0);
 
         assertEquals(1, result.size());
         assertEquals(3, result.get(0).getUnreadCount());
         assertEquals("세 번째 새 메시지", result.get(0).getLastMessage());
-        verify(messageRepository).findTopByChatRoomIdOrderByCreatedAtDesc(10L);
+        assertEquals("친구", result.get(0).getTitle());
+        assertEquals(Instant.parse("2026-07-28T00:03:00Z"), result.get(0).getUpdatedAt());
+        verify(roomRepository).findRoomIdPage(1L, Limit.unlimited());
+        verify(roomRepository, never()).findRoomsByParticipantUserNo(anyLong());
+        verify(messageRepository, never()).findTopByChatRoomIdOrderByCreatedAtDesc(anyLong());
         verify(messageRepository).countByChatRoomIdAndSenderUserNoNotAndCreatedAtAfter(
                 10L,
                 1L,
@@ -144,17 +167,45 @@ class ChatServiceTest {
         verify(messageRepository, never()).findByChatRoomIdOrderByCreatedAtAsc(10L);
     }
 
+    @Test
+    void capsRoomPagesOnlyWhenPagingWasRequested() {
+        ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
+        ChatService service = new ChatService(
+                roomRepository,
+                mock(ChatMessageRepository.class),
+                mock(UserRepository.class),
+                friendDirectory,
+                mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
+                new ObjectMapper().findAndRegisterModules()
+        );
+        Instant before = Instant.parse("2026-07-28T00:00:00Z");
+
+        service.listRooms(1L, null, null, 500);
+        service.listRooms(1L, before, 10L, 0);
+
+        verify(roomRepository).findRoomIdPage(1L, Limit.of(ChatService.MAX_PAGE_SIZE));
+        verify(roomRepository).findRoomIdPageBefore(1L, before, 10L, Limit.of(ChatService.MAX_PAGE_SIZE));
+    }
+
     @Test
     void storesOwnedCardSnapshotAndReturnsItInMessage() {
         ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
         ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
         UserRepository userRepository = mock(UserRepository.class);
         CardService cardService = mock(CardService.class);
+        CardSnapshotStore cardSnapshots = mock(CardSnapshotStore.class);
         ChatService service = new ChatService(
                 roomRepository,
                 messageRepository,
                 userRepository,
+                friendDirectory,
                 cardService,
+                cardSnapshots,
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
 
@@ -179,6 +230,7 @@ class ChatServiceTest {
 
         when(roomRepository.findById(10L)).thenReturn(Optional.of(room));
         when(cardService.findOwnedCardByExternalId(1L, card.getId())).thenReturn(card);
+        when(cardSnapshots.save(card)).thenReturn("a".repeat(64));
         when(messageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> {
             ChatMessage saved = invocation.getArgument(0);
             saved.setId(99L);
@@ -202,7 +254,11 @@ class ChatServiceTest {
         assertNotNull(result.getCard());
         assertEquals("공유 카드", result.getCard().getTitle());
         verify(cardService).findOwnedCardByExternalId(1L, card.getId());
-        verify(messageRepository).save(any(ChatMessage.class));
+        ArgumentCaptor<ChatMessage> saved = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messageRepository).save(saved.capture());
+        assertEquals("a".repeat(64), saved.getValue().getCardSnapshotHash());
+        assertNull(saved.getValue().getCardSnapshot());
+        verify(roomRepository).updateLastMessage(eq(10L), eq(99L), any(Instant.class));
     }
 
     @Test
@@ -213,7 +269,11 @@ class ChatServiceTest {
                 roomRepository,
                 mock(ChatMessageRepository.class),
                 userRepository,
+                friendDirectory,
                 mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
         User me = User.builder().userNo(1L).userId("me").name("나").build();
@@ -229,30 +289,82 @@ class ChatServiceTest {
         verify(roomRepository, never()).save(any(ChatRoom.class));
     }
 
+    @Test
+    void rejectsChatRoomCreationWithNonFriend() {
+        ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        ChatService service = new ChatService(
+                roomRepository,
+                mock(ChatMessageRepository.class),
+                userRepository,
+                friendDirectory,
+                mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
+                new ObjectMapper().findAndRegisterModules()
+        );
+        when(userRepository.findById(1L)).thenReturn(Optional.of(User.builder().userNo(1L).userId("me").build()));
+        when(userRepository.findByUserId("stranger")).thenReturn(Optional.of(User.builder().userNo(3L).userId("stranger").build()));
+        when(friendDirectory.isFriend(1L, 3L)).thenReturn(false);
+        CreateChatRequest request = new CreateChatRequest();
+        request.setParticipantUserIds(List.of("stranger"));
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> service.createRoom(1L, request)
+        );
+        verify(roomRepository, never()).save(any(ChatRoom.class));
+    }
+
     @Test
     void nonParticipantCannotMarkRoomAsRead() {
         ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
+        ChatReadMarkers readMarkers = mock(ChatReadMarkers.class);
         ChatService service = new ChatService(
                 roomRepository,
                 mock(ChatMessageRepository.class),
                 mock(UserRepository.class),
+                friendDirectory,
                 mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                readMarkers,
                 new ObjectMapper().findAndRegisterModules()
         );
-        ChatRoom room = ChatRoom.builder()
-                .id(10L)
-                .createdAt(Instant.parse("2026-07-28T00:00:00Z"))
-                .build();
-        room.getParticipants().add(
-                ChatRoomParticipant.builder().chatRoom(room).userNo(2L).build()
-        );
-        when(roomRepository.findById(10L)).thenReturn(Optional.of(room));
+        when(roomRepository.existsParticipant(10L, 1L)).thenReturn(false);
 
         assertThrows(
                 IllegalArgumentException.class,
                 () -> service.markRead(10L, 1L)
         );
-        verify(roomRepository, never()).save(any(ChatRoom.class));
+        verify(readMarkers, never()).markRead(anyLong(), anyLong(), any(Instant.class));
+    }
+
+    @Test
+    void repeatedReadSkipsParticipantCheckAndNeverLoadsRoom() {
+        ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
+        ChatReadMarkers readMarkers = mock(ChatReadMarkers.class);
+        ChatService service = new ChatService(
+                roomRepository,
+                mock(ChatMessageRepository.class),
+                mock(UserRepository.class),
+                friendDirectory,
+                mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                readMarkers,
+                new ObjectMapper().findAndRegisterModules()
+        );
+        when(roomRepository.existsParticipant(10L, 1L)).thenReturn(true);
+        when(readMarkers.isPending(10L, 1L)).thenReturn(false, true);
+
+        service.markRead(10L, 1L);
+        service.markRead(10L, 1L);
+
+        verify(roomRepository, times(1)).existsParticipant(10L, 1L);
+        verify(roomRepository, never()).findById(anyLong());
+        verify(readMarkers, times(2)).markRead(eq(10L), eq(1L), any(Instant.class));
     }
 
     @Test
@@ -263,7 +375,11 @@ class ChatServiceTest {
                 roomRepository,
                 messageRepository,
                 mock(UserRepository.class),
+                friendDirectory,
                 mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
         ChatRoom room = ChatRoom.builder()
@@ -288,14 +404,19 @@ class ChatServiceTest {
     }
 
     @Test
-    void leavingAsLastParticipantDeletesMessagesAndRoom() {
+    void leavingAsLastParticipantDeletesMessagesRoomAndOrphanedSnapshots() {
         ChatRoomRepository roomRepository = mock(ChatRoomRepository.class);
         ChatMessageRepository messageRepository = mock(ChatMessageRepository.class);
+        CardSnapshotStore snapshots = mock(CardSnapshotStore.class);
         ChatService service = new ChatService(
                 roomRepository,
                 messageRepository,
                 mock(UserRepository.class),
+                friendDirectory,
                 mock(CardService.class),
+                snapshots,
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
         ChatRoom room = ChatRoom.builder()
@@ -306,6 +427,7 @@ class ChatServiceTest {
                 ChatRoomParticipant.builder().chatRoom(room).userNo(1L).build()
         );
         when(roomRepository.findById(10L)).thenReturn(Optional.of(room));
+        when(messageRepository.findCardSnapshotHashes(10L)).thenReturn(List.of("a".repeat(64)));
 
         service.leaveRoom(10L, 1L);
 
@@ -313,6 +435,7 @@ class ChatServiceTest {
         verify(messageRepository).deleteByChatRoomId(10L);
         verify(roomRepository).delete(room);
         verify(roomRepository, never()).save(any(ChatRoom.class));
+        verify(snapshots).deleteUnreferenced(List.of("a".repeat(64)));
     }
 
     @Test
@@ -323,7 +446,11 @@ class ChatServiceTest {
                 roomRepository,
                 messageRepository,
                 mock(UserRepository.class),
+                friendDirectory,
                 mock(CardService.class),
+                mock(CardSnapshotStore.class),
+                mock(CollectionVersionRepository.class),
+                mock(ChatReadMarkers.class),
                 new ObjectMapper().findAndRegisterModules()
         );
         ChatRoom room = ChatRoom.builder()
@@ -0,0 +1,89 @@
+package com.kbw.caplog.recommendation.service;
+
+import com.kbw.caplog.recommendation.dto.NearbyResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearbyCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final NearbyCache cache = new NearbyCache(registry);
+
+    @Test
+    void coalescesConcurrentIdenticalRequests() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        List<NearbyResponse> rows = List.of(new NearbyResponse(1L, "카드", null, null, null, 37.5, 127.0, null));
+
+        CompletableFuture<List<NearbyResponse>> first = CompletableFuture.supplyAsync(() ->
+                cache.get(42L, "wydm9qy", 1000, 3, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    await(release);
+                    return rows;
+                }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<NearbyResponse>> second = CompletableFuture.supplyAsync(() ->
+                cache.get(42L, "wydm9qy", 1000, 3, () -> {
+                    loads.incrementAndGet();
+                    return List.of();
+                }));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("coalesced") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(rows, first.get(5, TimeUnit.SECONDS));
+        assertEquals(rows, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("coalesced"));
+
+        cache.get(42L, "wydm9qy", 1000, 3, List::of);
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void doesNotKeepFailedLoads() {
+        assertThrows(IllegalStateException.class, () -> cache.get(42L, "wydm9qy", 1000, 3, () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        List<NearbyResponse> retried = cache.get(42L, "wydm9qy", 1000, 3, List::of);
+
+        assertEquals(List.of(), retried);
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    void encodesGeohashCells() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        double[] center = Geohash.center("u4pruydqqvj");
+        assertEquals(57.64911, center[0], 1e-5);
+        assertEquals(10.40744, center[1], 1e-5);
+    }
+
+    private double count(String result) {
+        return registry.get(NearbyCache.METRIC).tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
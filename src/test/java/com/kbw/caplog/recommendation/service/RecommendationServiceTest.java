@@ -1,12 +1,29 @@
 package com.kbw.caplog.recommendation.service;
 
+import com.kbw.caplog.card.service.CardFacetService;
+import com.kbw.caplog.recommendation.dto.NearbyResponse;
+import com.kbw.caplog.recommendation.dto.ViewportResponse;
+import com.kbw.caplog.recommendation.repository.MapClusterProjection;
+import com.kbw.caplog.recommendation.repository.MapPinProjection;
 import com.kbw.caplog.recommendation.repository.NearbyProjection;
 import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,13 +36,188 @@ class RecommendationServiceTest {
         NearbyProjection projection = mock(NearbyProjection.class);
         when(projection.getPlaceName()).thenReturn("테스트 카페");
         when(projection.getAddress()).thenReturn("서울");
-        when(repository.findNearby(42L, 37.5, 127.0, 1000, 15))
+        double[] center = Geohash.center(Geohash.encode(37.5, 127.0, NearbyCache.CELL_PRECISION));
+        when(repository.findNearby(eq(42L), eq(center[0]), eq(center[1]), anyInt(), eq(RecommendationService.MAX_CANDIDATES)))
                 .thenReturn(List.of(projection));
 
-        RecommendationService service = new RecommendationService(repository);
+        RecommendationService service = service(repository);
         var result = service.findNearby(42L, 37.5, 127.0, 1000, 3);
 
         assertEquals(1, result.size());
-        verify(repository).findNearby(42L, 37.5, 127.0, 1000, 15);
+        verify(repository).findNearby(42L, center[0], center[1], 1000, RecommendationService.MAX_CANDIDATES);
+    }
+
+    @Test
+    void reusesCachedResultInsideSameCellAndRecomputesDistance() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        NearbyProjection cafe = nearby(1L, "테스트 카페", 37.5010, 127.0000);
+        when(repository.findNearby(eq(42L), anyDouble(), anyDouble(), anyInt(), anyInt()))
+                .thenReturn(List.of(cafe));
+        RecommendationService service = service(repository);
+
+        var first = service.findNearby(42L, 37.5000, 127.0000, 1000, 3);
+        var second = service.findNearby(42L, 37.5001, 127.0000, 1000, 3);
+
+        verify(repository, times(1)).findNearby(eq(42L), anyDouble(), anyDouble(), eq(1000), anyInt());
+        assertEquals(111, first.get(0).distanceMeters(), 1);
+        assertEquals(100, second.get(0).distanceMeters(), 1);
+    }
+
+    @Test
+    void queriesAgainAfterUserCardsChange() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        NearbyCache cache = new NearbyCache(new SimpleMeterRegistry());
+        RecommendationService service = new RecommendationService(repository, cache, ranker(), noCards());
+
+        service.findNearby(42L, 37.5, 127.0, 1000, 3);
+        service.findNearby(7L, 37.5, 127.0, 1000, 3);
+        cache.invalidate(42L);
+        service.findNearby(42L, 37.5, 127.0, 1000, 3);
+        service.findNearby(7L, 37.5, 127.0, 1000, 3);
+
+        verify(repository, times(2)).findNearby(eq(42L), anyDouble(), anyDouble(), eq(1000), anyInt());
+        verify(repository, times(1)).findNearby(eq(7L), anyDouble(), anyDouble(), eq(1000), anyInt());
+    }
+
+    @Test
+    void ranksCandidatesByDistanceRecencyAndCategoryInsteadOfDistanceOnly() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        CardFacetService facets = mock(CardFacetService.class);
+        when(facets.categoryShares(42L)).thenReturn(Map.of("Info", 0.8, "Log", 0.2));
+        List<NearbyProjection> candidates = List.of(
+                candidate(1L, "오래된 가까운 곳", 50, 365 * DAY, 3L),
+                candidate(2L, "어제 저장한 맛집", 300, DAY, 0L),
+                candidate(3L, "지난달 맛집", 200, 30 * DAY, 0L),
+                candidate(4L, "먼 곳", 4_000, DAY, 0L),
+                candidate(5L, "어제 저장한 맛집", 900, 2 * DAY, 0L)
+        );
+        when(repository.findNearby(eq(42L), anyDouble(), anyDouble(), anyInt(), anyInt())).thenReturn(candidates);
+
+        var result = new RecommendationService(repository, new NearbyCache(new SimpleMeterRegistry()), ranker(), facets)
+                .findNearby(42L, 37.5, 127.0, 1000, 3);
+
+        // 가중치 기본값(거리 0.6, 최신성 0.25, 카테고리 0.15): 2 ≈ 0.79, 3 ≈ 0.73, 1 ≈ 0.60, 4 ≈ 0.40
+        // 거리만 보면 1, 3, 2 순. 5는 2와 같은 장소라 빠진다
+        assertEquals(List.of(2L, 3L, 1L), result.stream().map(NearbyResponse::id).toList());
+    }
+
+    @Test
+    void selectsTopKWithoutSortingEveryCandidate() {
+        RecommendationRanker ranker = ranker();
+        List<NearbyProjection> candidates = new ArrayList<>();
+        for (long i = 1; i <= 10_000; i++) {
+            candidates.add(candidate(i, "장소 " + i, i, DAY, 0L));
+        }
+        Collections.shuffle(candidates);
+
+        List<NearbyProjection> top = ranker.topK(candidates, 3, new ScoringContext(42L, Map.of()), NearbyProjection::getPlaceName);
+
+        assertEquals(List.of(1L, 2L, 3L), top.stream().map(NearbyProjection::getId).toList());
+    }
+
+    @Test
+    void returnsIndividualPinsWhenViewportHasFewCards() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        MapPinProjection pin = mock(MapPinProjection.class);
+        when(pin.getId()).thenReturn(7L);
+        when(repository.findPinsInViewport(42L, 37.4, 126.8, 37.7, 127.2, RecommendationService.MAX_PINS + 1))
+                .thenReturn(List.of(pin));
+
+        ViewportResponse result = service(repository)
+                .findViewport(42L, 37.4, 126.8, 37.7, 127.2, 5);
+
+        assertEquals(1, result.total());
+        assertEquals(7L, result.pins().get(0).id());
+        assertTrue(result.clusters().isEmpty());
+        verify(repository, never()).findClustersInViewport(anyLong(), anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void clustersOnZoomGridWhenViewportHasTooManyCards() {
+        ScreenshotRepository repository = mock(ScreenshotRepository.class);
+        List<MapPinProjection> tooMany = new ArrayList<>(Collections.nCopies(
+                RecommendationService.MAX_PINS + 1, mock(MapPinProjection.class)));
+        when(repository.findPinsInViewport(42L, 37.4, 126.8, 37.7, 127.2, RecommendationService.MAX_PINS + 1))
+                .thenReturn(tooMany);
+        MapClusterProjection busy = cluster(500L, 37.55, 126.95, 1L);
+        MapClusterProjection single = cluster(1L, 37.45, 127.1, 99L);
+        double cell = 360.0 / (1 << 12);
+        when(repository.findClustersInViewport(42L, 37.4, 126.8, 37.7, 127.2, cell))
+                .thenReturn(List.of(busy, single));
+
+        ViewportResponse result = service(repository)
+                .findViewport(42L, 37.4, 126.8, 37.7, 127.2, 10);
+
+        assertEquals(501, result.total());
+        assertEquals(cell, result.cellDegrees());
+        assertTrue(result.pins().isEmpty());
+        assertNull(result.clusters().get(0).cardId());
+        assertEquals(99L, result.clusters().get(1).cardId());
+    }
+
+    @Test
+    void widensClusterCellsWhenZoomDoesNotMatchViewport() {
+        // zoom 15면 칸이 약 0.0027도인데 뷰포트가 한국 전체(약 7도)면 칸을 키워 한 변 24칸 이하로
+        double cell = RecommendationService.cellDegrees(15, 7.0);
+
+        assertTrue(7.0 / cell <= RecommendationService.MAX_CELLS_PER_AXIS);
+        assertTrue(7.0 / (cell / 2) > RecommendationService.MAX_CELLS_PER_AXIS);
+        assertEquals(360.0 / (1 << 17), RecommendationService.cellDegrees(15, 0.01));
+    }
+
+    private static final long DAY = 86_400;
+
+    private static RecommendationService service(ScreenshotRepository repository) {
+        return new RecommendationService(repository, new NearbyCache(new SimpleMeterRegistry()), ranker(), noCards());
+    }
+
+    private static RecommendationRanker ranker() {
+        return new RecommendationRanker(List.of(
+                new DistanceDecayScorer(0.6, 500),
+                new RecencyScorer(0.25, 30),
+                new CategoryAffinityScorer(0.15)
+        ));
+    }
+
+    private static CardFacetService noCards() {
+        CardFacetService facets = mock(CardFacetService.class);
+        when(facets.categoryShares(anyLong())).thenReturn(Map.of());
+        return facets;
+    }
+
+    private static NearbyProjection candidate(Long id, String placeName, double distanceMeters, long ageSeconds, Long categoryId) {
+        return new Candidate(id, placeName, distanceMeters, ageSeconds, categoryId);
+    }
+
+    private record Candidate(Long id, String placeName, Double distanceMeters, Long ageSeconds, Long categoryId)
+            implements NearbyProjection {
+        @Override public Long getId() { return id; }
+        @Override public String getTitle() { return placeName; }
+        @Override public String getSummary() { return null; }
+        @Override public String getPlaceName() { return placeName; }
+        @Override public String getAddress() { return null; }
+        @Override public Double getLat() { return null; }
+        @Override public Double getLng() { return null; }
+        @Override public Double getDistanceMeters() { return distanceMeters; }
+        @Override public Long getCategoryId() { return categoryId; }
+        @Override public Long getAgeSeconds() { return ageSeconds; }
+    }
+
+    private static NearbyProjection nearby(Long id, String placeName, double lat, double lng) {
+        NearbyProjection projection = mock(NearbyProjection.class);
+        when(projection.getId()).thenReturn(id);
+        when(projection.getPlaceName()).thenReturn(placeName);
+        when(projection.getLat()).thenReturn(lat);
+        when(projection.getLng()).thenReturn(lng);
+        return projection;
+    }
+
+    private static MapClusterProjection cluster(long count, double lat, double lng, long sampleId) {
+        MapClusterProjection cluster = mock(MapClusterProjection.class);
+        when(cluster.getCount()).thenReturn(count);
+        when(cluster.getLat()).thenReturn(lat);
+        when(cluster.getLng()).thenReturn(lng);
+        when(cluster.getSampleId()).thenReturn(sampleId);
+        return cluster;
     }
 }
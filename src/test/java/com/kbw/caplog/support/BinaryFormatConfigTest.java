@@ -0,0 +1,86 @@
+package com.kbw.caplog.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kbw.caplog.card.dto.CardDto;
+import com.kbw.caplog.user.dto.FriendDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryFormatConfigTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+
+    @Test
+    void writesOnlyCardAndChatResponses() {
+        MappingJackson2CborHttpMessageConverter cbor = BinaryFormatConfig.cborConverter(builder);
+        Type cards = ResolvableType.forClassWithGenerics(List.class, CardDto.class).getType();
+        Type friends = ResolvableType.forClassWithGenerics(List.class, FriendDto.class).getType();
+
+        assertTrue(cbor.canWrite(cards, List.class, CBOR));
+        assertTrue(cbor.canWrite(CardDto.class, CardDto.class, CBOR));
+        assertFalse(cbor.canWrite(friends, List.class, CBOR));
+        assertFalse(cbor.canWrite(Map.class, Map.class, CBOR));
+        assertFalse(cbor.canRead(CardDto.class, null, CBOR));
+    }
+
+    @Test
+    void writesTimestampsAsEpochMillis() throws Exception {
+        MappingJackson2SmileHttpMessageConverter smile = BinaryFormatConfig.smileConverter(builder);
+        CardDto card = CardDto.builder()
+                .id("00000000-0000-0000-0000-00000000002a")
+                .title("테스트 카페")
+                .fields(Map.of("장소명", "테스트 카페", "주소", "서울 마포구"))
+                .createdAt(Instant.parse("2026-07-01T00:00:00.123Z"))
+                .build();
+        Type cards = ResolvableType.forClassWithGenerics(List.class, CardDto.class).getType();
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        smile.write(List.of(card), cards, SMILE, output);
+
+        JsonNode written = new ObjectMapper(new SmileFactory()).readTree(output.getBodyAsBytes()).get(0);
+        assertTrue(written.get("createdAt").isIntegralNumber());
+        assertEquals(Instant.parse("2026-07-01T00:00:00.123Z").toEpochMilli(), written.get("createdAt").asLong());
+        assertEquals("서울 마포구", written.get("fields").get("주소").asText());
+    }
+
+    @Test
+    void replacesDefaultBinaryConvertersAfterJson() {
+        MappingJackson2HttpMessageConverter json = new MappingJackson2HttpMessageConverter();
+        MappingJackson2CborHttpMessageConverter defaultCbor = new MappingJackson2CborHttpMessageConverter();
+        List<HttpMessageConverter<?>> converters = new ArrayList<>(List.of(
+                new StringHttpMessageConverter(), json, defaultCbor, new MappingJackson2SmileHttpMessageConverter()));
+
+        new BinaryFormatConfig(builder).extendMessageConverters(converters);
+
+        assertEquals(4, converters.size());
+        assertEquals(json, converters.get(1));
+        assertInstanceOf(MappingJackson2CborHttpMessageConverter.class, converters.get(2));
+        assertNotSame(defaultCbor, converters.get(2));
+        assertInstanceOf(MappingJackson2SmileHttpMessageConverter.class, converters.get(3));
+    }
+}
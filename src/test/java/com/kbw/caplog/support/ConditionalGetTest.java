@@ -0,0 +1,62 @@
+package com.kbw.caplog.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConditionalGetTest {
+
+    private final CollectionVersionRepository versions = mock(CollectionVersionRepository.class);
+    private final ConditionalGet conditionalGet = new ConditionalGet(versions);
+
+    @Test
+    void skipsBodyWhenTagMatches() {
+        when(versions.find(7L, CollectionVersionRepository.CARDS)).thenReturn(3L);
+        AtomicInteger built = new AtomicInteger();
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/cards");
+        ResponseEntity<String> full = conditionalGet.respond(first, 7L, CollectionVersionRepository.CARDS,
+                () -> "body" + built.incrementAndGet());
+
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/api/cards");
+        second.addHeader("If-None-Match", "\"other\", " + full.getHeaders().getETag());
+        ResponseEntity<String> notModified = conditionalGet.respond(second, 7L, CollectionVersionRepository.CARDS,
+                () -> "body" + built.incrementAndGet());
+
+        assertEquals(200, full.getStatusCode().value());
+        assertEquals(304, notModified.getStatusCode().value());
+        assertNull(notModified.getBody());
+        assertEquals(1, built.get());
+        assertEquals("no-cache, private", notModified.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void tagChangesWithVersionUserQueryAndFormat() {
+        String base = ConditionalGet.etag(7L, "CARDS", 3, "limit=20", null);
+
+        assertNotEquals(base, ConditionalGet.etag(7L, "CARDS", 4, "limit=20", null));
+        assertNotEquals(base, ConditionalGet.etag(8L, "CARDS", 3, "limit=20", null));
+        assertNotEquals(base, ConditionalGet.etag(7L, "CARDS", 3, "limit=50", null));
+        assertNotEquals(base, ConditionalGet.etag(7L, "CHATS", 3, "limit=20", null));
+        assertNotEquals(base, ConditionalGet.etag(7L, "CARDS", 3, "limit=20", "application/cbor"));
+    }
+
+    @Test
+    void comparesWeaklyAndAcceptsWildcard() {
+        String etag = ConditionalGet.etag(7L, "CARDS", 3, null, null);
+
+        assertTrue(ConditionalGet.matches(etag.substring(2), etag));
+        assertTrue(ConditionalGet.matches("*", etag));
+        assertFalse(ConditionalGet.matches(null, etag));
+        assertFalse(ConditionalGet.matches(ConditionalGet.etag(7L, "CARDS", 2, null, null), etag));
+    }
+}
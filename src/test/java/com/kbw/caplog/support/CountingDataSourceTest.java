@@ -0,0 +1,58 @@
+package com.kbw.caplog.support;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CountingDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final PreparedStatement prepared = mock(PreparedStatement.class);
+    private final Statement plain = mock(Statement.class);
+    private final CountingDataSource dataSource = new CountingDataSource(target);
+
+    @Test
+    void countsEveryExecutionIncludingBatchesAndPlainStatements() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(prepared);
+        when(connection.createStatement()).thenReturn(plain);
+
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            Connection counted = dataSource.getConnection();
+            PreparedStatement update = counted.prepareStatement("UPDATE collection_version SET version = version + 1");
+            update.executeUpdate();
+            update.addBatch();
+            update.addBatch();
+            update.executeBatch();
+            counted.createStatement().executeQuery("SELECT 1");
+
+            assertEquals(3, scope.count());
+            assertEquals(List.of(
+                    "UPDATE collection_version SET version = version + 1",
+                    "UPDATE collection_version SET version = version + 1",
+                    "SELECT 1"
+            ), scope.statements());
+        }
+        verify(prepared).executeBatch();
+    }
+
+    @Test
+    void handsOutPlainConnectionOutsideCountingScope() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+
+        assertSame(connection, dataSource.getConnection());
+    }
+}
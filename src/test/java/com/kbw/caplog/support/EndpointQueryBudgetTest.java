@@ -0,0 +1,320 @@
+package com.kbw.caplog.support;
+
+import com.jayway.jsonpath.JsonPath;
+import com.kbw.caplog.auth.security.JwtUtil;
+import com.kbw.caplog.card.repository.CardTombstoneRepository;
+import com.kbw.caplog.chat.CardSnapshotRepository;
+import com.kbw.caplog.chat.ChatMessage;
+import com.kbw.caplog.chat.ChatMessageRepository;
+import com.kbw.caplog.chat.ChatRoom;
+import com.kbw.caplog.chat.ChatRoomParticipant;
+import com.kbw.caplog.chat.ChatRoomRepository;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import com.kbw.caplog.user.Friendship;
+import com.kbw.caplog.user.FriendshipRepository;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * REST 엔드포인트별 SQL 예산
+ *
+ * <p>H2(MySQL 모드)에 고정된 데이터(친구 2명, 채팅방 2개, 카드 3장)를 넣고 실제 요청을 보내
+ * JDBC로 나간 SQL 수를 잽니다 (Hibernate와 JdbcTemplate 모두, JDBC 배치는 한 번). 예산을 넘기면 실패하므로, 새 N+1이 생기면 여기서 드러납니다.
+ * 알려진 N+1이 있는 엔드포인트는 지금 값을 예산으로 두고 주석에 내역을 적었습니다.
+ * 고치면 예산도 함께 낮춥니다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointQueryBudgetTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+    @Autowired private ChatRoomRepository chatRoomRepository;
+    @Autowired private ChatMessageRepository messageRepository;
+    @Autowired private ScreenshotRepository screenshotRepository;
+    @Autowired private CardTombstoneRepository tombstoneRepository;
+    @Autowired private CardSnapshotRepository cardSnapshotRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User me;
+    private User friendB;
+    private User friendC;
+    private User stranger;
+    private ChatRoom roomWithB;
+    private Screenshot myCard;
+
+    @BeforeEach
+    void setUp() {
+        me = user("me");
+        friendB = user("b");
+        friendC = user("c");
+        stranger = user("d");
+        befriend(me, friendB);
+        befriend(me, friendC);
+
+        roomWithB = room(me, friendB);
+        room(me, friendC);
+        message(roomWithB, me, "안녕");
+        message(roomWithB, friendB, "반가워");
+        message(roomWithB, me, "카드 보낼게");
+
+        for (int i = 0; i < 3; i++) {
+            Screenshot screenshot = new Screenshot();
+            screenshot.setUserNo(me.getUserNo());
+            screenshot.setCategoryId(0L);
+            screenshot.setTitle("카드 " + i);
+            screenshot.setTagsJson("[\"태그\"]");
+            screenshot.setFieldsJson("{}");
+            myCard = screenshotRepository.save(screenshot);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        messageRepository.deleteAllInBatch();
+        cardSnapshotRepository.deleteAllInBatch();
+        chatRoomRepository.deleteAll();
+        friendshipRepository.deleteAllInBatch();
+        tombstoneRepository.deleteAllInBatch();
+        screenshotRepository.deleteAllInBatch();
+        // JdbcTemplate으로만 쓰는 집계·버전 행. 남으면 다음 테스트의 ETag·집계가 이전 값을 이어받는다
+        jdbcTemplate.update("DELETE FROM card_facet_count");
+        jdbcTemplate.update("DELETE FROM collection_version");
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listCards() throws Exception {
+        // 사용자 조회 + 목록 버전 + 목록 페이지
+        QueryBudget.atMost(3, () -> mockMvc.perform(authed(get("/api/cards")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3)));
+    }
+
+    @Test
+    void listCardsNotModified() throws Exception {
+        // 사용자 조회 + 목록 버전 (카드는 읽지 않음)
+        String etag = mockMvc.perform(authed(get("/api/cards")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        QueryBudget.atMost(2, () -> mockMvc.perform(authed(get("/api/cards")).header("If-None-Match", etag))
+                .andExpect(status().isNotModified()));
+    }
+
+    @Test
+    void cardWriteChangesListEtag() throws Exception {
+        String etag = mockMvc.perform(authed(get("/api/cards")))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(authed(post("/api/cards"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"새 카드\",\"category\":\"Info\",\"tags\":[]}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(authed(get("/api/cards")).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4));
+    }
+
+    @Test
+    void cardChanges() throws Exception {
+        // 사용자 조회 + 변경 번호 + 삭제 기록 보관 하한 + 바뀐 카드 + 삭제 기록
+        QueryBudget.atMost(5, () -> mockMvc.perform(authed(get("/api/cards/changes").param("since", "0")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fullResync").value(false)));
+    }
+
+    @Test
+    void createCardWithoutLocation() throws Exception {
+        // 사용자 조회 + 변경 번호 증가·조회 + INSERT + 집계 업서트 배치 + TOTAL 증감
+        QueryBudget.atMost(6, () -> mockMvc.perform(authed(post("/api/cards"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"새 카드\",\"category\":\"Info\",\"tags\":[\"a\"]}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void listFriends() throws Exception {
+        // 사용자 조회 + 목록 버전 + 친구 JOIN FETCH
+        QueryBudget.atMost(3, () -> mockMvc.perform(authed(get("/api/users/friends")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2)));
+    }
+
+    @Test
+    void listFriendsNextPage() throws Exception {
+        // 사용자 조회 + 목록 버전 + 커서 뒤 친구 (커서 정렬 키는 서브쿼리)
+        QueryBudget.atMost(3, () -> mockMvc.perform(authed(get("/api/users/friends"))
+                        .param("after", friendB.getUserId())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(friendC.getUserId())));
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        // 사용자 조회 + userId 앞부분 + 이름 앞부분 (userId 쪽이 한 페이지를 못 채웠을 때)
+        QueryBudget.atMost(3, () -> mockMvc.perform(authed(get("/api/users/search")).param("prefix", "zz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0)));
+    }
+
+    @Test
+    void addFriend() throws Exception {
+        // 사용자 조회, 친구 조회, 양방향 upsert 1번, 두 사람 친구 목록 버전 (배치 1번)
+        QueryBudget.atMost(4, () -> mockMvc.perform(authed(post("/api/users/friends"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":\"" + stranger.getUserId() + "\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void listChatRooms() throws Exception {
+        // 사용자 조회, 목록 버전, 방 id 페이지, 참여자, 마지막 메시지, 사용자 한 번씩 + 방마다 안 읽은 수
+        QueryBudget.atMost(6 + 2, () -> mockMvc.perform(authed(get("/api/share/chats")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2)));
+    }
+
+    @Test
+    void listChatRoomsNextPage() throws Exception {
+        MvcResult first = mockMvc.perform(authed(get("/api/share/chats").param("limit", "1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn();
+        String updatedAt = JsonPath.read(first.getResponse().getContentAsString(), "$[0].updatedAt");
+        String id = JsonPath.read(first.getResponse().getContentAsString(), "$[0].id");
+
+        // 사용자 조회, 목록 버전, 커서 다음 방 id 페이지, 참여자, 사용자 + 안 읽은 수 (이 방은 마지막 메시지 id가 없음)
+        QueryBudget.atMost(5 + 1, () -> mockMvc.perform(authed(get("/api/share/chats")
+                        .param("before", updatedAt).param("beforeId", id).param("limit", "1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(String.valueOf(roomWithB.getId()))));
+    }
+
+    @Test
+    void listChatRoomsNotModifiedUntilNewMessage() throws Exception {
+        String etag = mockMvc.perform(authed(get("/api/share/chats")))
+                .andReturn().getResponse().getHeader("ETag");
+        // 사용자 조회 + 목록 버전 (방 요약 N+1을 건너뜀)
+        QueryBudget.atMost(2, () -> mockMvc.perform(authed(get("/api/share/chats")).header("If-None-Match", etag))
+                .andExpect(status().isNotModified()));
+
+        mockMvc.perform(authed(post("/api/share/chats/" + roomWithB.getId() + "/messages"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"답장\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(authed(get("/api/share/chats")).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shareCardToFriends() throws Exception {
+        befriend(me, stranger);
+        String cardId = String.format("00000000-0000-0000-0000-%012x", myCard.getId());
+
+        // 사용자 조회, 나, 받는 사람들, 내 친구 목록(캐시 적재), 카드, 스냅샷 upsert, 기존 1:1 방,
+        // 없던 방 INSERT + 참여자 2명, 메시지 배치, 방 마지막 활동, 참여자 사본, 목록 버전 배치
+        MvcResult result = QueryBudget.atMost(14, () -> mockMvc.perform(authed(post("/api/share/cards/" + cardId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"recipientUserIds\":[\"" + friendB.getUserId() + "\",\"" + stranger.getUserId() + "\"],\"text\":\"여기\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].chatId").value(String.valueOf(roomWithB.getId())))
+                .andReturn());
+
+        String body = result.getResponse().getContentAsString();
+        List<String> ids = JsonPath.read(body, "$[*].id");
+        List<String> chatIds = JsonPath.read(body, "$[*].chatId");
+        for (int i = 0; i < ids.size(); i++) {
+            ChatMessage sent = messageRepository.findById(Long.valueOf(ids.get(i))).orElseThrow();
+            assertEquals(Long.valueOf(chatIds.get(i)), sent.getChatRoom().getId());
+            assertEquals("여기", sent.getText());
+        }
+    }
+
+    @Test
+    void markChatRead() throws Exception {
+        // 사용자 조회 + 참여 여부. 방은 읽지 않고, UPDATE는 ChatReadMarkers가 모아서 다른 스레드에서
+        QueryBudget.atMost(2, () -> mockMvc.perform(authed(patch("/api/share/chats/" + roomWithB.getId() + "/read")))
+                .andExpect(status().isNoContent()));
+    }
+
+    @Test
+    void listChatMessages() throws Exception {
+        // 사용자 조회, 방, 참여자, 메시지, 보낸 사람별 1번 (같은 트랜잭션이라 같은 사람은 캐시)
+        QueryBudget.atMost(4 + 2, () -> mockMvc.perform(authed(get("/api/share/chats/" + roomWithB.getId() + "/messages")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3)));
+    }
+
+    private MockHttpServletRequestBuilder authed(MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + jwtUtil.generateAccessToken(me.getEmail()));
+    }
+
+    private User user(String id) {
+        return userRepository.save(User.builder()
+                .email(id + "@caplog.test")
+                .password("{noop}secret")
+                .userId(id)
+                .name(id.toUpperCase())
+                .build());
+    }
+
+    private void befriend(User owner, User friend) {
+        friendshipRepository.saveAll(List.of(
+                Friendship.builder().ownerUserNo(owner.getUserNo()).friendUserNo(friend.getUserNo()).build(),
+                Friendship.builder().ownerUserNo(friend.getUserNo()).friendUserNo(owner.getUserNo()).build()
+        ));
+    }
+
+    private ChatRoom room(User... members) {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        ChatRoom room = ChatRoom.builder().createdAt(now).lastMessageAt(now).build();
+        for (User member : members) {
+            room.getParticipants().add(ChatRoomParticipant.builder()
+                    .chatRoom(room)
+                    .userNo(member.getUserNo())
+                    .lastMessageAt(now)
+                    .build());
+        }
+        return chatRoomRepository.save(room);
+    }
+
+    private void message(ChatRoom room, User sender, String text) {
+        messageRepository.save(ChatMessage.builder()
+                .chatRoom(room)
+                .senderUserNo(sender.getUserNo())
+                .text(text)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.kbw.caplog.support;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 쿼리 예산 검사
+ *
+ * <pre>
+ * QueryBudget.atMost(2, () -> mockMvc.perform(get("/api/cards")...));
+ * </pre>
+ *
+ * 같은 스레드에서 JDBC로 보낸 SQL(Hibernate, JdbcTemplate 모두)이 예산을 넘으면 실행된 SQL 목록과 함께 실패합니다.
+ * MockMvc는 요청을 테스트 스레드에서 처리하므로 컨트롤러부터 리포지토리까지 모두 잡힙니다.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    public static <T> T atMost(int budget, Action<T> action) throws Exception {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            T result = action.run();
+            if (scope.count() > budget) {
+                fail("expected at most " + budget + " SQL statements but was " + scope.count() + ":\n  "
+                        + String.join("\n  ", scope.statements()));
+            }
+            return result;
+        }
+    }
+}
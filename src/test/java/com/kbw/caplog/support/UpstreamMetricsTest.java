@@ -0,0 +1,59 @@
+package com.kbw.caplog.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UpstreamMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UpstreamMetrics metrics = new UpstreamMetrics(registry);
+
+    @Test
+    void recordsBlockingCallsByOutcome() {
+        metrics.time("kakao", "address", () -> "{}");
+        assertThrows(IllegalStateException.class, () -> metrics.time("kakao", "address", () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        assertEquals(1, count("kakao", "address", "success"));
+        assertEquals(1, count("kakao", "address", "error"));
+    }
+
+    @Test
+    void timesReactiveCallsOnlyOnceSubscribed() {
+        Mono<String> call = metrics.time("openai", "classify", Mono.just("ok"));
+        assertEquals(0, registry.find(UpstreamMetrics.TIMER).timers().size());
+
+        call.block();
+        metrics.time("openai", "classify_stream", Flux.just("a", "b")).blockLast();
+        metrics.time("openai", "classify_stream", Flux.range(0, 10)).take(1).blockLast();
+
+        assertEquals(1, count("openai", "classify", "success"));
+        assertEquals(1, count("openai", "classify_stream", "success"));
+        assertEquals(1, count("openai", "classify_stream", "cancelled"));
+    }
+
+    @Test
+    void recordsSavedPromptTokensPerRequest() {
+        metrics.recordPromptTokensSaved("openai", "classify", 120, false);
+        metrics.recordPromptTokensSaved("openai", "classify", 30, false);
+
+        var summary = registry.get(UpstreamMetrics.PROMPT_TOKENS_SAVED)
+                .tags("upstream", "openai", "operation", "classify", "truncated", "false")
+                .summary();
+        assertEquals(2, summary.count());
+        assertEquals(150, summary.totalAmount());
+    }
+
+    private long count(String upstream, String operation, String outcome) {
+        return registry.get(UpstreamMetrics.TIMER)
+                .tags("upstream", upstream, "operation", operation, "outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,180 @@
+package com.kbw.caplog.support;
+
+import com.kbw.caplog.CaplogApplication;
+import com.kbw.caplog.auth.security.JwtUtil;
+import com.kbw.caplog.recommendation.domain.Screenshot;
+import com.kbw.caplog.recommendation.repository.ScreenshotRepository;
+import com.kbw.caplog.user.User;
+import com.kbw.caplog.user.UserRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 플랫폼 스레드 vs 가상 스레드 부하 비교 (./gradlew loadTest -PjavaVersion=21)
+ *
+ * <p>응답이 느린 Kakao 대역 서버를 띄우고, 같은 앱을 두 모드로 차례로 띄워
+ * POST /api/geocode/{id}(DB 조회 → Kakao 블로킹 호출 → DB 저장)를 동시에 두드립니다.
+ * 처리량과 p50/p99 지연을 표로 출력합니다. JDK 17에서는 virtual 설정이 무시되어 두 줄이 비슷하게 나옵니다.
+ *
+ * <p>기본 test 태스크에서는 제외됩니다 (@Tag("load")).
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = 400;
+    private static final int REQUESTS = 4_000;
+    private static final Duration KAKAO_DELAY = Duration.ofMillis(200);
+
+    @Test
+    void comparesPlatformAndVirtualThreadsWithSlowKakao() throws Exception {
+        HttpServer kakao = slowKakaoStub();
+        try {
+            Result platform = run(kakao.getAddress().getPort(), false);
+            Result virtual = run(kakao.getAddress().getPort(), true);
+
+            System.out.printf("JDK %d, %d requests, concurrency %d, Kakao delay %dms%n",
+                    Runtime.version().feature(), REQUESTS, CONCURRENCY, KAKAO_DELAY.toMillis());
+            System.out.printf("%-9s %10s %8s %8s %7s%n", "mode", "req/s", "p50(ms)", "p99(ms)", "errors");
+            for (Result result : List.of(platform, virtual)) {
+                System.out.printf("%-9s %10.0f %8.1f %8.1f %7d%n",
+                        result.mode(), result.throughput(), result.p50Millis(), result.p99Millis(), result.errors());
+            }
+
+            assertEquals(0, platform.errors());
+            assertEquals(0, virtual.errors());
+        } finally {
+            kakao.stop(0);
+        }
+    }
+
+    private static Result run(int kakaoPort, boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(CaplogApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode
+                                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;IGNORE_UNKNOWN_SETTINGS=TRUE",
+                        "kakao.restApiKey=load-test",
+                        "kakao.base-url=http://127.0.0.1:" + kakaoPort,
+                        "logging.level.root=warn"
+                )
+                .run()) {
+            int port = app.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            User user = app.getBean(UserRepository.class).save(User.builder()
+                    .email("load@caplog.test")
+                    .password("{noop}secret")
+                    .userId("load")
+                    .name("LOAD")
+                    .build());
+            List<Long> cardIds = seedCards(app.getBean(ScreenshotRepository.class), user.getUserNo());
+            String token = app.getBean(JwtUtil.class).generateAccessToken(user.getEmail());
+            return fire(mode, port, token, cardIds);
+        }
+    }
+
+    /** 같은 행을 두고 경합하지 않도록 동시 요청 수만큼 카드를 만듭니다. */
+    private static List<Long> seedCards(ScreenshotRepository repository, Long userNo) {
+        List<Long> ids = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            Screenshot card = new Screenshot();
+            card.setUserNo(userNo);
+            card.setTitle("카드 " + i);
+            card.setAddress("서울 마포구 " + i);
+            card.setGeocodeStatus((short) 0);
+            card.setGeocodeAttempts(0);
+            ids.add(repository.save(card).getId());
+        }
+        return ids;
+    }
+
+    private static Result fire(String mode, int port, String token, List<Long> cardIds) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(CONCURRENCY);
+
+        long started = System.nanoTime();
+        for (int worker = 0; worker < CONCURRENCY; worker++) {
+            callers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < REQUESTS) {
+                    HttpRequest request = HttpRequest.newBuilder()
+                            .uri(URI.create("http://127.0.0.1:" + port + "/api/geocode/" + cardIds.get(i % cardIds.size())))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(30))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    long requestStarted = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    } catch (Exception error) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - requestStarted;
+                }
+            });
+        }
+        callers.shutdown();
+        callers.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        return new Result(
+                mode,
+                REQUESTS * 1_000_000_000.0 / elapsed,
+                latencies[REQUESTS / 2] / 1_000_000.0,
+                latencies[(int) (REQUESTS * 0.99)] / 1_000_000.0,
+                errors.get()
+        );
+    }
+
+    /** 항상 KAKAO_DELAY 뒤에 빈 결과를 돌려주는 Kakao 대역. 매 요청이 외부 호출까지 가도록 결과를 비웁니다. */
+    private static HttpServer slowKakaoStub() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        byte[] body = "{\"documents\":[],\"meta\":{\"total_count\":0}}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(KAKAO_DELAY.toMillis());
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, int errors) {
+    }
+}
@@ -0,0 +1,86 @@
+package com.kbw.caplog.user;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class FriendGraphTest {
+
+    private final FriendGraph graph = new FriendGraph(mock(JdbcTemplate.class));
+
+    @Test
+    void ranksFriendsOfFriendsByMutualCount() {
+        // 1의 친구: 2, 3, 4 / 5는 2·3·4 모두와, 6은 2와만, 7은 3·4와 친구
+        graph.replace(edges(1, 2, 1, 3, 1, 4, 5, 2, 5, 3, 5, 4, 6, 2, 7, 3, 7, 4, 2, 3));
+
+        List<FriendGraph.Suggestion> suggestions = graph.suggest(1L, 10);
+
+        assertEquals(List.of(
+                new FriendGraph.Suggestion(5, 3),
+                new FriendGraph.Suggestion(7, 2),
+                new FriendGraph.Suggestion(6, 1)
+        ), suggestions);
+    }
+
+    @Test
+    void keepsOnlyTopLimitWithUserNoAsTieBreak() {
+        graph.replace(edges(1, 2, 2, 9, 2, 8, 2, 7));
+
+        assertEquals(List.of(new FriendGraph.Suggestion(7, 1), new FriendGraph.Suggestion(8, 1)), graph.suggest(1L, 2));
+    }
+
+    @Test
+    void followsAddsAndRemovesIncrementally() {
+        graph.replace(edges(1, 2, 2, 3));
+        assertEquals(List.of(new FriendGraph.Suggestion(3, 1)), graph.suggest(1L, 5));
+
+        graph.friendshipAdded(1L, 3L);
+        assertEquals(List.of(), graph.suggest(1L, 5));
+
+        graph.friendshipRemoved(1L, 2L);
+        assertEquals(List.of(new FriendGraph.Suggestion(2, 1)), graph.suggest(1L, 5));
+
+        graph.userRemoved(2L);
+        assertEquals(List.of(), graph.suggest(1L, 5));
+    }
+
+    @Test
+    void buildsFirstGraphOffTheRequestThreadAndWaitsForIt() {
+        AtomicReference<String> loadedOn = new AtomicReference<>();
+        FriendGraph lazy = new FriendGraph(mock(JdbcTemplate.class)) {
+            @Override
+            Map<Integer, RoaringBitmap> load() {
+                loadedOn.set(Thread.currentThread().getName());
+                return edges(1, 2, 2, 3);
+            }
+        };
+
+        assertEquals(List.of(new FriendGraph.Suggestion(3, 1)), lazy.suggest(1L, 5));
+        assertEquals("friend-graph-rebuild", loadedOn.get());
+    }
+
+    @Test
+    void suggestsNobodyToUserWithoutFriends() {
+        graph.replace(edges(2, 3));
+
+        assertEquals(List.of(), graph.suggest(1L, 5));
+    }
+
+    /** (a, b) 쌍마다 양방향 간선 */
+    private static Map<Integer, RoaringBitmap> edges(int... pairs) {
+        Map<Integer, RoaringBitmap> friends = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            friends.computeIfAbsent(pairs[i], ignored -> new RoaringBitmap()).add(pairs[i + 1]);
+            friends.computeIfAbsent(pairs[i + 1], ignored -> new RoaringBitmap()).add(pairs[i]);
+        }
+        return friends;
+    }
+}
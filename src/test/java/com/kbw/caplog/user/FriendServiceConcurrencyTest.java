@@ -0,0 +1,113 @@
+package com.kbw.caplog.user;
+
+import com.kbw.caplog.user.dto.AddFriendRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 친구 추가·삭제 동시성 (H2, MySQL 모드)
+ *
+ * <p>A→B, B→A 추가 요청을 동시에 쏟아도 유니크 제약 오류 없이 양방향 두 행만 남아야 합니다.
+ * H2의 잠금은 InnoDB의 간격(gap)·삽입 의도 잠금과 달라서, 여기서는 멱등성만 확인하고
+ * InnoDB 교착(행 잠금 순서, 재시도)은 확인하지 못합니다.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FriendServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired private FriendService friendService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FriendshipRepository friendshipRepository;
+
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("alice");
+        bob = user("bob");
+    }
+
+    @AfterEach
+    void tearDown() {
+        friendshipRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void concurrentAddsFromBothSidesLeaveExactlyTwoRows() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>(THREADS);
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                boolean fromAlice = i % 2 == 0;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return fromAlice
+                            ? friendService.addFriend(alice.getUserNo(), request(bob.getUserId()))
+                            : friendService.addFriend(bob.getUserNo(), request(alice.getUserId()));
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, friendshipRepository.count());
+        assertEquals(1, friendService.getFriends(alice.getUserNo(), null, 0).size());
+        assertEquals(1, friendService.getFriends(bob.getUserNo(), null, 0).size());
+    }
+
+    @Test
+    void addRepairsHalfFriendshipAndRemoveDeletesBothRows() {
+        friendshipRepository.save(Friendship.builder()
+                .ownerUserNo(alice.getUserNo())
+                .friendUserNo(bob.getUserNo())
+                .build());
+
+        friendService.addFriend(alice.getUserNo(), request(bob.getUserId()));
+        friendService.addFriend(alice.getUserNo(), request(bob.getUserId()));
+        assertEquals(2, friendshipRepository.count());
+
+        friendService.removeFriend(bob.getUserNo(), alice.getUserId());
+        assertEquals(0, friendshipRepository.count());
+        assertThrows(IllegalArgumentException.class,
+                () -> friendService.removeFriend(bob.getUserNo(), alice.getUserId()));
+    }
+
+    private User user(String id) {
+        return userRepository.save(User.builder()
+                .email(id + "@caplog.test")
+                .password("{noop}secret")
+                .userId(id)
+                .name(id.toUpperCase())
+                .build());
+    }
+
+    private static AddFriendRequest request(String userId) {
+        AddFriendRequest request = new AddFriendRequest();
+        request.setUserId(userId);
+        return request;
+    }
+}
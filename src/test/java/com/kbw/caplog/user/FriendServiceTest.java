@@ -1,15 +1,23 @@
 package com.kbw.caplog.user;
 
+import com.kbw.caplog.support.CollectionVersionRepository;
 import com.kbw.caplog.user.dto.AddFriendRequest;
 import com.kbw.caplog.user.dto.FriendDto;
+import com.kbw.caplog.user.dto.FriendSuggestionDto;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -19,81 +27,138 @@ import static org.mockito.Mockito.when;
 class FriendServiceTest {
 
     @Test
-    void addsFriendshipForBothUsers() {
+    void addsFriendshipForBothUsersInOneStatement() {
         UserRepository users = mock(UserRepository.class);
         FriendshipRepository friendships = mock(FriendshipRepository.class);
-        FriendService service = new FriendService(users, friendships);
-        User owner = user(1L, "owner", "사용자");
-        User friend = user(2L, "friend", "친구");
-        when(users.findById(1L)).thenReturn(Optional.of(owner));
-        when(users.findByUserId("friend")).thenReturn(Optional.of(friend));
+        FriendDirectory directory = mock(FriendDirectory.class);
+        FriendService service = new FriendService(users, friendships, directory, mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+        when(users.findByUserId("friend")).thenReturn(Optional.of(user(2L, "friend", "친구")));
 
-        FriendDto result = service.addFriend(1L, request("friend"));
+        FriendDto result = service.addFriend(1L, request(" friend "));
 
-        ArgumentCaptor<Friendship> captor = ArgumentCaptor.forClass(Friendship.class);
-        verify(friendships, times(2)).save(captor.capture());
-        List<Friendship> saved = captor.getAllValues();
-        assertEquals(1L, saved.get(0).getOwnerUserNo());
-        assertEquals(2L, saved.get(0).getFriendUserNo());
-        assertEquals(2L, saved.get(1).getOwnerUserNo());
-        assertEquals(1L, saved.get(1).getFriendUserNo());
+        verify(friendships).insertBothIgnoringExisting(1L, 2L);
+        verify(directory).invalidate(1L, 2L);
+        verify(friendships, never()).save(any(Friendship.class));
+        verify(users, never()).findById(any());
         assertEquals("friend", result.getId());
     }
 
     @Test
-    void repairsMissingReverseFriendship() {
+    void retriesAddInNewTransactionAfterDeadlock() {
         UserRepository users = mock(UserRepository.class);
         FriendshipRepository friendships = mock(FriendshipRepository.class);
-        FriendService service = new FriendService(users, friendships);
-        when(users.findById(1L)).thenReturn(Optional.of(user(1L, "owner", "사용자")));
+        FriendService service = new FriendService(users, friendships, mock(FriendDirectory.class), mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
         when(users.findByUserId("friend")).thenReturn(Optional.of(user(2L, "friend", "친구")));
-        when(friendships.existsByOwnerUserNoAndFriendUserNo(1L, 2L)).thenReturn(true);
-        when(friendships.existsByOwnerUserNoAndFriendUserNo(2L, 1L)).thenReturn(false);
+        doThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .doNothing()
+                .when(friendships).insertBothIgnoringExisting(1L, 2L);
+
+        FriendDto result = service.addFriend(1L, request("friend"));
+
+        verify(friendships, times(2)).insertBothIgnoringExisting(1L, 2L);
+        assertEquals("friend", result.getId());
+    }
 
-        service.addFriend(1L, request("friend"));
+    @Test
+    void givesUpAfterRepeatedDeadlocks() {
+        UserRepository users = mock(UserRepository.class);
+        FriendshipRepository friendships = mock(FriendshipRepository.class);
+        FriendService service = new FriendService(users, friendships, mock(FriendDirectory.class), mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+        when(users.findByUserId("friend")).thenReturn(Optional.of(user(2L, "friend", "친구")));
+        doThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .when(friendships).insertBothIgnoringExisting(1L, 2L);
 
-        ArgumentCaptor<Friendship> captor = ArgumentCaptor.forClass(Friendship.class);
-        verify(friendships).save(captor.capture());
-        assertEquals(2L, captor.getValue().getOwnerUserNo());
-        assertEquals(1L, captor.getValue().getFriendUserNo());
+        assertThrows(CannotAcquireLockException.class, () -> service.addFriend(1L, request("friend")));
+        verify(friendships, times(FriendService.ADD_ATTEMPTS)).insertBothIgnoringExisting(1L, 2L);
     }
 
     @Test
     void rejectsAddingSelf() {
         UserRepository users = mock(UserRepository.class);
         FriendshipRepository friendships = mock(FriendshipRepository.class);
-        FriendService service = new FriendService(users, friendships);
-        User owner = user(1L, "owner", "사용자");
-        when(users.findById(1L)).thenReturn(Optional.of(owner));
-        when(users.findByUserId("owner")).thenReturn(Optional.of(owner));
+        FriendDirectory directory = mock(FriendDirectory.class);
+        FriendService service = new FriendService(users, friendships, directory, mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+        when(users.findByUserId("owner")).thenReturn(Optional.of(user(1L, "owner", "사용자")));
 
         assertThrows(IllegalArgumentException.class, () -> service.addFriend(1L, request("owner")));
-        verify(friendships, never()).save(org.mockito.ArgumentMatchers.any(Friendship.class));
+        verify(friendships, never()).insertBothIgnoringExisting(anyLong(), anyLong());
+    }
+
+    @Test
+    void rejectsUnknownFriendUser() {
+        UserRepository users = mock(UserRepository.class);
+        FriendshipRepository friendships = mock(FriendshipRepository.class);
+        FriendDirectory directory = mock(FriendDirectory.class);
+        FriendService service = new FriendService(users, friendships, directory, mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+        when(users.findByUserId("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.addFriend(1L, request("ghost")));
+        verify(friendships, never()).insertBothIgnoringExisting(anyLong(), anyLong());
     }
 
     @Test
-    void removesFriendshipForBothUsers() {
+    void removesFriendshipForBothUsersInOneStatement() {
         UserRepository users = mock(UserRepository.class);
         FriendshipRepository friendships = mock(FriendshipRepository.class);
-        FriendService service = new FriendService(users, friendships);
+        FriendDirectory directory = mock(FriendDirectory.class);
+        FriendService service = new FriendService(users, friendships, directory, mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
         when(users.findByUserId("friend")).thenReturn(Optional.of(user(2L, "friend", "친구")));
-        when(friendships.existsByOwnerUserNoAndFriendUserNo(1L, 2L)).thenReturn(true);
+        when(friendships.deleteBoth(1L, 2L)).thenReturn(2);
 
         service.removeFriend(1L, "friend");
 
-        verify(friendships).deleteByOwnerUserNoAndFriendUserNo(1L, 2L);
-        verify(friendships).deleteByOwnerUserNoAndFriendUserNo(2L, 1L);
+        verify(friendships).deleteBoth(1L, 2L);
+        verify(directory).invalidate(1L, 2L);
+    }
+
+    @Test
+    void pagesFriendsAfterLastSeenUserId() {
+        UserRepository users = mock(UserRepository.class);
+        FriendshipRepository friendships = mock(FriendshipRepository.class);
+        FriendService service = new FriendService(users, friendships, mock(FriendDirectory.class), mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+        when(friendships.findFriendPageAfter(1L, "b", Limit.of(2))).thenReturn(List.of(row("c", "다현"), row("d", "d")));
+
+        List<FriendDto> page = service.getFriends(1L, " b ", 2);
+
+        assertEquals(List.of("c", "d"), page.stream().map(FriendDto::getId).toList());
+        assertEquals("다현", page.get(0).getName());
+    }
+
+    @Test
+    void returnsWholeListWhenNeitherCursorNorLimitIsSent() {
+        UserRepository users = mock(UserRepository.class);
+        FriendshipRepository friendships = mock(FriendshipRepository.class);
+        FriendService service = new FriendService(users, friendships, mock(FriendDirectory.class), mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+
+        service.getFriends(1L, null, 0);
+        service.getFriends(1L, " ", 0);
+
+        verify(friendships, times(2)).findFriendPage(1L, Limit.unlimited());
+    }
+
+    @Test
+    void capsRequestedAndCursorPagesAtMax() {
+        UserRepository users = mock(UserRepository.class);
+        FriendshipRepository friendships = mock(FriendshipRepository.class);
+        FriendService service = new FriendService(users, friendships, mock(FriendDirectory.class), mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
+
+        service.getFriends(1L, "", 10_000);
+        service.getFriends(1L, "b", 0);
+
+        verify(friendships).findFriendPage(1L, Limit.of(FriendService.MAX_PAGE_SIZE));
+        verify(friendships).findFriendPageAfter(1L, "b", Limit.of(FriendService.MAX_PAGE_SIZE));
     }
 
     @Test
     void rejectsRemovingUnknownFriendship() {
         UserRepository users = mock(UserRepository.class);
         FriendshipRepository friendships = mock(FriendshipRepository.class);
-        FriendService service = new FriendService(users, friendships);
+        FriendDirectory directory = mock(FriendDirectory.class);
+        FriendService service = new FriendService(users, friendships, directory, mock(FriendGraph.class), mock(CollectionVersionRepository.class), transactionTemplate());
         when(users.findByUserId("friend")).thenReturn(Optional.of(user(2L, "friend", "친구")));
+        when(friendships.deleteBoth(1L, 2L)).thenReturn(0);
 
         assertThrows(IllegalArgumentException.class, () -> service.removeFriend(1L, "friend"));
-        verify(friendships, never()).deleteByOwnerUserNoAndFriendUserNo(1L, 2L);
     }
 
     private static User user(Long userNo, String userId, String name) {
@@ -106,6 +171,61 @@ class FriendServiceTest {
                 .build();
     }
 
+    @Test
+    void namesSuggestionsInGraphOrderAndSkipsDeletedUsers() {
+        UserRepository users = mock(UserRepository.class);
+        FriendGraph graph = mock(FriendGraph.class);
+        FriendService service = new FriendService(users, mock(FriendshipRepository.class), mock(FriendDirectory.class), graph, mock(CollectionVersionRepository.class), transactionTemplate());
+        when(graph.suggest(1L, FriendService.MAX_SUGGESTIONS)).thenReturn(List.of(
+                new FriendGraph.Suggestion(5L, 3),
+                new FriendGraph.Suggestion(9L, 2),
+                new FriendGraph.Suggestion(7L, 1)
+        ));
+        when(users.findNameRows(List.of(5L, 9L, 7L))).thenReturn(List.of(nameRow(7L, "g"), nameRow(5L, "e")));
+
+        List<FriendSuggestionDto> suggestions = service.suggestFriends(1L, 500);
+
+        assertEquals(List.of("e", "g"), suggestions.stream().map(FriendSuggestionDto::getId).toList());
+        assertEquals(3, suggestions.get(0).getMutualFriends());
+    }
+
+    private static UserNameRow nameRow(Long userNo, String userId) {
+        return new UserNameRow() {
+            @Override
+            public Long getUserNo() {
+                return userNo;
+            }
+
+            @Override
+            public String getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getName() {
+                return userId.toUpperCase();
+            }
+        };
+    }
+
+    private static FriendRow row(String userId, String name) {
+        return new FriendRow() {
+            @Override
+            public String getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+
+    private static TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(mock(PlatformTransactionManager.class));
+    }
+
     private static AddFriendRequest request(String userId) {
         AddFriendRequest request = new AddFriendRequest();
         request.setUserId(userId);
@@ -0,0 +1,76 @@
+package com.kbw.caplog.user;
+
+import com.kbw.caplog.user.dto.FriendDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserSearchServiceTest {
+
+    private final UserRepository users = mock(UserRepository.class);
+    private final UserSearchService service = new UserSearchService(users);
+
+    @Test
+    void fillsWithNameMatchesAfterUserIdMatchesWithoutDuplicates() {
+        when(users.findUserIdPrefixMatches("ki%", 1L, Limit.of(3)))
+                .thenReturn(List.of(row(5L, "kim", "김"), row(6L, "kiwi", null)));
+        when(users.findNamePrefixMatches("ki%", 1L, Limit.of(3)))
+                .thenReturn(List.of(row(6L, "kiwi", "kiwi"), row(8L, "user8", "Kiara"), row(9L, "user9", "Kid")));
+
+        List<FriendDto> result = service.search(1L, " ki ", 3);
+
+        assertEquals(List.of("kim", "kiwi", "user8"), result.stream().map(FriendDto::getId).toList());
+        assertEquals("kiwi", result.get(1).getName());
+    }
+
+    @Test
+    void skipsNameQueryWhenUserIdMatchesFillThePage() {
+        when(users.findUserIdPrefixMatches("ab%", 1L, Limit.of(1))).thenReturn(List.of(row(5L, "abc", "A")));
+
+        service.search(1L, "ab", 1);
+
+        verify(users, never()).findNamePrefixMatches(anyString(), anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void rejectsTooShortOrTooLongPrefix() {
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, " a ", 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.search(1L, "x".repeat(51), 10));
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertEquals("50!%!_off!!%", UserSearchService.likePrefix("50%_off!"));
+    }
+
+    private static UserNameRow row(Long userNo, String userId, String name) {
+        return new UserNameRow() {
+            @Override
+            public Long getUserNo() {
+                return userNo;
+            }
+
+            @Override
+            public String getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}